@@ -0,0 +1,56 @@
+package mazegame.benchmark;
+
+import mazegame.generator.MazeAlgorithm;
+import mazegame.generator.MazeGenerator;
+import mazegame.map.MapData;
+import mazegame.map.Maps;
+
+import java.util.List;
+
+/**
+ * Provides the maps the benchmarks run on.
+ * <p>
+ * A map is named either {@code bundled-<id>} for a map of the bundled pack,
+ * or {@code generated-<size>} for a square maze of the size specified,
+ * generated by {@link MazeGenerator} with a fixed seed.
+ */
+final class BenchmarkMaps {
+
+    /**
+     * The seed of the generated mazes.
+     */
+    static final long SEED = 42;
+
+    private static final Maps BUNDLED = new Maps("/mazegame/map/maps.json");
+
+    private BenchmarkMaps() {
+    }
+
+    /**
+     * {@return the map with the name specified}
+     *
+     * @param name the name of the map
+     * @throws IllegalArgumentException if the name is invalid
+     */
+    static MapData load(String name) {
+        var separator = name.indexOf('-');
+        var kind = name.substring(0, separator);
+        var value = Integer.parseInt(name.substring(separator + 1));
+        return switch (kind) {
+            case "bundled" -> BUNDLED.getMap(value);
+            case "generated" -> MazeGenerator.generate(1, value, value, SEED, MazeAlgorithm.BACKTRACKER);
+            default -> throw new IllegalArgumentException("Unknown map: " + name);
+        };
+    }
+
+    /**
+     * {@return the maps containing only the map with the name specified, under id 1}
+     *
+     * @param name the name of the map
+     */
+    static Maps loadAsMaps(String name) {
+        var map = load(name);
+        return new Maps(List.of(MapData.of(1, map.name(), map.toCompactGrid())));
+    }
+
+}
@@ -0,0 +1,75 @@
+package mazegame.benchmark;
+
+import mazegame.model.Direction;
+import mazegame.model.GameEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the headless {@link GameEngine} with the same walk as {@link GameStateBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dtinylog.level=off")
+public class GameEngineBenchmark {
+
+    @Param({"bundled-1", "bundled-2", "generated-64", "generated-256", "generated-1024"})
+    private String map;
+
+    private GameEngine initial;
+
+    private GameEngine engine;
+
+    private int turn;
+
+    @Setup
+    public void setup() {
+        initial = new GameEngine(BenchmarkMaps.load(map).toCompactGrid());
+        engine = initial.copy();
+    }
+
+    @Benchmark
+    public int makeMove() {
+        var legalMoves = engine.getLegalMoves();
+        if (legalMoves == 0) {
+            engine.setState(initial.getPlayer(), initial.getMonster());
+            return 0;
+        }
+        for (var i = 0; i < 4; i++) {
+            var direction = 1 << ((turn++ + i) & 3);
+            if ((legalMoves & direction) != 0) {
+                engine.makeMove(direction);
+                break;
+            }
+        }
+        return engine.getPlayer();
+    }
+
+    @Benchmark
+    public void isLegalMove(Blackhole blackhole) {
+        for (var direction : Direction.values()) {
+            blackhole.consume(engine.isLegalMove(direction));
+        }
+    }
+
+    @Benchmark
+    public GameEngine copy() {
+        return engine.copy();
+    }
+
+}
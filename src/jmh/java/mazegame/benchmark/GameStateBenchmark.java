@@ -0,0 +1,105 @@
+package mazegame.benchmark;
+
+import mazegame.map.Maps;
+import mazegame.model.Direction;
+import mazegame.model.GameState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the methods of {@link GameState} and {@link Maps#getMap(int)}.
+ * <p>
+ * The moves are a walk that always takes the next legal direction, and it
+ * restarts from the initial state when the map has been solved. Logging is
+ * turned off in the forked JVMs so that the model itself is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dtinylog.level=off")
+public class GameStateBenchmark {
+
+    @Param({"bundled-1", "bundled-2", "generated-64", "generated-256", "generated-1024"})
+    private String map;
+
+    private Maps maps;
+
+    private GameState initial;
+
+    private GameState state;
+
+    private int turn;
+
+    @Setup
+    public void setup() {
+        maps = BenchmarkMaps.loadAsMaps(map);
+        initial = new GameState(maps, 1);
+        state = initial.clone();
+    }
+
+    @Benchmark
+    public GameState makeMove() {
+        var legalMoves = state.getLegalMovesMask();
+        if (legalMoves == 0) {
+            state = initial.clone();
+            return state;
+        }
+        var directions = Direction.values();
+        for (var i = 0; i < directions.length; i++) {
+            var direction = directions[(turn++ + i) & 3];
+            if ((legalMoves & direction.getMask()) != 0) {
+                state.makeMove(direction);
+                break;
+            }
+        }
+        return state;
+    }
+
+    @Benchmark
+    public void isLegalMove(Blackhole blackhole) {
+        for (var direction : Direction.values()) {
+            blackhole.consume(state.isLegalMove(direction));
+        }
+    }
+
+    @Benchmark
+    public Set<Direction> getLegalMoves() {
+        return state.getLegalMoves();
+    }
+
+    @Benchmark
+    public int getLegalMovesMask() {
+        return state.getLegalMovesMask();
+    }
+
+    @Benchmark
+    public GameState cloneState() {
+        return state.clone();
+    }
+
+    @Benchmark
+    public int hashCodeOfState() {
+        return state.hashCode();
+    }
+
+    @Benchmark
+    public Object getMap() {
+        return maps.getMap(1);
+    }
+
+}
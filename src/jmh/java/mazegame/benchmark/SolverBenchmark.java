@@ -0,0 +1,50 @@
+package mazegame.benchmark;
+
+import mazegame.map.CompactGrid;
+import mazegame.solver.Algorithm;
+import mazegame.solver.SearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the solvers on whole maps. The generated mazes are kept small
+ * enough for the state tables of the sequential solvers to fit in the heap.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dtinylog.level=off")
+public class SolverBenchmark {
+
+    @Param({"bundled-1", "bundled-2", "generated-16", "generated-32", "generated-64"})
+    private String map;
+
+    @Param({"BFS", "ASTAR", "PARALLEL"})
+    private Algorithm algorithm;
+
+    private CompactGrid grid;
+
+    @Setup
+    public void setup() {
+        grid = BenchmarkMaps.load(map).toCompactGrid();
+    }
+
+    @Benchmark
+    public SearchResult solve() {
+        return algorithm.solve(grid);
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Contains the JMH benchmarks of the model, map and solver hot paths.
+ */
+package mazegame.benchmark;
@@ -1,36 +1,372 @@
 package mazegame.game;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import gameresult.OnePlayerGameResult;
 import gameresult.manager.OnePlayerGameResultManager;
 import gameresult.manager.json.JsonOnePlayerGameResultManager;
+import mazegame.results.LeaderboardIndex;
+import mazegame.results.MapResult;
+import mazegame.results.RankIndex;
+import mazegame.results.ResultAggregates;
+import mazegame.results.ResultStore;
+import mazegame.results.ResultWriter;
 import org.tinylog.Logger;
 
-public class GameResultManagerImpl implements OnePlayerGameResultManager {
+/**
+ * Stores the results of the games in a {@link ResultStore}, and their
+ * rankings in a {@link LeaderboardIndex}.
+ * <p>
+ * Results are written by a {@link ResultWriter}, so adding a result does
+ * not wait for the disk. Once a result is on the disk, it updates the
+ * rankings it enters, the ranks of its map and the statistics of the
+ * results, so neither the leaderboard, the rank of a new result nor the
+ * statistics read the history. The
+ * results of an existing {@code results.json} are imported once, without
+ * the duplicates earlier versions have written, and the results the index
+ * is missing are added to it from the store when it is opened.
+ * <p>
+ * The ranks and the statistics are saved as checkpoints, so opening the
+ * results only reads the results added since. The results are opened on a
+ * thread of their own by {@link #open()}. Adding a result never waits for
+ * them, the result is submitted once they are open, and the methods that
+ * read the results wait until they are open.
+ */
+public class GameResultManagerImpl implements OnePlayerGameResultManager, AutoCloseable {
 
-    private List<OnePlayerGameResult> results = new ArrayList<>();
+    /**
+     * The name of the system property that can specify when the results are
+     * forced to the disk, in the format of {@link ResultWriter.Durability#parse(String)}.
+     */
+    public static final String DURABILITY_PROPERTY = "mazegame.results.durability";
 
+    private static final Path STORE_DIRECTORY = Path.of("results");
+
+    private static final Path INDEX_DIRECTORY = STORE_DIRECTORY.resolve("leaderboard");
+
+    private static final Path AGGREGATES_CHECKPOINT = STORE_DIRECTORY.resolve("aggregates.checkpoint");
+
+    private static final Path RANKS_CHECKPOINT = STORE_DIRECTORY.resolve("ranks.checkpoint");
+
+    private static final Path LEGACY_RESULTS = Path.of("results.json");
+
+    /**
+     * The number of results after which the ranks and the statistics are saved.
+     */
+    private static final int CHECKPOINT_INTERVAL = 100;
+
+    private ResultStore store;
+
+    private LeaderboardIndex index;
+
+    private RankIndex ranks;
+
+    private ResultAggregates aggregates;
+
+    private ResultWriter writer;
+
+    /**
+     * Completes when the last result added has been written and ranked.
+     */
+    private CompletableFuture<Void> lastSaved = CompletableFuture.completedFuture(null);
+
+    /**
+     * Completes when the last result added has been submitted to the writer,
+     * so the results are submitted in the order they are added.
+     */
+    private CompletableFuture<Void> lastSubmitted = CompletableFuture.completedFuture(null);
+
+    /**
+     * Completes with the writer when the results are open, or null if they are not being opened.
+     */
+    private CompletableFuture<ResultWriter> opened;
+
+    /**
+     * Starts opening the results on a thread of their own, unless they are
+     * already open or being opened. If opening fails, the results stay
+     * closed until {@link #close()} is called.
+     *
+     * @return a future that completes when the results are open
+     */
+    public CompletableFuture<Void> open() {
+        return opening().thenAccept(writer -> { });
+    }
+
+    private synchronized CompletableFuture<ResultWriter> opening() {
+        if (opened == null) {
+            var future = new CompletableFuture<ResultWriter>();
+            opened = future;
+            Thread.ofPlatform().name("results-opener").daemon().start(() -> {
+                try {
+                    future.complete(openStore());
+                } catch (Throwable e) {
+                    // Whatever stops the opening, the methods waiting for it must not wait forever
+                    Logger.error(e, "Failed to open the results in {}", STORE_DIRECTORY);
+                    future.completeExceptionally(e);
+                }
+            });
+        }
+        return opened;
+    }
+
+    /**
+     * Opens the store and recovers the indexes. Runs on the thread started by
+     * {@link #open()}, the fields are read once its future completes.
+     *
+     * @return the writer of the results
+     */
+    private ResultWriter openStore() throws IOException {
+        var started = System.nanoTime();
+        var exists = Files.isDirectory(STORE_DIRECTORY);
+        var store = ResultStore.open(STORE_DIRECTORY);
+        try {
+            if (!exists && Files.exists(LEGACY_RESULTS)) {
+                importLegacyResults(store);
+            }
+            var index = LeaderboardIndex.open(INDEX_DIRECTORY);
+            index.recover(store);
+            var ranks = RankIndex.recover(RANKS_CHECKPOINT, store);
+            var aggregates = ResultAggregates.recover(AGGREGATES_CHECKPOINT, store);
+            this.index = index;
+            this.ranks = ranks;
+            this.aggregates = aggregates;
+            this.writer = ResultWriter.start(store, getDurability(), new Indexes(index, ranks, aggregates)::add);
+            this.store = store;
+            Logger.info("Opened {} results in {} ms", ranks.getResultCount(),
+                    (System.nanoTime() - started) / 1_000_000);
+            return writer;
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+    }
+
+    private synchronized ResultStore getStore() throws IOException {
+        try {
+            opening().get();
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to open the results", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while opening the results", e);
+        }
+        return store;
+    }
+
+    private static ResultWriter.Durability getDurability() {
+        var durability = System.getProperty(DURABILITY_PROPERTY);
+        return durability == null || durability.isBlank()
+                ? ResultWriter.Durability.perResult()
+                : ResultWriter.Durability.parse(durability);
+    }
+
+    private synchronized LeaderboardIndex getIndex() throws IOException {
+        getStore();
+        return index;
+    }
+
+    private synchronized RankIndex getRanks() throws IOException {
+        getStore();
+        return ranks;
+    }
+
+    /**
+     * Returns the statistics of the results, which are updated as results are saved.
+     *
+     * @return the statistics
+     * @throws IOException if the results cannot be read
+     */
+    public synchronized ResultAggregates getAggregates() throws IOException {
+        getStore();
+        return aggregates;
+    }
+
+    private synchronized ResultWriter getWriter() throws IOException {
+        getStore();
+        return writer;
+    }
+
+    /**
+     * Represents what is updated when results are on the disk. Runs on the
+     * writer thread, which must not take the monitor of the manager that closes it.
+     */
+    private record Indexes(LeaderboardIndex leaderboard, RankIndex ranks, ResultAggregates aggregates) {
+
+        void add(List<MapResult> results) {
+            var before = aggregates.getResultCount();
+            for (var result : results) {
+                ranks.add(result);
+                aggregates.add(result);
+            }
+            try {
+                leaderboard.add(results);
+                for (var result : results) {
+                    Logger.info("Game result saved on map {}: {}", result.mapId(), result.result());
+                }
+            } catch (IOException e) {
+                Logger.error(e, "Failed to rank {} results", results.size());
+            }
+            if (before / CHECKPOINT_INTERVAL != aggregates.getResultCount() / CHECKPOINT_INTERVAL) {
+                saveCheckpoints(ranks, aggregates);
+            }
+        }
+
+    }
+
+    private static void saveCheckpoints(RankIndex ranks, ResultAggregates aggregates) {
+        try {
+            ranks.save(RANKS_CHECKPOINT);
+        } catch (IOException e) {
+            Logger.error(e, "Failed to save the ranks to {}", RANKS_CHECKPOINT);
+        }
+        try {
+            aggregates.save(AGGREGATES_CHECKPOINT);
+        } catch (IOException e) {
+            Logger.error(e, "Failed to save the statistics to {}", AGGREGATES_CHECKPOINT);
+        }
+    }
+
+    private static void importLegacyResults(ResultStore store) throws IOException {
+        var results = new JsonOnePlayerGameResultManager(LEGACY_RESULTS).getAll().stream().distinct().toList();
+        for (var result : results) {
+            store.append(new MapResult(MapResult.UNKNOWN_MAP, result));
+        }
+        store.compact();
+        Logger.info("Imported {} game results from {}", results.size(), LEGACY_RESULTS);
+    }
+
+    /**
+     * Forces the results added so far to the disk, and waits until they are ranked.
+     *
+     * @throws IOException if an I/O error occurs
+     */
     public void save() throws IOException {
-        OnePlayerGameResultManager manager = new JsonOnePlayerGameResultManager(Path.of("results.json"));
-        for (var state : results) {
-            manager.add(state);
-            Logger.info("Game result saved: {}", state);
+        try {
+            getWriter().flush().get();
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to save the results", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while saving the results", e);
         }
     }
 
+    /**
+     * Submits a result of an unknown map to the writer.
+     *
+     * @param result the result
+     * @return a list of the result added
+     */
     @Override
-    public List<OnePlayerGameResult> add(OnePlayerGameResult result) throws IOException {
-        results.add(result);
-        return results;
+    public List<OnePlayerGameResult> add(OnePlayerGameResult result) {
+        add(MapResult.UNKNOWN_MAP, MapResult.UNRECORDED, result);
+        return List.of(result);
+    }
+
+    /**
+     * Submits a result to the writer once the results are open, without
+     * waiting for them to open, for the disk or reading the earlier results.
+     *
+     * @param mapId the id of the map of the game
+     * @param journalOffset the offset of the game in the move journal, {@value MapResult#UNRECORDED} if it is not in it
+     * @param result the result
+     * @return a future that completes when the result is on the disk and ranked, or
+     * completes exceptionally if the results cannot be opened
+     */
+    public synchronized CompletableFuture<Void> add(int mapId, long journalOffset, OnePlayerGameResult result) {
+        var mapResult = new MapResult(mapId, journalOffset, result);
+        var opening = opening();
+        var submission = lastSubmitted.thenCompose(ignored -> opening).thenApply(writer -> writer.submit(mapResult));
+        lastSubmitted = submission.handle((ignored, e) -> null);
+        lastSaved = submission.thenCompose(saved -> saved);
+        return lastSaved;
+    }
+
+    /**
+     * {@return a future that completes when the last result added is on the disk and ranked}
+     */
+    public synchronized CompletableFuture<Void> whenSaved() {
+        return lastSaved;
     }
 
     @Override
     public List<OnePlayerGameResult> getAll() throws IOException {
-        return new ArrayList<>(results);
+        return getStore().getAll().stream().map(MapResult::result).toList();
+    }
+
+    /**
+     * Returns the solved games of all maps with the fewest moves.
+     *
+     * @param limit the maximum number of results
+     * @return the results in ascending order of the number of moves
+     * @throws IOException if the results cannot be read
+     */
+    public List<OnePlayerGameResult> getBest(int limit) throws IOException {
+        return getBest(new LeaderboardIndex.Ranking(LeaderboardIndex.ALL_MAPS, LeaderboardIndex.Criterion.MOVES, true),
+                limit);
+    }
+
+    /**
+     * Returns the best results of a ranking from the index.
+     *
+     * @param ranking the ranking
+     * @param limit the maximum number of results
+     * @return the results, best first
+     * @throws IOException if the ranking cannot be read
+     */
+    public List<OnePlayerGameResult> getBest(LeaderboardIndex.Ranking ranking, int limit) throws IOException {
+        return getIndex().top(ranking, limit).stream().map(MapResult::result).toList();
+    }
+
+    /**
+     * Returns the standing a new solved game would have among the solved games of its map.
+     *
+     * @param mapId the id of the map of the game
+     * @param numberOfMoves the number of moves of the game
+     * @return the standing, counting the new game too
+     * @throws IOException if the results cannot be read
+     */
+    public RankIndex.Standing getStanding(int mapId, int numberOfMoves) throws IOException {
+        return getRanks().standing(mapId, numberOfMoves);
+    }
+
+    /**
+     * Writes the results added so far and closes the results, waiting for
+     * them to be opened first if they are being opened.
+     *
+     * @throws IOException if the results cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (opened == null) {
+            return;
+        }
+        try {
+            opened.get();
+            // The results added while the results were opening are submitted before the writer is closed
+            lastSubmitted.get();
+        } catch (ExecutionException e) {
+            // Nothing has been opened
+            opened = null;
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while opening the results", e);
+        }
+        writer.close();
+        saveCheckpoints(ranks, aggregates);
+        store.close();
+        opened = null;
+        store = null;
+        index = null;
+        ranks = null;
+        aggregates = null;
+        writer = null;
     }
 
 }
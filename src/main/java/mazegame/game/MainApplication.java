@@ -7,9 +7,17 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import lombok.Getter;
+import mazegame.journal.JournalEntry;
+import mazegame.journal.MoveJournal;
+import mazegame.journal.MoveList;
+import mazegame.journal.ReplayVerifier;
+import mazegame.map.CompactGrid;
+import mazegame.model.GameEngine;
+import mazegame.results.MapResult;
 import org.tinylog.Logger;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.Objects;
@@ -22,6 +30,10 @@ public class MainApplication extends Application {
     @Getter
     private static GameResultManagerImpl manager = new GameResultManagerImpl();
 
+    private static final Path JOURNAL_PATH = Path.of("moves.journal");
+
+    private MoveJournal journal;
+
     private Stage stage;
 
     @Getter
@@ -34,17 +46,61 @@ public class MainApplication extends Application {
         instance = this;
     }
 
-    public void saveResult(boolean solved, int numberOfMoves) throws IOException {
+    /**
+     * Saves the result of a game if replaying its moves confirms the outcome
+     * and the number of moves reported by the game. The result is written in
+     * the background, see {@link GameResultManagerImpl#whenSaved()}, and
+     * refers to the game in the move journal, so {@link mazegame.journal.Main}
+     * can check the saved result against the recorded moves.
+     *
+     * @param mapId the id of the map of the game
+     * @param journalOffset the offset of the game in the move journal, as returned by {@link #recordGame(JournalEntry)}
+     * @param solved whether the game has been solved, otherwise the player has been caught
+     * @param numberOfMoves the number of moves of the game
+     * @param grid the packed blocks of the map of the game
+     * @param moves the moves of the game
+     */
+    public void saveResult(int mapId, long journalOffset, boolean solved, int numberOfMoves, CompactGrid grid,
+                           MoveList moves) {
+        var verdict = ReplayVerifier.verify(new GameEngine(grid), moves,
+                solved ? JournalEntry.Outcome.SOLVED : JournalEntry.Outcome.CAUGHT, numberOfMoves);
+        if (verdict != ReplayVerifier.Verdict.CONFIRMED) {
+            Logger.warn("Result of {} rejected by the replay: {}", playerName, verdict);
+            return;
+        }
         var now = ZonedDateTime.now();
         var duration = Duration.ofSeconds(now.toEpochSecond() - created.toEpochSecond());
-        manager.add(OnePlayerGameResult.builder()
-                .playerName(this.playerName)
+        var player = this.playerName;
+        manager.add(mapId, journalOffset, OnePlayerGameResult.builder()
+                .playerName(player)
                 .solved(solved)
                 .numberOfMoves(numberOfMoves)
                 .duration(duration)
                 .created(this.created)
-                .build());
-        manager.save();
+                .build()).whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        Logger.error(e, "Failed to save the result of {}", player);
+                    }
+                });
+    }
+
+    /**
+     * Appends a played game to the move journal. A game that cannot be
+     * written is logged and dropped, so the journal never stops the game.
+     *
+     * @param entry the game
+     * @return the offset of the game in the journal, or {@value MapResult#UNRECORDED} if it cannot be written
+     */
+    public synchronized long recordGame(JournalEntry entry) {
+        try {
+            if (journal == null) {
+                journal = MoveJournal.open(JOURNAL_PATH);
+            }
+            return journal.append(entry);
+        } catch (IOException e) {
+            Logger.error(e, "Failed to write the game to the move journal");
+            return MapResult.UNRECORDED;
+        }
     }
 
     public void switchScene(String fxml) throws IOException {
@@ -68,8 +124,18 @@ public class MainApplication extends Application {
     @Override
     public void start(Stage stage) throws Exception {
         this.stage = stage;
+        // Open the results while the player starts a game, so the user interface never waits for them
+        manager.open();
         stage.setTitle("Maze Game");
         switchScene("/mazegame/game/fxml/start.fxml");
     }
 
+    @Override
+    public synchronized void stop() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        manager.close();
+    }
+
 }
\ No newline at end of file
@@ -1,29 +1,32 @@
 package mazegame.game.controller;
 
 import javafx.application.Platform;
-import javafx.beans.binding.BooleanBinding;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.fxml.FXML;
-import javafx.scene.Node;
+import javafx.geometry.Pos;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
-import javafx.scene.image.ImageView;
 import javafx.scene.input.*;
-import javafx.scene.layout.*;
-import javafx.scene.paint.Color;
+import javafx.scene.layout.StackPane;
 import mazegame.game.MainApplication;
-import mazegame.map.Block;
-import mazegame.map.Maps;
+import mazegame.game.view.MazeView;
+import mazegame.game.view.MinimapView;
+import mazegame.journal.JournalEntry;
+import mazegame.journal.MoveList;
+import mazegame.map.MapRepository;
 import mazegame.model.Direction;
 import mazegame.model.GameState;
+import mazegame.results.MapResult;
 import org.tinylog.Logger;
 import util.OrdinalImageStorage;
 import util.javafx.ImageStorage;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.Locale;
 import java.util.Optional;
 
 public class GameController {
@@ -36,8 +39,16 @@ public class GameController {
 
     private GameState state;
 
+    private MazeView mazeView;
+
+    private MinimapView minimapView;
+
+    private MoveList moves;
+
+    private Instant started;
+
     @FXML
-    private GridPane grid;
+    private StackPane board;
 
     @FXML
     private TextField numberOfMovesField;
@@ -51,9 +62,11 @@ public class GameController {
         var quitKeyCombination = new KeyCodeCombination(KeyCode.Q, KeyCombination.CONTROL_DOWN);
         if (restartKeyCombination.match(keyEvent)) {
             Logger.debug("Restarting game");
+            recordGame(JournalEntry.Outcome.ABANDONED);
             restartGame();
         } else if (quitKeyCombination.match(keyEvent)) {
             Logger.debug("Exiting");
+            recordGame(JournalEntry.Outcome.ABANDONED);
             Platform.exit();
         } else if (keyEvent.getCode() == KeyCode.UP) {
             Logger.debug("UP pressed");
@@ -72,12 +85,11 @@ public class GameController {
 
     @FXML
     private void handleMouseClick(MouseEvent event) {
-        var source = (Node) event.getSource();
-        var row = GridPane.getRowIndex(source);
-        var col = GridPane.getColumnIndex(source);
-        Logger.debug("Click on square ({},{})", row, col);
-        getDirectionFromClick(row, col).ifPresentOrElse(this::makeMoveIfLegal,
-                () -> Logger.warn("Click does not correspond to any of the directions"));
+        mazeView.cellAt(event.getX(), event.getY()).ifPresent(cell -> {
+            Logger.debug("Click on square ({},{})", cell.row(), cell.col());
+            getDirectionFromClick(cell.row(), cell.col()).ifPresentOrElse(this::makeMoveIfLegal,
+                    () -> Logger.warn("Click does not correspond to any of the directions"));
+        });
     }
 
     @FXML
@@ -91,64 +103,17 @@ public class GameController {
         numberOfMovesField.textProperty().bind(numberOfMoves.asString());
     }
 
-    private BooleanBinding createBindingToCheckPieceIsOnPosition(int index, int row, int col) {
-        return new BooleanBinding() {
-            {
-                super.bind(state.positionProperty(index));
-            }
-            @Override
-            protected boolean computeValue() {
-                var position = state.getPosition(index);
-                return position.row() == row && position.col() == col;
-            }
-        };
-    }
-
-    private ImageView createImageViewForPieceOnPosition(int index, int row, int col) {
-        var imageView = new ImageView(imageStorage.get(index).orElseThrow());
-        imageView.visibleProperty().bind(createBindingToCheckPieceIsOnPosition(index, row, col));
-        return imageView;
-    }
-
     private void createState() {
-        // Load the maps
-        var maps = new Maps("/mazegame/map/maps.json");
-        state = new GameState(maps, 1);
+        // Take the current maps, the game keeps them even if the file is reloaded
+        state = new GameState(MapRepository.getDefault().snapshot(), 1);
         state.solvedProperty().addListener(this::handleSolved);
     }
 
-    private StackPane createSquare(int row, int col, Block block) {
-        var square = new StackPane();
-        square.getStyleClass().add("square");
-        square.getStyleClass().add((row + col) % 2 == 0 ? "light": "dark");
-
-        BorderWidths borderWidths = new BorderWidths(
-                block.wallTop() ? 3.0 : 0.5,
-                block.wallRight() ? 3.0 : 0.5,
-                block.wallBottom() ? 3.0 : 0.5,
-                block.wallLeft() ? 3.0 : 0.5
-        );
-
-        BorderStroke borderStroke = new BorderStroke(
-                Color.BLACK,
-                BorderStrokeStyle.SOLID,
-                CornerRadii.EMPTY,
-                borderWidths
-        );
-
-        square.setBorder(new Border(borderStroke));
-
-        var playerImageView = createImageViewForPieceOnPosition(0, row, col);
-        var monsterImageView = createImageViewForPieceOnPosition(1, row, col);
-        square.getChildren().addAll(playerImageView, monsterImageView);
-
-        square.setOnMouseClicked(this::handleMouseClick);
-        return square;
-    }
-
     private void endGame(boolean solved) {
+        var journalOffset = recordGame(solved ? JournalEntry.Outcome.SOLVED : JournalEntry.Outcome.CAUGHT);
         try {
-            MainApplication.getInstance().saveResult(solved, numberOfMoves.get());
+            MainApplication.getInstance().saveResult(state.getMapIndex(), journalOffset, solved, numberOfMoves.get(),
+                    state.getGrid(), moves);
             MainApplication.getInstance().switchScene("/mazegame/game/fxml/leaderboard.fxml");
         } catch (IOException e) {
             Logger.error(e, "Failed to switch scene or save result");
@@ -157,24 +122,56 @@ public class GameController {
 
     private void handleSolved(ObservableValue<? extends Boolean> observableValue, Boolean oldValue, Boolean newValue) {
         if (newValue) {
-            Platform.runLater(() -> showAlert(
+            // The results are opened in the background, ranking the game must not wait for them here
+            MainApplication.getManager().open().whenComplete((ignored, e) -> Platform.runLater(() -> showAlert(
                     Alert.AlertType.INFORMATION,
                     "Game Solved",
-                    "Congratulations, you have escaped the maze!",
-                    true));
+                    "Congratulations, you have escaped the maze!" + describeStanding(),
+                    true)));
         }
     }
 
-    private void initMap() {
-        var map = state.getCurrentMap();
-        grid.getChildren().clear();  // Clear the existing cells
+    private String describeStanding() {
+        var map = state.getHeader();
+        try {
+            var standing = MainApplication.getManager().getStanding(map.id(), numberOfMoves.get());
+            return String.format(Locale.ENGLISH, "%nYou ranked %,d%s of %,d on %s (top %d%%).",
+                    standing.rank(), ordinalSuffix(standing.rank()), standing.total(), map.name(),
+                    standing.topPercent());
+        } catch (IOException e) {
+            Logger.error(e, "Failed to rank the game");
+            return "";
+        }
+    }
 
-        for (var row = 0; row < grid.getRowCount(); row++) {
-            for (var col = 0; col < grid.getColumnCount(); col++) {
-                var square = createSquare(row, col, map.blocks().get(row).get(col));
-                grid.add(square, col, row);
-            }
+    private static String ordinalSuffix(long number) {
+        if (number % 100 >= 11 && number % 100 <= 13) {
+            return "th";
+        }
+        return switch ((int) (number % 10)) {
+            case 1 -> "st";
+            case 2 -> "nd";
+            case 3 -> "rd";
+            default -> "th";
+        };
+    }
+
+    private void initMap() {
+        if (mazeView == null) {
+            mazeView = new MazeView(board.getPrefWidth(), board.getPrefHeight(),
+                    imageStorage.get(GameState.PLAYER).orElse(null),
+                    imageStorage.get(GameState.MONSTER).orElse(null));
+            mazeView.setOnMouseClicked(this::handleMouseClick);
+            minimapView = new MinimapView();
+            minimapView.setMouseTransparent(true);
+            minimapView.setOpacity(0.85);
+            StackPane.setAlignment(minimapView, Pos.TOP_RIGHT);
+            board.getChildren().addAll(mazeView, minimapView);
         }
+        mazeView.setState(state);
+        minimapView.setState(state);
+        // The overview is only needed when the maze scrolls
+        minimapView.setVisible(!mazeView.isMapVisible());
     }
 
     private Optional<Direction> getDirectionFromClick(int row, int col) {
@@ -188,9 +185,14 @@ public class GameController {
     }
 
     private void makeMoveIfLegal(Direction direction) {
+        if (state.getPosition(GameState.PLAYER).equals(state.getPosition(GameState.MONSTER))) {
+            // The game is over, the moves made before the alert is shown are not part of it
+            return;
+        }
         if (state.isLegalMove(direction)) {
-            Logger.info("Moving {}", direction);
+            Logger.debug("Moving {}", direction);
             state.makeMove(direction);
+            moves.add(direction);
             Logger.trace("New state after move: {}", state);
             numberOfMoves.set(numberOfMoves.get() + 1);
 
@@ -207,13 +209,23 @@ public class GameController {
         }
     }
 
+    private long recordGame(JournalEntry.Outcome outcome) {
+        if (outcome == JournalEntry.Outcome.ABANDONED && moves.size() == 0) {
+            return MapResult.UNRECORDED;
+        }
+        return MainApplication.getInstance().recordGame(
+                new JournalEntry(state.getMapIndex(), 0, started, Instant.now(), outcome, moves));
+    }
+
     private void registerKeyEventHandler() {
-        Platform.runLater(() -> grid.getScene().setOnKeyPressed(this::handleKeyPress));
+        Platform.runLater(() -> board.getScene().setOnKeyPressed(this::handleKeyPress));
     }
 
     private void restartGame() {
         createState();
         numberOfMoves.set(0);
+        moves = new MoveList();
+        started = Instant.now();
         playerNameLabel.setText("Player: " + MainApplication.getInstance().getPlayerName());
         initMap();
     }
@@ -1,12 +1,12 @@
 package mazegame.game.controller;
 
 import java.io.IOException;
-import java.nio.file.Path;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.List;
 
 import gameresult.OnePlayerGameResult;
-import gameresult.manager.json.JsonOnePlayerGameResultManager;
+import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -14,7 +14,9 @@ import javafx.fxml.FXML;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
+import mazegame.game.MainApplication;
 
+import org.tinylog.Logger;
 import util.DurationUtil;
 
 public class TableViewController {
@@ -40,7 +42,7 @@ public class TableViewController {
     private TableColumn<OnePlayerGameResult, String> created;
 
     @FXML
-    private void initialize() throws IOException {
+    private void initialize() {
         playerName.setCellValueFactory(new PropertyValueFactory<>("playerName"));
         numberOfMoves.setCellValueFactory(new PropertyValueFactory<>("numberOfMoves"));
         solved.setCellValueFactory(new PropertyValueFactory<>("solved"));
@@ -57,7 +59,22 @@ public class TableViewController {
                 }
         );
         ObservableList<OnePlayerGameResult> observableList = FXCollections.observableArrayList();
-        observableList.addAll(new JsonOnePlayerGameResultManager(Path.of("results.json")).getBestByNumberOfMoves(NUMBER_OF_ROWS_TO_SHOW));
         tableView.setItems(observableList);
+        // The results may still be opening, and the result of the game just finished may still be
+        // on its way to the disk, so the leaderboard is read on another thread
+        var manager = MainApplication.getManager();
+        manager.open()
+                .thenCompose(ignored -> manager.whenSaved())
+                .handleAsync((ignored, e) -> readBest())
+                .thenAccept(best -> Platform.runLater(() -> observableList.setAll(best)));
+    }
+
+    private static List<OnePlayerGameResult> readBest() {
+        try {
+            return MainApplication.getManager().getBest(NUMBER_OF_ROWS_TO_SHOW);
+        } catch (IOException e) {
+            Logger.error(e, "Failed to read the leaderboard");
+            return List.of();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package mazegame.game.view;
+
+/**
+ * Represents the part of a map that is visible in a viewport, in cells.
+ * <p>
+ * The camera follows a cell, typically the player, and scrolls only when the
+ * cell comes closer to an edge of the viewport than the margin, so small
+ * moves do not scroll the view. The viewport never extends beyond the map.
+ */
+public class Camera {
+
+    private final int mapRows;
+
+    private final int mapCols;
+
+    private final int rows;
+
+    private final int cols;
+
+    private final int rowMargin;
+
+    private final int colMargin;
+
+    private int top;
+
+    private int left;
+
+    /**
+     * Constructs a new camera at the top left corner of the map.
+     *
+     * @param mapRows the number of rows of the map
+     * @param mapCols the number of columns of the map
+     * @param viewRows the number of rows that fit in the viewport
+     * @param viewCols the number of columns that fit in the viewport
+     * @param margin the number of cells kept between the followed cell and the edges of the viewport
+     * @throws IllegalArgumentException if a size is not positive, or the margin is negative
+     */
+    public Camera(int mapRows, int mapCols, int viewRows, int viewCols, int margin) {
+        if (mapRows <= 0 || mapCols <= 0 || viewRows <= 0 || viewCols <= 0) {
+            throw new IllegalArgumentException("The sizes of the map and the viewport must be positive");
+        }
+        if (margin < 0) {
+            throw new IllegalArgumentException("The margin must not be negative");
+        }
+        this.mapRows = mapRows;
+        this.mapCols = mapCols;
+        this.rows = Math.min(viewRows, mapRows);
+        this.cols = Math.min(viewCols, mapCols);
+        this.rowMargin = Math.min(margin, (rows - 1) / 2);
+        this.colMargin = Math.min(margin, (cols - 1) / 2);
+    }
+
+    /**
+     * {@return the first visible row}
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * {@return the first visible column}
+     */
+    public int getLeft() {
+        return left;
+    }
+
+    /**
+     * {@return the number of visible rows}
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * {@return the number of visible columns}
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Checks if a cell is visible.
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if the cell is in the viewport, false otherwise
+     */
+    public boolean isVisible(int row, int col) {
+        return row >= top && row < top + rows && col >= left && col < left + cols;
+    }
+
+    /**
+     * Scrolls the viewport so that the cell specified is in the middle of it,
+     * as far as the edges of the map allow.
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if the viewport has scrolled, false otherwise
+     */
+    public boolean centerOn(int row, int col) {
+        return scrollTo(row - rows / 2, col - cols / 2);
+    }
+
+    /**
+     * Scrolls the viewport as little as possible to keep the cell specified at
+     * least the margin away from its edges, as far as the edges of the map allow.
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if the viewport has scrolled, false otherwise
+     */
+    public boolean follow(int row, int col) {
+        var newTop = Math.clamp(top, row - rows + 1 + rowMargin, row - rowMargin);
+        var newLeft = Math.clamp(left, col - cols + 1 + colMargin, col - colMargin);
+        return scrollTo(newTop, newLeft);
+    }
+
+    private boolean scrollTo(int newTop, int newLeft) {
+        newTop = Math.clamp(newTop, 0, mapRows - rows);
+        newLeft = Math.clamp(newLeft, 0, mapCols - cols);
+        if (newTop == top && newLeft == left) {
+            return false;
+        }
+        top = newTop;
+        left = newLeft;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Camera{top=%d, left=%d, rows=%d, cols=%d}", top, left, rows, cols);
+    }
+
+}
@@ -0,0 +1,347 @@
+package mazegame.game.view;
+
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.Group;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import mazegame.map.CompactGrid;
+import mazegame.model.GameState;
+import mazegame.model.Position;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Represents the maze of a game drawn into canvases.
+ * <p>
+ * The view has two layers. The walls layer holds the background and the
+ * walls of the cells. It is split into square tiles of {@value #TILE_CELLS}
+ * cells per side, and only the tiles in the viewport exist: when the view
+ * scrolls, the tiles that leave the viewport are recycled for the ones that
+ * enter it, and the cells of a tile are read from the map when the tile is
+ * drawn. The pieces layer is a single canvas of the size of the viewport
+ * holding the player, the monster and the highlight of the cell under the
+ * mouse. When one of them moves, only the cells it left and entered are
+ * redrawn. The number of nodes and the drawing work depend on the size of
+ * the viewport, not on the size of the map.
+ * <p>
+ * A {@link Camera} follows the player on maps that do not fit in the
+ * viewport with cells of at least {@value #MIN_CELL_SIZE} pixels.
+ */
+public class MazeView extends Region {
+
+    /**
+     * The smallest size of a cell in pixels.
+     */
+    public static final double MIN_CELL_SIZE = 30;
+
+    /**
+     * The number of cells per side of a tile of the walls layer.
+     */
+    public static final int TILE_CELLS = 16;
+
+    private static final int CAMERA_MARGIN = 3;
+
+    private static final Color LIGHT = Color.WHITE;
+
+    private static final Color DARK = Color.web("#F6F6F6");
+
+    private static final Color HOVER = Color.web("#FAFA33");
+
+    private static final Color WALL = Color.BLACK;
+
+    private static final double WALL_WIDTH = 3.0;
+
+    private static final double PASSAGE_WIDTH = 0.5;
+
+    private final Group tiles = new Group();
+
+    private final Map<Long, Canvas> visibleTiles = new HashMap<>();
+
+    private final ArrayDeque<Canvas> spareTiles = new ArrayDeque<>();
+
+    private final Canvas pieces = new Canvas();
+
+    private final Rectangle clip = new Rectangle();
+
+    private final Image[] images;
+
+    private final double boardWidth;
+
+    private final double boardHeight;
+
+    private final ChangeListener<Position> playerListener = this::handlePlayerMoved;
+
+    private final ChangeListener<Position> monsterListener = this::handleMonsterMoved;
+
+    private GameState state;
+
+    private CompactGrid grid;
+
+    private Camera camera;
+
+    private double cellSize;
+
+    private Position hovered;
+
+    /**
+     * Constructs a new view.
+     *
+     * @param boardWidth the width of the viewport
+     * @param boardHeight the height of the viewport
+     * @param playerImage the image of the player
+     * @param monsterImage the image of the monster
+     */
+    public MazeView(double boardWidth, double boardHeight, Image playerImage, Image monsterImage) {
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.images = new Image[] {playerImage, monsterImage};
+        getChildren().addAll(tiles, pieces);
+        setClip(clip);
+        setOnMouseMoved(this::handleMouseMoved);
+        setOnMouseExited(event -> setHovered(null));
+    }
+
+    /**
+     * Shows the game specified, drawing its map and following its pieces.
+     *
+     * @param state the state of the game
+     */
+    public void setState(GameState state) {
+        if (this.state != null) {
+            this.state.positionProperty(GameState.PLAYER).removeListener(playerListener);
+            this.state.positionProperty(GameState.MONSTER).removeListener(monsterListener);
+        }
+        this.state = state;
+        this.grid = state.getGrid();
+        cellSize = Math.max(MIN_CELL_SIZE, Math.floor(Math.min(boardWidth / grid.cols(), boardHeight / grid.rows())));
+        camera = new Camera(grid.rows(), grid.cols(),
+                (int) (boardHeight / cellSize), (int) (boardWidth / cellSize), CAMERA_MARGIN);
+        var player = state.getPosition(GameState.PLAYER);
+        camera.centerOn(player.row(), player.col());
+
+        var width = camera.getCols() * cellSize;
+        var height = camera.getRows() * cellSize;
+        pieces.setWidth(width);
+        pieces.setHeight(height);
+        clip.setWidth(width);
+        clip.setHeight(height);
+        setPrefSize(width, height);
+        setMinSize(width, height);
+        setMaxSize(width, height);
+
+        for (var tile : visibleTiles.values()) {
+            tile.setVisible(false);
+            spareTiles.push(tile);
+        }
+        visibleTiles.clear();
+        scroll();
+        state.positionProperty(GameState.PLAYER).addListener(playerListener);
+        state.positionProperty(GameState.MONSTER).addListener(monsterListener);
+    }
+
+    /**
+     * Checks if the whole map is visible.
+     *
+     * @return true if the map fits in the viewport, false if the view scrolls or no game is shown
+     */
+    public boolean isMapVisible() {
+        return camera != null && camera.getRows() == grid.rows() && camera.getCols() == grid.cols();
+    }
+
+    /**
+     * Returns the cell at the point specified.
+     *
+     * @param x the horizontal coordinate in the view
+     * @param y the vertical coordinate in the view
+     * @return the position of the cell, or an empty optional if the point is outside the maze
+     */
+    public Optional<Position> cellAt(double x, double y) {
+        if (camera == null || x < 0 || y < 0) {
+            return Optional.empty();
+        }
+        var row = (int) (y / cellSize);
+        var col = (int) (x / cellSize);
+        if (row >= camera.getRows() || col >= camera.getCols()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Position(camera.getTop() + row, camera.getLeft() + col));
+    }
+
+    private void handlePlayerMoved(ObservableValue<? extends Position> observable, Position oldValue, Position newValue) {
+        if (camera.follow(newValue.row(), newValue.col())) {
+            scroll();
+        } else {
+            redrawCell(oldValue);
+            redrawCell(newValue);
+        }
+    }
+
+    private void handleMonsterMoved(ObservableValue<? extends Position> observable, Position oldValue, Position newValue) {
+        redrawCell(oldValue);
+        redrawCell(newValue);
+    }
+
+    private void handleMouseMoved(MouseEvent event) {
+        setHovered(cellAt(event.getX(), event.getY()).orElse(null));
+    }
+
+    private void setHovered(Position position) {
+        if (position == null ? hovered == null : position.equals(hovered)) {
+            return;
+        }
+        var previous = hovered;
+        hovered = position;
+        redrawCell(previous);
+        redrawCell(position);
+    }
+
+    /**
+     * Moves the walls layer to the position of the camera, recycles the tiles
+     * that have left the viewport for the ones that have entered it, and
+     * redraws the pieces layer.
+     */
+    private void scroll() {
+        tiles.setTranslateX(-camera.getLeft() * cellSize);
+        tiles.setTranslateY(-camera.getTop() * cellSize);
+
+        var firstRow = camera.getTop() / TILE_CELLS;
+        var lastRow = (camera.getTop() + camera.getRows() - 1) / TILE_CELLS;
+        var firstCol = camera.getLeft() / TILE_CELLS;
+        var lastCol = (camera.getLeft() + camera.getCols() - 1) / TILE_CELLS;
+        var iterator = visibleTiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            var tileRow = (int) (entry.getKey() >> 32);
+            var tileCol = (int) (long) entry.getKey();
+            if (tileRow < firstRow || tileRow > lastRow || tileCol < firstCol || tileCol > lastCol) {
+                entry.getValue().setVisible(false);
+                spareTiles.push(entry.getValue());
+                iterator.remove();
+            }
+        }
+        for (var tileRow = firstRow; tileRow <= lastRow; tileRow++) {
+            for (var tileCol = firstCol; tileCol <= lastCol; tileCol++) {
+                var key = (long) tileRow << 32 | tileCol;
+                if (!visibleTiles.containsKey(key)) {
+                    visibleTiles.put(key, drawTile(tileRow, tileCol));
+                }
+            }
+        }
+
+        // The cell under the mouse has changed, it is highlighted again when the mouse moves
+        hovered = null;
+        pieces.getGraphicsContext2D().clearRect(0, 0, pieces.getWidth(), pieces.getHeight());
+        redrawCell(state.getPosition(GameState.PLAYER));
+        redrawCell(state.getPosition(GameState.MONSTER));
+    }
+
+    /**
+     * Draws a tile of the walls layer into a spare canvas, or a new one if there is none.
+     *
+     * @param tileRow the row of the tile
+     * @param tileCol the column of the tile
+     * @return the canvas of the tile
+     */
+    private Canvas drawTile(int tileRow, int tileCol) {
+        var tile = spareTiles.poll();
+        if (tile == null) {
+            tile = new Canvas();
+            tiles.getChildren().add(tile);
+        }
+        var firstRow = tileRow * TILE_CELLS;
+        var firstCol = tileCol * TILE_CELLS;
+        var rows = Math.min(TILE_CELLS, grid.rows() - firstRow);
+        var cols = Math.min(TILE_CELLS, grid.cols() - firstCol);
+        tile.setWidth(cols * cellSize);
+        tile.setHeight(rows * cellSize);
+        tile.setLayoutX(firstCol * cellSize);
+        tile.setLayoutY(firstRow * cellSize);
+        tile.setVisible(true);
+
+        var gc = tile.getGraphicsContext2D();
+        gc.clearRect(0, 0, tile.getWidth(), tile.getHeight());
+        for (var row = 0; row < rows; row++) {
+            for (var col = 0; col < cols; col++) {
+                var x = col * cellSize;
+                var y = row * cellSize;
+                gc.setFill((firstRow + row + firstCol + col) % 2 == 0 ? LIGHT : DARK);
+                gc.fillRect(x, y, cellSize, cellSize);
+                drawBorder(gc, x, y, grid.bits(grid.index(firstRow + row, firstCol + col)));
+            }
+        }
+        return tile;
+    }
+
+    /**
+     * Draws the border of a cell inside its bounds, thick where the cell has a wall.
+     */
+    private void drawBorder(GraphicsContext gc, double x, double y, int bits) {
+        gc.setFill(WALL);
+        var top = borderWidth(bits, CompactGrid.WALL_TOP);
+        var right = borderWidth(bits, CompactGrid.WALL_RIGHT);
+        var bottom = borderWidth(bits, CompactGrid.WALL_BOTTOM);
+        var left = borderWidth(bits, CompactGrid.WALL_LEFT);
+        gc.fillRect(x, y, cellSize, top);
+        gc.fillRect(x + cellSize - right, y, right, cellSize);
+        gc.fillRect(x, y + cellSize - bottom, cellSize, bottom);
+        gc.fillRect(x, y, left, cellSize);
+    }
+
+    private double borderWidth(int bits, int wall) {
+        return (bits & wall) != 0 ? wallInset() : Math.min(PASSAGE_WIDTH, cellSize / 4);
+    }
+
+    /**
+     * {@return the width of a wall, which is at most a quarter of a cell}
+     */
+    private double wallInset() {
+        return Math.min(WALL_WIDTH, cellSize / 4);
+    }
+
+    /**
+     * Redraws the pieces layer of a single visible cell: the highlight if the
+     * mouse is over it, then the player and the monster if they are on it.
+     *
+     * @param position the position of the cell, or null
+     */
+    private void redrawCell(Position position) {
+        if (position == null || state == null || !camera.isVisible(position.row(), position.col())) {
+            return;
+        }
+        var gc = pieces.getGraphicsContext2D();
+        var x = (position.col() - camera.getLeft()) * cellSize;
+        var y = (position.row() - camera.getTop()) * cellSize;
+        gc.clearRect(x, y, cellSize, cellSize);
+        if (position.equals(hovered)) {
+            var inset = wallInset();
+            gc.setFill(HOVER);
+            gc.fillRect(x + inset, y + inset, cellSize - 2 * inset, cellSize - 2 * inset);
+        }
+        for (var piece : new int[] {GameState.PLAYER, GameState.MONSTER}) {
+            if (position.equals(state.getPosition(piece)) && images[piece] != null) {
+                drawImage(gc, images[piece], x, y);
+            }
+        }
+    }
+
+    /**
+     * Draws an image centered in a cell, scaled down to fit inside the walls.
+     */
+    private void drawImage(GraphicsContext gc, Image image, double x, double y) {
+        var room = cellSize - 2 * wallInset();
+        var scale = Math.min(1, Math.min(room / image.getWidth(), room / image.getHeight()));
+        var width = image.getWidth() * scale;
+        var height = image.getHeight() * scale;
+        gc.drawImage(image, x + (cellSize - width) / 2, y + (cellSize - height) / 2, width, height);
+    }
+
+}
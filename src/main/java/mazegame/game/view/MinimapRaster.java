@@ -0,0 +1,203 @@
+package mazegame.game.view;
+
+import mazegame.map.CompactGrid;
+
+import java.util.Arrays;
+
+/**
+ * Represents the pixels of a minimap computed from the packed blocks of a map.
+ * <p>
+ * If the map fits in the panel, every cell gets a square of
+ * {@link #cellPixels()} pixels, with its walls drawn on the border of the
+ * square when it is large enough. Otherwise the map is downsampled: every
+ * pixel covers a square of {@link #cellsPerPixel()} cells, and its shade is
+ * the share of closed walls in those cells. The end is always drawn. The
+ * cells are read in a single row-major pass, and the pixels are stored as
+ * premultiplied ARGB ints, so they can be written into an image at once.
+ */
+final class MinimapRaster {
+
+    static final int FLOOR = 0xFFFFFFFF;
+
+    static final int WALL = 0xFF000000;
+
+    static final int END = 0xFF2E8B57;
+
+    private static final int WALLS = CompactGrid.WALL_TOP | CompactGrid.WALL_RIGHT
+            | CompactGrid.WALL_BOTTOM | CompactGrid.WALL_LEFT;
+
+    /**
+     * The smallest square of a cell whose walls are drawn as lines.
+     */
+    private static final int MIN_WALL_CELL_PIXELS = 3;
+
+    private final int cellPixels;
+
+    private final int cellsPerPixel;
+
+    private final int width;
+
+    private final int height;
+
+    private final int[] pixels;
+
+    /**
+     * Computes the pixels of the minimap of a map.
+     *
+     * @param grid the packed blocks of the map
+     * @param size the largest width and height of the minimap in pixels
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    MinimapRaster(CompactGrid grid, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("The size of the minimap must be positive");
+        }
+        var longest = Math.max(grid.rows(), grid.cols());
+        cellPixels = Math.max(1, size / longest);
+        cellsPerPixel = Math.ceilDiv(longest, size);
+        width = Math.ceilDiv(grid.cols() * cellPixels, cellsPerPixel);
+        height = Math.ceilDiv(grid.rows() * cellPixels, cellsPerPixel);
+        pixels = new int[width * height];
+        if (cellsPerPixel > 1) {
+            downsample(grid);
+        } else if (cellPixels >= MIN_WALL_CELL_PIXELS) {
+            drawWalls(grid);
+        } else {
+            shadeCells(grid);
+        }
+        var end = grid.find(CompactGrid.END);
+        if (end >= 0) {
+            fill(x(grid.col(end)), y(grid.row(end)), cellPixels, END);
+        }
+    }
+
+    /**
+     * Shades every pixel by the share of closed walls in the cells it covers.
+     */
+    private void downsample(CompactGrid grid) {
+        var walls = new int[width];
+        var cells = new int[width];
+        for (var row = 0; row < grid.rows(); row++) {
+            var index = grid.index(row, 0);
+            for (var col = 0; col < grid.cols(); col++, index++) {
+                var x = col / cellsPerPixel;
+                walls[x] += Integer.bitCount(grid.bits(index) & WALLS);
+                cells[x]++;
+            }
+            if ((row + 1) % cellsPerPixel == 0 || row == grid.rows() - 1) {
+                var offset = row / cellsPerPixel * width;
+                for (var x = 0; x < width; x++) {
+                    pixels[offset + x] = shade(walls[x], cells[x] * 4);
+                    walls[x] = 0;
+                    cells[x] = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Shades the square of every cell by its share of closed walls, for
+     * squares too small for lines.
+     */
+    private void shadeCells(CompactGrid grid) {
+        for (var index = 0; index < grid.size(); index++) {
+            var shade = shade(Integer.bitCount(grid.bits(index) & WALLS), 4);
+            fill(x(grid.col(index)), y(grid.row(index)), cellPixels, shade);
+        }
+    }
+
+    /**
+     * Draws the walls of every cell as lines of one pixel on the border of its square.
+     */
+    private void drawWalls(CompactGrid grid) {
+        Arrays.fill(pixels, FLOOR);
+        var last = cellPixels - 1;
+        for (var index = 0; index < grid.size(); index++) {
+            var bits = grid.bits(index);
+            var x = x(grid.col(index));
+            var y = y(grid.row(index));
+            for (var i = 0; i < cellPixels; i++) {
+                if ((bits & CompactGrid.WALL_TOP) != 0) {
+                    pixels[y * width + x + i] = WALL;
+                }
+                if ((bits & CompactGrid.WALL_BOTTOM) != 0) {
+                    pixels[(y + last) * width + x + i] = WALL;
+                }
+                if ((bits & CompactGrid.WALL_LEFT) != 0) {
+                    pixels[(y + i) * width + x] = WALL;
+                }
+                if ((bits & CompactGrid.WALL_RIGHT) != 0) {
+                    pixels[(y + i) * width + x + last] = WALL;
+                }
+            }
+        }
+    }
+
+    private void fill(int x, int y, int size, int color) {
+        for (var row = y; row < Math.min(y + size, height); row++) {
+            Arrays.fill(pixels, row * width + x, row * width + Math.min(x + size, width), color);
+        }
+    }
+
+    /**
+     * {@return an opaque gray that is darker the larger the share of walls is}
+     */
+    private static int shade(int walls, int sides) {
+        var gray = sides == 0 ? 0xFF : 0xFF - 0xC0 * walls / sides;
+        return 0xFF000000 | gray << 16 | gray << 8 | gray;
+    }
+
+    /**
+     * {@return the width of the minimap in pixels}
+     */
+    int width() {
+        return width;
+    }
+
+    /**
+     * {@return the height of the minimap in pixels}
+     */
+    int height() {
+        return height;
+    }
+
+    /**
+     * {@return the number of pixels per side of the square of a cell, 1 if the map is downsampled}
+     */
+    int cellPixels() {
+        return cellPixels;
+    }
+
+    /**
+     * {@return the number of cells per side of the square covered by a pixel, 1 if the map is not downsampled}
+     */
+    int cellsPerPixel() {
+        return cellsPerPixel;
+    }
+
+    /**
+     * {@return the pixels in row-major order, which are not copied}
+     */
+    int[] pixels() {
+        return pixels;
+    }
+
+    /**
+     * {@return the horizontal pixel coordinate of the left edge of a column}
+     *
+     * @param col the column
+     */
+    int x(int col) {
+        return col * cellPixels / cellsPerPixel;
+    }
+
+    /**
+     * {@return the vertical pixel coordinate of the top edge of a row}
+     *
+     * @param row the row
+     */
+    int y(int row) {
+        return row * cellPixels / cellsPerPixel;
+    }
+
+}
@@ -0,0 +1,137 @@
+package mazegame.game.view;
+
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import mazegame.map.CompactGrid;
+import mazegame.model.GameState;
+import mazegame.model.Position;
+
+/**
+ * Represents an overview of the whole maze.
+ * <p>
+ * The map is rendered once into a {@link WritableImage} with a single bulk
+ * write of its pixels, downsampled if the map has more cells per side than
+ * the minimap has pixels. The player and the monster are small rectangles
+ * over the image, so when they move only the rectangles are moved and the
+ * image is not written again.
+ */
+public class MinimapView extends Region {
+
+    /**
+     * The default largest width and height of the minimap in pixels.
+     */
+    public static final int DEFAULT_SIZE = 150;
+
+    private static final double MIN_MARKER_SIZE = 3;
+
+    private final int size;
+
+    private final ImageView image = new ImageView();
+
+    private final Rectangle[] markers = {new Rectangle(), new Rectangle()};
+
+    private final ChangeListener<Position> playerListener = this::handlePlayerMoved;
+
+    private final ChangeListener<Position> monsterListener = this::handleMonsterMoved;
+
+    private GameState state;
+
+    private MinimapRaster raster;
+
+    /**
+     * Constructs a new minimap of the default size.
+     */
+    public MinimapView() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Constructs a new minimap.
+     *
+     * @param size the largest width and height of the minimap in pixels
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public MinimapView(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("The size of the minimap must be positive");
+        }
+        this.size = size;
+        markers[GameState.PLAYER].setFill(Color.ROYALBLUE);
+        markers[GameState.MONSTER].setFill(Color.CRIMSON);
+        getChildren().add(image);
+        getChildren().addAll(markers);
+        getStyleClass().add("minimap");
+    }
+
+    /**
+     * Renders the grid of a map, hiding the markers until a game is shown.
+     *
+     * @param grid the grid of the map
+     */
+    public void setGrid(CompactGrid grid) {
+        detach();
+        raster = new MinimapRaster(grid, size);
+        var writableImage = new WritableImage(raster.width(), raster.height());
+        writableImage.getPixelWriter().setPixels(0, 0, raster.width(), raster.height(),
+                PixelFormat.getIntArgbPreInstance(), raster.pixels(), 0, raster.width());
+        image.setImage(writableImage);
+        setPrefSize(raster.width(), raster.height());
+        setMinSize(raster.width(), raster.height());
+        setMaxSize(raster.width(), raster.height());
+
+        var markerSize = Math.max(MIN_MARKER_SIZE, raster.cellPixels());
+        for (var marker : markers) {
+            marker.setWidth(markerSize);
+            marker.setHeight(markerSize);
+            marker.setVisible(false);
+        }
+    }
+
+    /**
+     * Shows the game specified, rendering its map and following its pieces.
+     *
+     * @param state the state of the game
+     */
+    public void setState(GameState state) {
+        setGrid(state.getGrid());
+        this.state = state;
+        state.positionProperty(GameState.PLAYER).addListener(playerListener);
+        state.positionProperty(GameState.MONSTER).addListener(monsterListener);
+        moveMarker(GameState.PLAYER, state.getPosition(GameState.PLAYER));
+        moveMarker(GameState.MONSTER, state.getPosition(GameState.MONSTER));
+    }
+
+    private void detach() {
+        if (state != null) {
+            state.positionProperty(GameState.PLAYER).removeListener(playerListener);
+            state.positionProperty(GameState.MONSTER).removeListener(monsterListener);
+            state = null;
+        }
+    }
+
+    private void handlePlayerMoved(ObservableValue<? extends Position> observable, Position oldValue, Position newValue) {
+        moveMarker(GameState.PLAYER, newValue);
+    }
+
+    private void handleMonsterMoved(ObservableValue<? extends Position> observable, Position oldValue, Position newValue) {
+        moveMarker(GameState.MONSTER, newValue);
+    }
+
+    /**
+     * Moves a marker to the pixel of the cell specified, keeping it inside the minimap.
+     */
+    private void moveMarker(int piece, Position position) {
+        var marker = markers[piece];
+        var x = Math.min(raster.x(position.col()), raster.width() - marker.getWidth());
+        var y = Math.min(raster.y(position.row()), raster.height() - marker.getHeight());
+        marker.relocate(Math.max(0, x), Math.max(0, y));
+        marker.setVisible(true);
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Contains the classes that draw the maze in the game user interface.
+ */
+package mazegame.game.view;
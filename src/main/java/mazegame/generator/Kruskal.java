@@ -0,0 +1,142 @@
+package mazegame.generator;
+
+import mazegame.map.CompactGrid;
+
+import java.util.SplittableRandom;
+
+/**
+ * Carves a perfect maze with the randomized Kruskal's algorithm.
+ * <p>
+ * The walls between neighbouring cells are visited in a random order, and a
+ * wall is removed if the cells on its two sides are not yet connected, which
+ * is tracked with a union-find structure with union by rank. The random order is a seeded
+ * Feistel permutation of the wall indices, so no list of walls is stored.
+ * The resulting mazes have many short dead ends.
+ */
+final class Kruskal {
+
+    private static final int ROUNDS = 4;
+
+    private Kruskal() {
+    }
+
+    /**
+     * Carves the maze specified.
+     *
+     * @param maze the maze whose cells all have their walls
+     * @param random the source of randomness
+     */
+    static void carve(Maze maze, SplittableRandom random) {
+        var horizontal = maze.rows * (maze.cols - 1);
+        var walls = horizontal + (maze.rows - 1) * maze.cols;
+        var permutation = new Permutation(walls, random);
+        var parent = new int[maze.size()];
+        var rank = new byte[maze.size()];
+        for (var i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+
+        var remaining = maze.size() - 1;
+        for (var i = 0; i < walls && remaining > 0; i++) {
+            var index = permutation.apply(i);
+            int cell;
+            int wall;
+            if (index < horizontal) {
+                cell = index / (maze.cols - 1) * maze.cols + index % (maze.cols - 1);
+                wall = CompactGrid.WALL_RIGHT;
+            } else {
+                cell = index - horizontal;
+                wall = CompactGrid.WALL_BOTTOM;
+            }
+            var first = find(parent, cell);
+            var second = find(parent, maze.neighbour(cell, wall));
+            if (first != second) {
+                if (rank[first] < rank[second]) {
+                    parent[first] = second;
+                } else {
+                    parent[second] = first;
+                    if (rank[first] == rank[second]) {
+                        rank[first]++;
+                    }
+                }
+                maze.carve(cell, wall);
+                remaining--;
+            }
+        }
+    }
+
+    /**
+     * Finds the representative of the set of a cell, halving the path on the way.
+     *
+     * @param parent the parents of the cells
+     * @param cell the index of the cell
+     * @return the representative of the set
+     */
+    private static int find(int[] parent, int cell) {
+        while (parent[cell] != cell) {
+            parent[cell] = parent[parent[cell]];
+            cell = parent[cell];
+        }
+        return cell;
+    }
+
+    /**
+     * Represents a seeded random permutation of the integers in {@code [0, size)}.
+     * <p>
+     * A balanced Feistel network permutes the integers below the smallest
+     * power of four not less than the size, and values that fall outside the
+     * range are permuted again until they are inside it.
+     */
+    private static final class Permutation {
+
+        private final int size;
+
+        private final int halfBits;
+
+        private final int halfMask;
+
+        private final int[] keys = new int[ROUNDS];
+
+        private Permutation(int size, SplittableRandom random) {
+            this.size = size;
+            var bits = 2;
+            while ((1L << bits) < size) {
+                bits += 2;
+            }
+            this.halfBits = bits / 2;
+            this.halfMask = (1 << halfBits) - 1;
+            for (var i = 0; i < ROUNDS; i++) {
+                keys[i] = random.nextInt();
+            }
+        }
+
+        private int apply(int value) {
+            do {
+                value = encrypt(value);
+            } while (value >= size);
+            return value;
+        }
+
+        private int encrypt(int value) {
+            var left = value >>> halfBits;
+            var right = value & halfMask;
+            for (var key : keys) {
+                var next = left ^ (mix(right ^ key) & halfMask);
+                left = right;
+                right = next;
+            }
+            return left << halfBits | right;
+        }
+
+        private static int mix(int value) {
+            value ^= value >>> 16;
+            value *= 0x85ebca6b;
+            value ^= value >>> 13;
+            value *= 0xc2b2ae35;
+            value ^= value >>> 16;
+            return value;
+        }
+
+    }
+
+}
@@ -0,0 +1,58 @@
+package mazegame.generator;
+
+import mazegame.map.BinaryMapPack;
+import mazegame.map.JsonMapPack;
+import mazegame.map.Maps;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+public class Main {
+
+    /**
+     * Generates a map pack and writes it in the JSON format if the output
+     * ends with {@code .json}, otherwise in the binary format.
+     * <p>
+     * Usage: {@code Main [--algorithm backtracker|kruskal|wilson] [--rows N] [--cols N] [--count N]
+     * [--seed N] OUTPUT}
+     *
+     * @param args the command line arguments
+     * @throws IOException if the map pack cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        var algorithm = MazeAlgorithm.BACKTRACKER;
+        var rows = 64;
+        var cols = 64;
+        var count = 1;
+        var seed = 42L;
+        Path output = null;
+        for (var i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--algorithm" -> algorithm = MazeAlgorithm.of(args[++i]);
+                case "--rows" -> rows = Integer.parseInt(args[++i]);
+                case "--cols" -> cols = Integer.parseInt(args[++i]);
+                case "--count" -> count = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                default -> output = Path.of(args[i]);
+            }
+        }
+        if (output == null) {
+            System.err.println("Usage: Main [--algorithm backtracker|kruskal|wilson] [--rows N] [--cols N] "
+                    + "[--count N] [--seed N] OUTPUT");
+            System.exit(2);
+        }
+
+        var started = System.nanoTime();
+        var maps = new Maps(MazeGenerator.generatePack(count, rows, cols, seed, algorithm));
+        if (output.getFileName().toString().endsWith(".json")) {
+            JsonMapPack.write(output, maps);
+        } else {
+            BinaryMapPack.write(output, maps);
+        }
+        Logger.info("Generated {} {}x{} maps with {} to {} in {} ms", count, rows, cols, algorithm, output,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+}
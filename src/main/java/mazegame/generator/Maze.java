@@ -0,0 +1,100 @@
+package mazegame.generator;
+
+import mazegame.map.CompactGrid;
+
+import java.util.Arrays;
+
+/**
+ * Represents a maze being carved, as packed cells that start with all of
+ * their walls. Walls are given by their bits in {@link CompactGrid}.
+ */
+final class Maze {
+
+    /**
+     * The walls of a cell, in the order of the directions: up, right, down, left.
+     */
+    static final int[] WALLS = {
+            CompactGrid.WALL_TOP, CompactGrid.WALL_RIGHT, CompactGrid.WALL_BOTTOM, CompactGrid.WALL_LEFT
+    };
+
+    final int rows;
+
+    final int cols;
+
+    final byte[] cells;
+
+    /**
+     * Constructs a new maze in which every cell has all of its walls.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     */
+    Maze(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = new byte[rows * cols];
+        Arrays.fill(cells, (byte) (CompactGrid.WALL_TOP | CompactGrid.WALL_RIGHT
+                | CompactGrid.WALL_BOTTOM | CompactGrid.WALL_LEFT));
+    }
+
+    /**
+     * {@return the number of cells}
+     */
+    int size() {
+        return cells.length;
+    }
+
+    /**
+     * {@return whether the cell specified has a neighbour behind the wall specified}
+     *
+     * @param cell the index of the cell
+     * @param wall the bit of the wall
+     */
+    boolean hasNeighbour(int cell, int wall) {
+        return switch (wall) {
+            case CompactGrid.WALL_TOP -> cell >= cols;
+            case CompactGrid.WALL_RIGHT -> cell % cols < cols - 1;
+            case CompactGrid.WALL_BOTTOM -> cell < cells.length - cols;
+            default -> cell % cols > 0;
+        };
+    }
+
+    /**
+     * {@return the index of the neighbour of the cell specified behind the wall specified}
+     *
+     * @param cell the index of the cell
+     * @param wall the bit of the wall
+     */
+    int neighbour(int cell, int wall) {
+        return switch (wall) {
+            case CompactGrid.WALL_TOP -> cell - cols;
+            case CompactGrid.WALL_RIGHT -> cell + 1;
+            case CompactGrid.WALL_BOTTOM -> cell + cols;
+            default -> cell - 1;
+        };
+    }
+
+    /**
+     * {@return the bit of the wall on the other side of the wall specified}
+     *
+     * @param wall the bit of the wall
+     */
+    static int opposite(int wall) {
+        return wall == CompactGrid.WALL_TOP || wall == CompactGrid.WALL_RIGHT ? wall << 2 : wall >> 2;
+    }
+
+    /**
+     * Removes the wall between a cell and its neighbour, from both sides.
+     *
+     * @param cell the index of the cell
+     * @param wall the bit of the wall
+     * @return the index of the neighbour
+     */
+    int carve(int cell, int wall) {
+        var next = neighbour(cell, wall);
+        cells[cell] &= (byte) ~wall;
+        cells[next] &= (byte) ~opposite(wall);
+        return next;
+    }
+
+}
@@ -0,0 +1,59 @@
+package mazegame.generator;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Represents the algorithms that can carve a maze.
+ */
+public enum MazeAlgorithm {
+
+    /**
+     * Randomized depth-first search with {@link RecursiveBacktracker}.
+     */
+    BACKTRACKER {
+        @Override
+        void carve(Maze maze, SplittableRandom random) {
+            RecursiveBacktracker.carve(maze, random);
+        }
+    },
+
+    /**
+     * Randomized Kruskal's algorithm with {@link Kruskal}.
+     */
+    KRUSKAL {
+        @Override
+        void carve(Maze maze, SplittableRandom random) {
+            Kruskal.carve(maze, random);
+        }
+    },
+
+    /**
+     * Loop-erased random walks with {@link Wilson}.
+     */
+    WILSON {
+        @Override
+        void carve(Maze maze, SplittableRandom random) {
+            Wilson.carve(maze, random);
+        }
+    };
+
+    /**
+     * Carves a perfect maze into the maze specified.
+     *
+     * @param maze the maze whose cells all have their walls
+     * @param random the source of randomness
+     */
+    abstract void carve(Maze maze, SplittableRandom random);
+
+    /**
+     * {@return the algorithm with the name specified, ignoring case}
+     *
+     * @param name the name of the algorithm
+     * @throws IllegalArgumentException if there is no algorithm with the name
+     */
+    public static MazeAlgorithm of(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+}
@@ -0,0 +1,84 @@
+package mazegame.generator;
+
+import mazegame.map.CompactGrid;
+import mazegame.map.MapData;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Generates perfect mazes from a seed.
+ * <p>
+ * A generated map depends only on its size, its seed and the algorithm, so
+ * the same arguments always give the same cells. The player starts in the top
+ * left corner, the end is in the bottom right corner, and the monster starts
+ * in the middle of the map, or next to the end if the middle is the end.
+ */
+public final class MazeGenerator {
+
+    /**
+     * The largest number of rows and columns of a generated map.
+     */
+    public static final int MAX_SIZE = 8192;
+
+    private MazeGenerator() {
+    }
+
+    /**
+     * Generates a single map.
+     *
+     * @param id the id of the map
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param seed the seed of the random generator
+     * @param algorithm the algorithm that carves the maze
+     * @return the generated map
+     * @throws IllegalArgumentException if the number of rows or columns is not
+     * between 1 and {@value #MAX_SIZE}, or the map has fewer than three cells
+     */
+    public static MapData generate(int id, int rows, int cols, long seed, MazeAlgorithm algorithm) {
+        if (rows < 1 || cols < 1 || rows > MAX_SIZE || cols > MAX_SIZE) {
+            throw new IllegalArgumentException("The number of rows and columns must be between 1 and " + MAX_SIZE);
+        }
+        if (rows * cols < 3) {
+            throw new IllegalArgumentException("The map must have at least three cells");
+        }
+        var maze = new Maze(rows, cols);
+        algorithm.carve(maze, new SplittableRandom(seed));
+        maze.cells[0] |= CompactGrid.START;
+        maze.cells[maze.size() - 1] |= CompactGrid.END;
+        var monster = (rows / 2) * cols + cols / 2;
+        maze.cells[monster == maze.size() - 1 ? monster - 1 : monster] |= CompactGrid.MONSTER;
+        var name = "%s %dx%d".formatted(algorithm.name().toLowerCase(Locale.ROOT), rows, cols);
+        return MapData.of(id, name, CompactGrid.wrap(rows, cols, maze.cells));
+    }
+
+    /**
+     * Generates a pack of maps of the same size in parallel. The maps have
+     * the ids from 1 to the number of maps, and the seed of each map is drawn
+     * from the seed of the pack, so the pack does not depend on the number of
+     * threads, and the first maps of a larger pack are the same.
+     *
+     * @param count the number of maps
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param seed the seed of the pack
+     * @param algorithm the algorithm that carves the mazes
+     * @return the generated maps in the order of their ids
+     * @throws IllegalArgumentException if the number of maps is negative, or
+     * the size of the maps is invalid
+     */
+    public static List<MapData> generatePack(int count, int rows, int cols, long seed, MazeAlgorithm algorithm) {
+        if (count < 0) {
+            throw new IllegalArgumentException("The number of maps must not be negative");
+        }
+        var seeds = new SplittableRandom(seed).longs(count).toArray();
+        return IntStream.range(0, count)
+                .parallel()
+                .mapToObj(i -> generate(i + 1, rows, cols, seeds[i], algorithm))
+                .toList();
+    }
+
+}
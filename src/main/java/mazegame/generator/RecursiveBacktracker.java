@@ -0,0 +1,52 @@
+package mazegame.generator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Carves a perfect maze with a randomized depth-first search.
+ * <p>
+ * Instead of an explicit stack, the direction back to the cell it was
+ * entered from is stored for each cell, so the search uses one byte per
+ * cell and can carve the largest mazes. The resulting mazes have long,
+ * winding corridors with few branches.
+ */
+final class RecursiveBacktracker {
+
+    private static final byte UNVISITED = 0;
+
+    private static final byte ROOT = -1;
+
+    private RecursiveBacktracker() {
+    }
+
+    /**
+     * Carves the maze specified.
+     *
+     * @param maze the maze whose cells all have their walls
+     * @param random the source of randomness
+     */
+    static void carve(Maze maze, SplittableRandom random) {
+        var back = new byte[maze.size()];
+        var candidates = new int[Maze.WALLS.length];
+        var cell = random.nextInt(maze.size());
+        back[cell] = ROOT;
+        while (true) {
+            var count = 0;
+            for (var wall : Maze.WALLS) {
+                if (maze.hasNeighbour(cell, wall) && back[maze.neighbour(cell, wall)] == UNVISITED) {
+                    candidates[count++] = wall;
+                }
+            }
+            if (count > 0) {
+                var wall = candidates[random.nextInt(count)];
+                cell = maze.carve(cell, wall);
+                back[cell] = (byte) Maze.opposite(wall);
+            } else if (back[cell] == ROOT) {
+                return;
+            } else {
+                cell = maze.neighbour(cell, back[cell]);
+            }
+        }
+    }
+
+}
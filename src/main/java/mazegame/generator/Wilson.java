@@ -0,0 +1,47 @@
+package mazegame.generator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Carves a perfect maze with Wilson's algorithm.
+ * <p>
+ * Starting from a random cell in the maze, loop-erased random walks are
+ * added from every cell that is not yet in the maze until they hit it. Loops
+ * are erased by overwriting the direction a walk last left each cell in.
+ * The resulting mazes are uniformly distributed among all perfect mazes, but
+ * the first walks are long, so this is the slowest algorithm on large maps.
+ */
+final class Wilson {
+
+    private Wilson() {
+    }
+
+    /**
+     * Carves the maze specified.
+     *
+     * @param maze the maze whose cells all have their walls
+     * @param random the source of randomness
+     */
+    static void carve(Maze maze, SplittableRandom random) {
+        var inMaze = new boolean[maze.size()];
+        var exit = new byte[maze.size()];
+        inMaze[random.nextInt(maze.size())] = true;
+        for (var start = 0; start < maze.size(); start++) {
+            var cell = start;
+            while (!inMaze[cell]) {
+                int wall;
+                do {
+                    wall = Maze.WALLS[random.nextInt(Maze.WALLS.length)];
+                } while (!maze.hasNeighbour(cell, wall));
+                exit[cell] = (byte) wall;
+                cell = maze.neighbour(cell, wall);
+            }
+            cell = start;
+            while (!inMaze[cell]) {
+                inMaze[cell] = true;
+                cell = maze.carve(cell, exit[cell]);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Contains classes that generate mazes procedurally.
+ */
+package mazegame.generator;
@@ -0,0 +1,52 @@
+package mazegame.journal;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Represents a played game in the move journal.
+ *
+ * @param mapId the id of the map
+ * @param seed the seed of the game, 0 if the game uses no randomness
+ * @param started when the game started
+ * @param ended when the game ended
+ * @param outcome how the game ended
+ * @param moves the moves of the player
+ */
+public record JournalEntry(int mapId, long seed, Instant started, Instant ended, Outcome outcome, MoveList moves) {
+
+    /**
+     * Constructs a new entry.
+     *
+     * @throws NullPointerException if a timestamp, the outcome or the moves are null
+     */
+    public JournalEntry {
+        Objects.requireNonNull(started);
+        Objects.requireNonNull(ended);
+        Objects.requireNonNull(outcome);
+        Objects.requireNonNull(moves);
+    }
+
+    /**
+     * Represents how a game ended.
+     */
+    public enum Outcome {
+
+        /**
+         * The player left the game before it ended.
+         */
+        ABANDONED,
+
+        /**
+         * The player reached the end.
+         */
+        SOLVED,
+
+        /**
+         * The monster caught the player.
+         */
+        CAUGHT
+
+    }
+
+}
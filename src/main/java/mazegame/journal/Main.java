@@ -0,0 +1,74 @@
+package mazegame.journal;
+
+import mazegame.map.MapRepository;
+import mazegame.map.Maps;
+import mazegame.results.LeaderboardIndex;
+import mazegame.results.MapResult;
+import mazegame.results.ResultStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class Main {
+
+    /**
+     * Replays every game of a move journal and prints the number of games by
+     * verdict. With {@code --results}, the results of the store in the
+     * directory and of its leaderboard are also verified against the games
+     * they refer to.
+     * <p>
+     * Usage: {@code Main [--maps FILE] [--results DIR] JOURNAL}
+     *
+     * @param args the command line arguments
+     * @throws IOException if the journal, the maps or the results cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Path mapsFile = null;
+        Path results = null;
+        Path journal = null;
+        for (var i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--maps" -> mapsFile = Path.of(args[++i]);
+                case "--results" -> results = Path.of(args[++i]);
+                default -> journal = Path.of(args[i]);
+            }
+        }
+        if (journal == null) {
+            System.err.println("Usage: Main [--maps FILE] [--results DIR] JOURNAL");
+            System.exit(2);
+        }
+
+        var maps = mapsFile == null ? MapRepository.getDefault().snapshot() : new Maps(mapsFile);
+        var started = System.nanoTime();
+        var verifier = new ReplayVerifier(maps);
+        var counts = verifier.verifyJournal(journal);
+        var millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        var total = counts.values().stream().mapToLong(Long::longValue).sum();
+        print(counts);
+        System.out.printf("Verified %d games in %d ms (%d games/s)%n", total, millis, total * 1000 / millis);
+        if (results == null) {
+            return;
+        }
+
+        var stored = new ArrayList<MapResult>();
+        try (var store = ResultStore.open(results)) {
+            store.forEach(stored::add);
+        }
+        System.out.printf("%nResults of %s%n", results);
+        print(verifier.verifyResults(journal, stored));
+
+        // A result is in several rankings, but it must refer to a game of its own
+        var ranked = new ArrayList<MapResult>();
+        LeaderboardIndex.open(results.resolve("leaderboard")).forEach(ranked::add);
+        System.out.printf("%nLeaderboard of %s%n", results);
+        print(verifier.verifyResults(journal, ranked.stream().distinct().toList()));
+    }
+
+    private static void print(Map<ReplayVerifier.Verdict, Long> counts) {
+        counts.forEach((verdict, count) -> System.out.printf("%s: %d%n", verdict, count));
+    }
+
+}
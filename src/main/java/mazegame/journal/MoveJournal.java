@@ -0,0 +1,322 @@
+package mazegame.journal;
+
+import org.tinylog.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Represents an append-only file of played games shared by all games.
+ * <p>
+ * All numbers are big-endian. The file starts with an 8-byte header: the
+ * magic {@code "MZMJ"}, the version as a short and a reserved short. Every
+ * game is a record of its length as an int, the body, the CRC-32 of the body
+ * and the length again. The body holds the map id as an int, the seed, the
+ * start and the end in epoch milliseconds as longs, the ordinal of the
+ * outcome as a byte, the number of moves as an int and the moves packed as
+ * in {@link MoveList}. A game of 100 moves takes 70 bytes.
+ * <p>
+ * A game is written with a single write of the channel when it ends, so the
+ * records of concurrent games never interleave. The length at the end of a
+ * record lets the journal check the last record when it is opened, and a
+ * record torn by a crash is cut off before new records are appended. The
+ * offset of a record in the file identifies its game, so a saved result can
+ * refer to the game it comes from.
+ */
+public final class MoveJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x4d5a4d4a; // "MZMJ"
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * The size of the fields of a body before the moves.
+     */
+    private static final int FIXED_BODY_SIZE = 33;
+
+    /**
+     * The size of a record without its body.
+     */
+    private static final int FRAME_SIZE = 12;
+
+    private static final JournalEntry.Outcome[] OUTCOMES = JournalEntry.Outcome.values();
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private final boolean sync;
+
+    private final CRC32 crc = new CRC32();
+
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+    private MoveJournal(Path path, FileChannel channel, boolean sync) {
+        this.path = path;
+        this.channel = channel;
+        this.sync = sync;
+    }
+
+    /**
+     * Opens the journal in the file specified for appending, creating it if it
+     * does not exist. The games are written to the operating system but not
+     * forced to the disk.
+     *
+     * @param path the path of the journal
+     * @return the journal
+     * @throws IOException if the file cannot be opened, or it is not a move journal
+     */
+    public static MoveJournal open(Path path) throws IOException {
+        return open(path, false);
+    }
+
+    /**
+     * Opens the journal in the file specified for appending, creating it if it
+     * does not exist.
+     *
+     * @param path the path of the journal
+     * @param sync whether every game is forced to the disk before {@link #append(JournalEntry)} returns
+     * @return the journal
+     * @throws IOException if the file cannot be opened, or it is not a move journal
+     */
+    public static MoveJournal open(Path path, boolean sync) throws IOException {
+        var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                var header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort((short) VERSION).putShort((short) 0);
+                writeFully(channel, header.flip(), 0);
+            } else {
+                checkHeader(readAt(channel, 0, HEADER_SIZE), path);
+                recover(channel, path);
+            }
+            channel.position(channel.size());
+            return new MoveJournal(path, channel, sync);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a game to the journal. The game is written with a single write,
+     * and it is safe to call this method from several threads.
+     *
+     * @param entry the game
+     * @return the offset of the game in the journal
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized long append(JournalEntry entry) throws IOException {
+        var moves = entry.moves().toByteArray();
+        var bodySize = FIXED_BODY_SIZE + moves.length;
+        if (buffer.capacity() < bodySize + FRAME_SIZE) {
+            buffer = ByteBuffer.allocate(Math.max(bodySize + FRAME_SIZE, buffer.capacity() * 2));
+        }
+        buffer.clear();
+        buffer.putInt(bodySize)
+                .putInt(entry.mapId())
+                .putLong(entry.seed())
+                .putLong(entry.started().toEpochMilli())
+                .putLong(entry.ended().toEpochMilli())
+                .put((byte) entry.outcome().ordinal())
+                .putInt(entry.moves().size())
+                .put(moves);
+        crc.reset();
+        crc.update(buffer.array(), Integer.BYTES, bodySize);
+        buffer.putInt((int) crc.getValue()).putInt(bodySize).flip();
+        var offset = channel.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+        return offset;
+    }
+
+    /**
+     * Forces the games appended so far to the disk.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * {@return the path of the journal}
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads the games of the journal specified in the order they were
+     * appended. Reading stops at the first record that is torn or damaged.
+     *
+     * @param path the path of the journal
+     * @param action the action to perform on each game
+     * @return the number of games read
+     * @throws IOException if the file cannot be read, or it is not a move journal
+     */
+    public static long read(Path path, Consumer<? super JournalEntry> action) throws IOException {
+        return readWithOffsets(path, (entry, offset) -> action.accept(entry));
+    }
+
+    /**
+     * Reads the games of the journal specified in the order they were
+     * appended, with their offsets as returned by {@link #append(JournalEntry)}.
+     * Reading stops at the first record that is torn or damaged.
+     *
+     * @param path the path of the journal
+     * @param action the action to perform on each game and its offset
+     * @return the number of games read
+     * @throws IOException if the file cannot be read, or it is not a move journal
+     */
+    public static long readWithOffsets(Path path, ObjLongConsumer<? super JournalEntry> action) throws IOException {
+        var count = 0L;
+        var offset = (long) HEADER_SIZE;
+        var crc = new CRC32();
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            var header = ByteBuffer.allocate(HEADER_SIZE);
+            in.readFully(header.array());
+            checkHeader(header, path);
+            while (true) {
+                int bodySize;
+                try {
+                    bodySize = in.readInt();
+                } catch (EOFException e) {
+                    return count;
+                }
+                JournalEntry entry;
+                try {
+                    if (bodySize < FIXED_BODY_SIZE) {
+                        throw new IOException("invalid length " + bodySize);
+                    }
+                    var body = in.readNBytes(bodySize);
+                    if (body.length < bodySize) {
+                        throw new EOFException();
+                    }
+                    crc.reset();
+                    crc.update(body);
+                    if (in.readInt() != (int) crc.getValue() || in.readInt() != bodySize) {
+                        throw new IOException("checksum mismatch");
+                    }
+                    entry = decode(ByteBuffer.wrap(body));
+                } catch (IOException e) {
+                    Logger.warn("Stopped reading move journal {} at a damaged game {}: {}", path, count, e.toString());
+                    return count;
+                }
+                action.accept(entry, offset);
+                offset += FRAME_SIZE + bodySize;
+                count++;
+            }
+        }
+    }
+
+    /**
+     * Decodes the body of a record.
+     */
+    private static JournalEntry decode(ByteBuffer body) throws IOException {
+        var mapId = body.getInt();
+        var seed = body.getLong();
+        var started = Instant.ofEpochMilli(body.getLong());
+        var ended = Instant.ofEpochMilli(body.getLong());
+        var outcome = body.get();
+        var size = body.getInt();
+        if (outcome < 0 || outcome >= OUTCOMES.length || size < 0 || MoveList.packedLength(size) != body.remaining()) {
+            throw new IOException("Invalid game in the move journal");
+        }
+        var moves = new byte[body.remaining()];
+        body.get(moves);
+        return new JournalEntry(mapId, seed, started, ended, OUTCOMES[outcome], MoveList.wrap(moves, size));
+    }
+
+    private static void checkHeader(ByteBuffer header, Path path) throws IOException {
+        if (header.limit() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+            throw new IOException("Not a move journal: " + path);
+        }
+        if (Short.toUnsignedInt(header.getShort(4)) != VERSION) {
+            throw new IOException("Unsupported move journal version: " + Short.toUnsignedInt(header.getShort(4)));
+        }
+    }
+
+    /**
+     * Checks the last record of the journal, and if it is torn, cuts the file
+     * after the last complete record.
+     */
+    private static void recover(FileChannel channel, Path path) throws IOException {
+        var size = channel.size();
+        if (size == HEADER_SIZE || size >= HEADER_SIZE + FRAME_SIZE && isRecordEnd(channel, size)) {
+            return;
+        }
+        // Scan the records from the start, only reading their frames
+        var end = (long) HEADER_SIZE;
+        while (end + FRAME_SIZE <= size) {
+            var bodySize = readAt(channel, end, Integer.BYTES).getInt(0);
+            if (bodySize < FIXED_BODY_SIZE || end + FRAME_SIZE + bodySize > size
+                    || !isRecordEnd(channel, end + FRAME_SIZE + bodySize)) {
+                break;
+            }
+            end += FRAME_SIZE + bodySize;
+        }
+        Logger.warn("Cutting a torn game off the end of move journal {} ({} bytes)", path, size - end);
+        channel.truncate(end);
+    }
+
+    /**
+     * Checks if a complete record ends at the offset specified.
+     */
+    private static boolean isRecordEnd(FileChannel channel, long end) throws IOException {
+        var bodySize = readAt(channel, end - Integer.BYTES, Integer.BYTES).getInt(0);
+        var start = end - FRAME_SIZE - bodySize;
+        if (bodySize < FIXED_BODY_SIZE || start < HEADER_SIZE
+                || readAt(channel, start, Integer.BYTES).getInt(0) != bodySize) {
+            return false;
+        }
+        var body = readAt(channel, start + Integer.BYTES, bodySize + Integer.BYTES);
+        var crc = new CRC32();
+        crc.update(body.array(), 0, bodySize);
+        return body.getInt(bodySize) == (int) crc.getValue();
+    }
+
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        var buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MoveJournal{path=%s}", path);
+    }
+
+}
@@ -0,0 +1,145 @@
+package mazegame.journal;
+
+import mazegame.model.Direction;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Represents the moves of a game packed into 2 bits each.
+ * <p>
+ * The code of a move is the ordinal of its {@link Direction}, and the four
+ * moves of a byte are stored from its lowest bits up, so the packed bytes of
+ * a list are also its encoding in the journal.
+ */
+public final class MoveList {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private byte[] packed;
+
+    private int size;
+
+    /**
+     * Constructs a new empty list.
+     */
+    public MoveList() {
+        this(new byte[16], 0);
+    }
+
+    private MoveList(byte[] packed, int size) {
+        this.packed = packed;
+        this.size = size;
+    }
+
+    /**
+     * Returns a list of the packed moves specified. The array is not copied.
+     *
+     * @param packed the moves packed into 2 bits each
+     * @param size the number of moves
+     * @return the list of the moves
+     * @throws IllegalArgumentException if the size is negative or does not fit in the array
+     */
+    public static MoveList wrap(byte[] packed, int size) {
+        if (size < 0 || packedLength(size) > packed.length) {
+            throw new IllegalArgumentException("The number of moves does not fit in the packed moves");
+        }
+        return new MoveList(packed, size);
+    }
+
+    /**
+     * {@return the number of bytes needed to pack the number of moves specified}
+     *
+     * @param size the number of moves
+     */
+    public static int packedLength(int size) {
+        return (size + 3) >>> 2;
+    }
+
+    /**
+     * Appends a move to the list.
+     *
+     * @param direction the direction of the move
+     */
+    public void add(Direction direction) {
+        if (packedLength(size + 1) > packed.length) {
+            packed = Arrays.copyOf(packed, Math.max(16, packed.length * 2));
+        }
+        var shift = (size & 3) << 1;
+        packed[size >>> 2] = (byte) (packed[size >>> 2] & ~(3 << shift) | direction.ordinal() << shift);
+        size++;
+    }
+
+    /**
+     * {@return the number of moves}
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@return the code of a move, which is the ordinal of its direction}
+     *
+     * @param index the index of the move
+     * @throws IndexOutOfBoundsException if the index is out of the list
+     */
+    public int code(int index) {
+        return packed[Objects.checkIndex(index, size) >>> 2] >>> ((index & 3) << 1) & 3;
+    }
+
+    /**
+     * {@return the direction of a move}
+     *
+     * @param index the index of the move
+     * @throws IndexOutOfBoundsException if the index is out of the list
+     */
+    public Direction get(int index) {
+        return DIRECTIONS[code(index)];
+    }
+
+    /**
+     * {@return a copy of the packed moves, without unused bytes}
+     */
+    public byte[] toByteArray() {
+        var bytes = Arrays.copyOf(packed, packedLength(size));
+        if ((size & 3) != 0) {
+            bytes[bytes.length - 1] &= (byte) ((1 << ((size & 3) << 1)) - 1);
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MoveList other) || size != other.size) {
+            return false;
+        }
+        for (var i = 0; i < size; i++) {
+            if (code(i) != other.code(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        var hash = size;
+        for (var i = 0; i < size; i++) {
+            hash = 31 * hash + code(i);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        var builder = new StringBuilder("MoveList[");
+        for (var i = 0; i < size; i++) {
+            builder.append(i == 0 ? "" : ", ").append(get(i));
+        }
+        return builder.append(']').toString();
+    }
+
+}
@@ -0,0 +1,281 @@
+package mazegame.journal;
+
+import mazegame.map.Maps;
+import mazegame.model.GameEngine;
+import mazegame.results.MapResult;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Checks recorded games by replaying their moves against their maps.
+ * <p>
+ * A replay runs the moves on a {@link GameEngine}, which implements the
+ * same rules and the same monster as {@link mazegame.model.GameState}, and
+ * confirms a game only if every move is legal, no move is made after the
+ * game has ended, and the game ends with the claimed outcome after the
+ * claimed number of moves. The engine of a map is built once and copied for
+ * every replay, which is the only allocation of a replay, so batches of
+ * games are verified in parallel on all cores.
+ * <p>
+ * A saved result is checked against the game of the journal it refers to,
+ * so a result that was edited or added to the results is not confirmed by
+ * the moves of another game.
+ */
+public class ReplayVerifier {
+
+    /**
+     * The number of games of a journal verified together.
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final Maps maps;
+
+    /**
+     * The engines in the initial state of the maps by id, empty if there is no map with the id.
+     */
+    private final Map<Integer, Optional<GameEngine>> engines = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new verifier of games played on the maps specified.
+     *
+     * @param maps the maps
+     */
+    public ReplayVerifier(Maps maps) {
+        this.maps = maps;
+    }
+
+    /**
+     * Represents the result of verifying a game.
+     */
+    public enum Verdict {
+
+        /**
+         * The replay ends with the claimed outcome after the claimed number of moves.
+         */
+        CONFIRMED,
+
+        /**
+         * There is no map with the id of the game.
+         */
+        UNKNOWN_MAP,
+
+        /**
+         * A move goes through a wall or out of the map.
+         */
+        ILLEGAL_MOVE,
+
+        /**
+         * A move is made after the player has reached the end or has been caught.
+         */
+        MOVE_AFTER_END,
+
+        /**
+         * The replay ends with another outcome than the claimed one.
+         */
+        WRONG_OUTCOME,
+
+        /**
+         * The claimed number of moves is not the number of recorded moves.
+         */
+        WRONG_MOVE_COUNT,
+
+        /**
+         * The result is played on another map than the game it refers to.
+         */
+        WRONG_MAP,
+
+        /**
+         * The result does not refer to a game of the journal, as the results saved before the games were linked.
+         */
+        NOT_RECORDED,
+
+        /**
+         * There is no game in the journal at the offset the result refers to.
+         */
+        NOT_IN_JOURNAL,
+
+        /**
+         * Another result refers to the same game.
+         */
+        DUPLICATE_GAME
+
+    }
+
+    /**
+     * Verifies a game of the journal, whose claimed outcome is the outcome
+     * and whose claimed number of moves is the number of its moves.
+     *
+     * @param entry the game
+     * @return the verdict
+     */
+    public Verdict verify(JournalEntry entry) {
+        return verify(entry.mapId(), entry.moves(), entry.outcome(), entry.moves().size());
+    }
+
+    /**
+     * Verifies a game.
+     *
+     * @param mapId the id of the map
+     * @param moves the recorded moves
+     * @param claimedOutcome the claimed outcome
+     * @param claimedMoves the claimed number of moves
+     * @return the verdict
+     */
+    public Verdict verify(int mapId, MoveList moves, JournalEntry.Outcome claimedOutcome, int claimedMoves) {
+        return engine(mapId)
+                .map(engine -> verify(engine.copy(), moves, claimedOutcome, claimedMoves))
+                .orElse(Verdict.UNKNOWN_MAP);
+    }
+
+    /**
+     * Verifies a game by replaying its moves on the engine specified.
+     *
+     * @param engine the engine in the initial state of the map, which is changed by the replay
+     * @param moves the recorded moves
+     * @param claimedOutcome the claimed outcome
+     * @param claimedMoves the claimed number of moves
+     * @return the verdict
+     */
+    public static Verdict verify(GameEngine engine, MoveList moves, JournalEntry.Outcome claimedOutcome,
+                                 int claimedMoves) {
+        if (claimedMoves != moves.size()) {
+            return Verdict.WRONG_MOVE_COUNT;
+        }
+        for (var i = 0; i < moves.size(); i++) {
+            if (engine.isSolved() || engine.isCaught()) {
+                return Verdict.MOVE_AFTER_END;
+            }
+            if (!engine.makeMove(1 << moves.code(i))) {
+                return Verdict.ILLEGAL_MOVE;
+            }
+        }
+        var outcome = engine.isSolved() ? JournalEntry.Outcome.SOLVED
+                : engine.isCaught() ? JournalEntry.Outcome.CAUGHT
+                : JournalEntry.Outcome.ABANDONED;
+        return outcome == claimedOutcome ? Verdict.CONFIRMED : Verdict.WRONG_OUTCOME;
+    }
+
+    /**
+     * Verifies a saved result against the game it refers to, whose moves
+     * must give the outcome and the number of moves of the result.
+     *
+     * @param entry the game the result refers to
+     * @param result the result
+     * @return the verdict
+     */
+    public Verdict verify(JournalEntry entry, MapResult result) {
+        if (entry.mapId() != result.mapId()) {
+            return Verdict.WRONG_MAP;
+        }
+        var claimedOutcome = result.result().isSolved() ? JournalEntry.Outcome.SOLVED : JournalEntry.Outcome.CAUGHT;
+        return verify(entry.mapId(), entry.moves(), claimedOutcome, result.result().getNumberOfMoves());
+    }
+
+    /**
+     * Verifies games in parallel.
+     *
+     * @param entries the games
+     * @return the verdicts in the order of the games
+     */
+    public Verdict[] verifyAll(List<JournalEntry> entries) {
+        var verdicts = new Verdict[entries.size()];
+        IntStream.range(0, entries.size()).parallel().forEach(i -> verdicts[i] = verify(entries.get(i)));
+        return verdicts;
+    }
+
+    /**
+     * Verifies every game of a journal. The games are read in chunks, and the
+     * games of a chunk are verified in parallel.
+     *
+     * @param journal the path of the journal
+     * @return the number of games by verdict
+     * @throws IOException if the journal cannot be read
+     */
+    public Map<Verdict, Long> verifyJournal(Path journal) throws IOException {
+        var counts = new EnumMap<Verdict, Long>(Verdict.class);
+        var chunk = new ArrayList<JournalEntry>(CHUNK_SIZE);
+        MoveJournal.read(journal, entry -> {
+            chunk.add(entry);
+            if (chunk.size() == CHUNK_SIZE) {
+                count(verifyAll(chunk), counts);
+                chunk.clear();
+            }
+        });
+        count(verifyAll(chunk), counts);
+        return counts;
+    }
+
+    /**
+     * Verifies saved results against the games of a journal they refer to.
+     * The journal is read once, and the results are verified in parallel.
+     * Every result must refer to a game of its own, so the results of a
+     * ranking must not repeat a result.
+     *
+     * @param journal the path of the journal
+     * @param results the results
+     * @return the number of results by verdict
+     * @throws IOException if the journal cannot be read
+     */
+    public Map<Verdict, Long> verifyResults(Path journal, Collection<MapResult> results) throws IOException {
+        var counts = new EnumMap<Verdict, Long>(Verdict.class);
+        var byOffset = new HashMap<Long, MapResult>();
+        for (var result : results) {
+            if (result.journalOffset() == MapResult.UNRECORDED) {
+                counts.merge(Verdict.NOT_RECORDED, 1L, Long::sum);
+            } else if (byOffset.putIfAbsent(result.journalOffset(), result) != null) {
+                counts.merge(Verdict.DUPLICATE_GAME, 1L, Long::sum);
+            }
+        }
+        var games = new ArrayList<JournalEntry>();
+        var claims = new ArrayList<MapResult>();
+        MoveJournal.readWithOffsets(journal, (entry, offset) -> {
+            var result = byOffset.remove(offset);
+            if (result != null) {
+                games.add(entry);
+                claims.add(result);
+            }
+        });
+        var verdicts = new Verdict[games.size()];
+        IntStream.range(0, games.size()).parallel().forEach(i -> verdicts[i] = verify(games.get(i), claims.get(i)));
+        count(verdicts, counts);
+        if (!byOffset.isEmpty()) {
+            counts.merge(Verdict.NOT_IN_JOURNAL, (long) byOffset.size(), Long::sum);
+        }
+        return counts;
+    }
+
+    private static void count(Verdict[] verdicts, Map<Verdict, Long> counts) {
+        for (var verdict : verdicts) {
+            counts.merge(verdict, 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Returns the engine in the initial state of a map, building it the first time.
+     *
+     * @param mapId the id of the map
+     * @return the engine, or an empty optional if there is no playable map with the id
+     */
+    private Optional<GameEngine> engine(int mapId) {
+        return engines.computeIfAbsent(mapId, id -> {
+            try {
+                return Optional.of(new GameEngine(maps.getMap(id).toCompactGrid()));
+            } catch (IllegalArgumentException e) {
+                Logger.warn("Cannot replay games of map {}: {}", id, e.getMessage());
+                return Optional.empty();
+            }
+        });
+    }
+
+}
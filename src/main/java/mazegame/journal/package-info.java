@@ -0,0 +1,4 @@
+/**
+ * Contains classes that record the moves of played games.
+ */
+package mazegame.journal;
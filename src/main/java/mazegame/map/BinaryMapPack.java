@@ -0,0 +1,227 @@
+package mazegame.map;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a map pack in the binary format, read through a memory-mapped file.
+ * <p>
+ * All numbers are big-endian. The file starts with a 16-byte header: the
+ * magic {@code "MZMP"}, the version as a short, a reserved short, the number
+ * of maps as an int and a reserved int. The header is followed by an index
+ * with a 32-byte entry per map: the id, the number of rows, the number of
+ * columns and the length of the UTF-8 name (-1 if there is no name) as ints,
+ * then the offset of the name and the offset of the cells as longs. The
+ * names and the cells follow the index, with one byte per cell holding the
+ * bits of {@link CompactGrid} in row-major order.
+ * <p>
+ * Opening a pack only reads the index. The cells of a map are copied out of
+ * the mapped file when the map is read. A pack must be replaced by moving a
+ * new file over it, as {@link #write(Path, Maps)} does, and not rewritten in
+ * place while it is open.
+ */
+public final class BinaryMapPack implements MapPack {
+
+    private static final int MAGIC = 0x4d5a4d50; // "MZMP"
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 16;
+
+    private static final int ENTRY_SIZE = 32;
+
+    private final ByteBuffer buffer;
+
+    private final List<MapHeader> headers;
+
+    private final int[] cellOffsets;
+
+    private BinaryMapPack(ByteBuffer buffer, List<MapHeader> headers, int[] cellOffsets) {
+        this.buffer = buffer;
+        this.headers = Collections.unmodifiableList(headers);
+        this.cellOffsets = cellOffsets;
+    }
+
+    /**
+     * Checks if the bytes specified start with the magic of a binary map pack.
+     *
+     * @param bytes the first bytes of a file
+     * @return true if the bytes start with the magic, false otherwise
+     */
+    public static boolean isBinary(byte[] bytes) {
+        return bytes.length >= Integer.BYTES && ByteBuffer.wrap(bytes).getInt(0) == MAGIC;
+    }
+
+    /**
+     * Checks if the file specified starts with the magic of a binary map pack.
+     *
+     * @param path the path of the file
+     * @return true if the file starts with the magic, false otherwise
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isBinary(Path path) throws IOException {
+        try (var in = Files.newInputStream(path)) {
+            return isBinary(in.readNBytes(Integer.BYTES));
+        }
+    }
+
+    /**
+     * Opens the binary map pack in the file specified by mapping it into memory.
+     *
+     * @param path the path of the map pack
+     * @return the map pack
+     * @throws IOException if the file cannot be read, or it is not a valid binary map pack
+     */
+    public static BinaryMapPack open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The map pack is too large to be mapped: " + path);
+            }
+            return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Opens the binary map pack in the buffer specified, from its position to
+     * its limit. The buffer is not copied.
+     *
+     * @param buffer the bytes of the map pack
+     * @return the map pack
+     * @throws IOException if the bytes are not a valid binary map pack
+     */
+    public static BinaryMapPack of(ByteBuffer buffer) throws IOException {
+        buffer = buffer.slice();
+        var size = buffer.limit();
+        if (size < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary map pack");
+        }
+        if (Short.toUnsignedInt(buffer.getShort(4)) != VERSION) {
+            throw new IOException("Unsupported binary map pack version: " + Short.toUnsignedInt(buffer.getShort(4)));
+        }
+        var count = buffer.getInt(8);
+        if (count < 0 || HEADER_SIZE + (long) count * ENTRY_SIZE > size) {
+            throw new IOException("Invalid binary map pack header");
+        }
+        var headers = new ArrayList<MapHeader>(count);
+        var cellOffsets = new int[count];
+        for (var i = 0; i < count; i++) {
+            var entry = HEADER_SIZE + i * ENTRY_SIZE;
+            var id = buffer.getInt(entry);
+            var rows = buffer.getInt(entry + 4);
+            var cols = buffer.getInt(entry + 8);
+            var nameLength = buffer.getInt(entry + 12);
+            var nameOffset = buffer.getLong(entry + 16);
+            var cellOffset = buffer.getLong(entry + 24);
+            if (rows <= 0 || cols <= 0 || nameLength < -1
+                    || nameLength > 0 && (nameOffset < 0 || nameOffset + nameLength > size)
+                    || cellOffset < 0 || cellOffset + (long) rows * cols > size) {
+                throw new IOException("Invalid entry of map " + id + " in the binary map pack");
+            }
+            String name = null;
+            if (nameLength >= 0) {
+                var bytes = new byte[nameLength];
+                buffer.get((int) nameOffset, bytes);
+                name = new String(bytes, StandardCharsets.UTF_8);
+            }
+            headers.add(new MapHeader(id, name, rows, cols));
+            cellOffsets[i] = (int) cellOffset;
+        }
+        return new BinaryMapPack(buffer, headers, cellOffsets);
+    }
+
+    /**
+     * Writes the maps specified to a file in the binary format. The maps are
+     * decoded one at a time, and the file is written next to the target and
+     * then moved over it, so a pack open on the target is never seen half written.
+     *
+     * @param path the path of the file
+     * @param maps the maps to write
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(Path path, Maps maps) throws IOException {
+        var headers = maps.getHeaders();
+        var names = new ArrayList<byte[]>(headers.size());
+        for (var header : headers) {
+            names.add(header.name() == null ? null : header.name().getBytes(StandardCharsets.UTF_8));
+        }
+
+        var directory = path.toAbsolutePath().getParent();
+        var temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeShort(0);
+                out.writeInt(headers.size());
+                out.writeInt(0);
+
+                long nameOffset = HEADER_SIZE + (long) headers.size() * ENTRY_SIZE;
+                long cellOffset = nameOffset;
+                for (var name : names) {
+                    cellOffset += name == null ? 0 : name.length;
+                }
+                for (var i = 0; i < headers.size(); i++) {
+                    var header = headers.get(i);
+                    var name = names.get(i);
+                    out.writeInt(header.id());
+                    out.writeInt(header.rows());
+                    out.writeInt(header.cols());
+                    out.writeInt(name == null ? -1 : name.length);
+                    out.writeLong(nameOffset);
+                    out.writeLong(cellOffset);
+                    nameOffset += name == null ? 0 : name.length;
+                    cellOffset += header.cells();
+                }
+                if (cellOffset > Integer.MAX_VALUE) {
+                    throw new IOException("The maps are too large for a binary map pack");
+                }
+                for (var name : names) {
+                    if (name != null) {
+                        out.write(name);
+                    }
+                }
+                var list = maps.getMaps();
+                for (var i = 0; i < headers.size(); i++) {
+                    out.write(list.get(i).toCompactGrid().toByteArray());
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @Override
+    public List<MapHeader> headers() {
+        return headers;
+    }
+
+    @Override
+    public MapData read(int index) throws IOException {
+        var header = headers.get(index);
+        var cells = new byte[Math.toIntExact(header.cells())];
+        buffer.get(cellOffsets[index], cells);
+        try {
+            return MapData.of(header.id(), header.name(), CompactGrid.wrap(header.rows(), header.cols(), cells));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid cells of map " + header.id() + " in the binary map pack", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BinaryMapPack{maps=%d}", headers.size());
+    }
+
+}
@@ -0,0 +1,400 @@
+package mazegame.map;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Represents the blocks of a map packed into a single byte per cell.
+ * <p>
+ * The cells are stored in row-major order, the cell at {@code (row, col)}
+ * has the index {@code row * cols + col}. The bits of a cell are the
+ * {@link #WALL_TOP}, {@link #WALL_RIGHT}, {@link #WALL_BOTTOM},
+ * {@link #WALL_LEFT}, {@link #START}, {@link #END} and {@link #MONSTER} flags.
+ * <p>
+ * When the grid is created, the walls of neighbouring cells are resolved into
+ * a 4-bit mask of open directions per cell, so that checking whether a cell
+ * can be left in a direction is a single array read. The bits of the mask
+ * follow the order of the walls: up, right, down, left.
+ */
+public final class CompactGrid {
+
+    /**
+     * The bit of the wall at the top of a cell.
+     */
+    public static final int WALL_TOP = 1;
+
+    /**
+     * The bit of the wall at the right of a cell.
+     */
+    public static final int WALL_RIGHT = 1 << 1;
+
+    /**
+     * The bit of the wall at the bottom of a cell.
+     */
+    public static final int WALL_BOTTOM = 1 << 2;
+
+    /**
+     * The bit of the wall at the left of a cell.
+     */
+    public static final int WALL_LEFT = 1 << 3;
+
+    /**
+     * The bit of the start cell.
+     */
+    public static final int START = 1 << 4;
+
+    /**
+     * The bit of the end cell.
+     */
+    public static final int END = 1 << 5;
+
+    /**
+     * The bit of the cell containing the monster.
+     */
+    public static final int MONSTER = 1 << 6;
+
+    /**
+     * The bit of the open direction up in the mask returned by {@link #openDirections(int)}.
+     */
+    public static final int OPEN_UP = WALL_TOP;
+
+    /**
+     * The bit of the open direction right in the mask returned by {@link #openDirections(int)}.
+     */
+    public static final int OPEN_RIGHT = WALL_RIGHT;
+
+    /**
+     * The bit of the open direction down in the mask returned by {@link #openDirections(int)}.
+     */
+    public static final int OPEN_DOWN = WALL_BOTTOM;
+
+    /**
+     * The bit of the open direction left in the mask returned by {@link #openDirections(int)}.
+     */
+    public static final int OPEN_LEFT = WALL_LEFT;
+
+    /**
+     * The shared block instances, indexed by the bits of a cell.
+     */
+    private static final Block[] BLOCKS = new Block[1 << 7];
+
+    static {
+        for (var bits = 0; bits < BLOCKS.length; bits++) {
+            BLOCKS[bits] = new Block((bits & WALL_TOP) != 0, (bits & WALL_RIGHT) != 0,
+                    (bits & WALL_BOTTOM) != 0, (bits & WALL_LEFT) != 0,
+                    (bits & START) != 0, (bits & END) != 0, (bits & MONSTER) != 0);
+        }
+    }
+
+    private final int rows;
+
+    private final int cols;
+
+    private final byte[] cells;
+
+    private final byte[] open;
+
+    /**
+     * Constructs a new grid over the packed cells specified, and computes the
+     * open directions of the cells.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param cells the packed cells in row-major order
+     */
+    private CompactGrid(int rows, int cols, byte[] cells) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = cells;
+        this.open = new byte[cells.length];
+        for (var i = 0; i < cells.length; i++) {
+            open[i] = (byte) computeOpenDirections(i);
+        }
+    }
+
+    /**
+     * Resolves the walls of the cell specified and of its neighbours.
+     * A direction is open if neither the cell nor the neighbour in that
+     * direction has a wall between them.
+     *
+     * @param index the index of the cell
+     * @return the mask of open directions
+     */
+    private int computeOpenDirections(int index) {
+        var row = row(index);
+        var col = col(index);
+        var bits = cells[index];
+        var mask = 0;
+        if (row > 0 && (bits & WALL_TOP) == 0 && (cells[index - cols] & WALL_BOTTOM) == 0) {
+            mask |= OPEN_UP;
+        }
+        if (col < cols - 1 && (bits & WALL_RIGHT) == 0 && (cells[index + 1] & WALL_LEFT) == 0) {
+            mask |= OPEN_RIGHT;
+        }
+        if (row < rows - 1 && (bits & WALL_BOTTOM) == 0 && (cells[index + cols] & WALL_TOP) == 0) {
+            mask |= OPEN_DOWN;
+        }
+        if (col > 0 && (bits & WALL_LEFT) == 0 && (cells[index - 1] & WALL_RIGHT) == 0) {
+            mask |= OPEN_LEFT;
+        }
+        return mask;
+    }
+
+    /**
+     * Packs the blocks of the map specified.
+     * <p>
+     * If the blocks of the map are already backed by a grid, that grid is
+     * returned without copying.
+     *
+     * @param map the map to pack
+     * @return the grid of the map
+     */
+    public static CompactGrid of(MapData map) {
+        if (map.blocks() instanceof BlockRows blockRows) {
+            return blockRows.grid();
+        }
+        var cells = new byte[Math.multiplyExact(map.rows(), map.cols())];
+        for (var row = 0; row < map.rows(); row++) {
+            var blocks = map.blocks().get(row);
+            for (var col = 0; col < map.cols(); col++) {
+                cells[row * map.cols() + col] = (byte) bitsOf(blocks.get(col));
+            }
+        }
+        return new CompactGrid(map.rows(), map.cols(), cells);
+    }
+
+    /**
+     * Creates a grid over already packed cells. The array is not copied.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param cells the packed cells in row-major order
+     * @return the grid over the cells
+     * @throws IllegalArgumentException if the number of rows or columns is not positive,
+     * the length of the array does not match them, or a cell has bits other than the flags
+     */
+    public static CompactGrid wrap(int rows, int cols, byte[] cells) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("The number of rows and columns must be positive");
+        }
+        if (cells.length != (long) rows * cols) {
+            throw new IllegalArgumentException("The number of cells must match the number of rows and columns");
+        }
+        for (var i = 0; i < cells.length; i++) {
+            if (cells[i] < 0) {
+                throw new IllegalArgumentException("Invalid bits of cell " + i + ": " + (cells[i] & 0xff));
+            }
+        }
+        return new CompactGrid(rows, cols, cells);
+    }
+
+    /**
+     * {@return the bits of the block specified}
+     *
+     * @param block the block to pack
+     */
+    public static int bitsOf(Block block) {
+        return (block.wallTop() ? WALL_TOP : 0)
+                | (block.wallRight() ? WALL_RIGHT : 0)
+                | (block.wallBottom() ? WALL_BOTTOM : 0)
+                | (block.wallLeft() ? WALL_LEFT : 0)
+                | (block.start() ? START : 0)
+                | (block.end() ? END : 0)
+                | (block.monster() ? MONSTER : 0);
+    }
+
+    /**
+     * {@return the shared block instance with the bits specified}
+     *
+     * @param bits the bits of a cell
+     */
+    public static Block blockOf(int bits) {
+        return BLOCKS[bits & 0x7f];
+    }
+
+    /**
+     * {@return the number of rows}
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * {@return the number of columns}
+     */
+    public int cols() {
+        return cols;
+    }
+
+    /**
+     * {@return the number of cells}
+     */
+    public int size() {
+        return cells.length;
+    }
+
+    /**
+     * {@return the index of the cell at the position specified}
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     */
+    public int index(int row, int col) {
+        return row * cols + col;
+    }
+
+    /**
+     * {@return the row of the cell with the index specified}
+     *
+     * @param index the index of the cell
+     */
+    public int row(int index) {
+        return index / cols;
+    }
+
+    /**
+     * {@return the column of the cell with the index specified}
+     *
+     * @param index the index of the cell
+     */
+    public int col(int index) {
+        return index % cols;
+    }
+
+    /**
+     * {@return the bits of the cell with the index specified}
+     *
+     * @param index the index of the cell
+     */
+    public int bits(int index) {
+        return cells[index];
+    }
+
+    /**
+     * {@return the mask of the directions in which the cell specified can be left}
+     *
+     * @param index the index of the cell
+     */
+    public int openDirections(int index) {
+        return open[index];
+    }
+
+    /**
+     * {@return the index of the neighbour of a cell in the direction specified}
+     * The direction is given by its bit in the mask of open directions, and
+     * it is not checked whether the neighbour is inside the grid.
+     *
+     * @param index the index of the cell
+     * @param direction one of {@link #OPEN_UP}, {@link #OPEN_RIGHT}, {@link #OPEN_DOWN} and {@link #OPEN_LEFT}
+     */
+    public int neighbour(int index, int direction) {
+        return switch (direction) {
+            case OPEN_UP -> index - cols;
+            case OPEN_RIGHT -> index + 1;
+            case OPEN_DOWN -> index + cols;
+            case OPEN_LEFT -> index - 1;
+            default -> throw new IllegalArgumentException("Invalid direction: " + direction);
+        };
+    }
+
+    /**
+     * {@return the block at the position specified}
+     * The returned instance is shared by all cells with the same bits.
+     *
+     * @param row the row of the block
+     * @param col the column of the block
+     */
+    public Block block(int row, int col) {
+        return BLOCKS[cells[index(row, col)] & 0x7f];
+    }
+
+    /**
+     * {@return the index of the first cell that has the bit specified, or -1 if there is none}
+     *
+     * @param bit the bit to look for
+     */
+    public int find(int bit) {
+        for (var i = 0; i < cells.length; i++) {
+            if ((cells[i] & bit) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * {@return a read-only view of the grid as rows of blocks}
+     * The view does not copy the cells, each block is looked up on access.
+     */
+    public List<List<Block>> asBlocks() {
+        return new BlockRows(this);
+    }
+
+    /**
+     * {@return a copy of the packed cells}
+     */
+    public byte[] toByteArray() {
+        return cells.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompactGrid{rows=%d, cols=%d}", rows, cols);
+    }
+
+    /**
+     * A read-only view of a grid as rows of blocks.
+     */
+    private static final class BlockRows extends AbstractList<List<Block>> implements RandomAccess {
+
+        private final CompactGrid grid;
+
+        private BlockRows(CompactGrid grid) {
+            this.grid = grid;
+        }
+
+        private CompactGrid grid() {
+            return grid;
+        }
+
+        @Override
+        public List<Block> get(int row) {
+            return new BlockRow(grid, row);
+        }
+
+        @Override
+        public int size() {
+            return grid.rows;
+        }
+
+    }
+
+    /**
+     * A read-only view of a single row of a grid.
+     */
+    private static final class BlockRow extends AbstractList<Block> implements RandomAccess {
+
+        private final CompactGrid grid;
+
+        private final int offset;
+
+        private BlockRow(CompactGrid grid, int row) {
+            this.grid = grid;
+            this.offset = grid.index(Objects.checkIndex(row, grid.rows), 0);
+        }
+
+        @Override
+        public Block get(int col) {
+            return BLOCKS[grid.cells[offset + Objects.checkIndex(col, grid.cols)] & 0x7f];
+        }
+
+        @Override
+        public int size() {
+            return grid.cols;
+        }
+
+    }
+
+}
@@ -0,0 +1,394 @@
+package mazegame.map;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.tinylog.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.ref.Cleaner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Represents a map pack in the JSON format of {@code maps.json}, read with
+ * the streaming API of Jackson.
+ * <p>
+ * When the pack is opened, the file is parsed once, and only the header
+ * fields and the byte offset of each map are kept, the blocks are skipped.
+ * The blocks of a map are decoded straight into a {@link CompactGrid} when it
+ * is read, without building {@link Block} objects, by parsing the file again
+ * from the offset of the map.
+ * <p>
+ * A pack opened from a file keeps the file open until the pack is no longer
+ * reachable, and reads it at the offsets of the maps, so a pack replaced by
+ * moving a new file over it, as {@link #write(Path, Maps)} does, still reads
+ * the file it was opened from. It must not be rewritten in place while it is open.
+ */
+public final class JsonMapPack implements MapPack {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * Closes the files of the packs that are no longer reachable.
+     */
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Source source;
+
+    private final List<MapHeader> headers;
+
+    private final long[] offsets;
+
+    private JsonMapPack(Source source, List<MapHeader> headers, long[] offsets) {
+        this.source = source;
+        this.headers = Collections.unmodifiableList(headers);
+        this.offsets = offsets;
+    }
+
+    /**
+     * Opens the map pack in the file specified. The file is read again from
+     * the offset of a map each time the map is read, through the same open
+     * file, which is closed when the pack is no longer reachable.
+     *
+     * @param path the path of the map pack
+     * @return the map pack
+     * @throws IOException if the file cannot be read or its maps are not a JSON array of maps
+     */
+    public static JsonMapPack open(Path path) throws IOException {
+        var file = new RandomAccessFile(path.toFile(), "r");
+        try {
+            var pack = scan(offset -> new FileRegionInputStream(file, offset));
+            CLEANER.register(pack, () -> {
+                try {
+                    file.close();
+                } catch (IOException e) {
+                    Logger.warn(e, "Failed to close map pack: {}", path);
+                }
+            });
+            return pack;
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the map pack in the bytes specified. The array is not copied.
+     *
+     * @param bytes the UTF-8 encoded map pack
+     * @return the map pack
+     * @throws IOException if the maps are not a JSON array of maps
+     */
+    public static JsonMapPack of(byte[] bytes) throws IOException {
+        return scan(offset -> new ByteArrayInputStream(bytes, (int) offset, bytes.length - (int) offset));
+    }
+
+    /**
+     * Reads the headers and the offsets of the maps in a single pass.
+     *
+     * @param source the source of the pack
+     * @return the map pack
+     * @throws IOException if the pack cannot be read or its maps are not a JSON array of maps
+     */
+    private static JsonMapPack scan(Source source) throws IOException {
+        var headers = new ArrayList<MapHeader>();
+        var offsets = new long[16];
+        try (var in = source.open(0); var parser = FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "The map pack must be an array of maps");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                if (headers.size() == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                offsets[headers.size()] = parser.getTokenLocation().getByteOffset();
+                headers.add(readMap(parser, null, null));
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "Expected a map");
+            }
+        }
+        return new JsonMapPack(source, headers, Arrays.copyOf(offsets, headers.size()));
+    }
+
+    /**
+     * Writes the maps specified to a file in the JSON format, without
+     * whitespace. The maps are decoded and written one at a time, and the
+     * file is written next to the target and then moved over it.
+     *
+     * @param path the path of the file
+     * @param maps the maps to write
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(Path path, Maps maps) throws IOException {
+        var directory = path.toAbsolutePath().getParent();
+        var temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (var out = new BufferedOutputStream(Files.newOutputStream(temporary));
+                 var generator = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+                generator.writeStartArray();
+                for (var map : maps.getMaps()) {
+                    writeMap(generator, map);
+                }
+                generator.writeEndArray();
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Writes a map with the fields of {@link MapData} and {@link Block}.
+     *
+     * @param generator the generator
+     * @param map the map to write
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeMap(JsonGenerator generator, MapData map) throws IOException {
+        var grid = map.toCompactGrid();
+        generator.writeStartObject();
+        generator.writeNumberField("id", map.id());
+        generator.writeStringField("name", map.name());
+        generator.writeNumberField("rows", map.rows());
+        generator.writeNumberField("cols", map.cols());
+        generator.writeArrayFieldStart("blocks");
+        for (var row = 0; row < grid.rows(); row++) {
+            generator.writeStartArray();
+            for (var col = 0; col < grid.cols(); col++) {
+                var bits = grid.bits(grid.index(row, col));
+                generator.writeStartObject();
+                generator.writeBooleanField("wallTop", (bits & CompactGrid.WALL_TOP) != 0);
+                generator.writeBooleanField("wallRight", (bits & CompactGrid.WALL_RIGHT) != 0);
+                generator.writeBooleanField("wallBottom", (bits & CompactGrid.WALL_BOTTOM) != 0);
+                generator.writeBooleanField("wallLeft", (bits & CompactGrid.WALL_LEFT) != 0);
+                generator.writeBooleanField("start", (bits & CompactGrid.START) != 0);
+                generator.writeBooleanField("end", (bits & CompactGrid.END) != 0);
+                generator.writeBooleanField("monster", (bits & CompactGrid.MONSTER) != 0);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    @Override
+    public List<MapHeader> headers() {
+        return headers;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IOException if the map cannot be read or decoded, or the file
+     * has been changed since the pack was opened so that the map is no longer
+     * at its offset
+     */
+    @Override
+    public MapData read(int index) throws IOException {
+        var header = headers.get(index);
+        var cells = new byte[Math.toIntExact(header.cells())];
+        try (var in = source.open(offsets[index]); var parser = FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT || !header.equals(readMap(parser, header, cells))) {
+                throw new IOException("The map pack has changed since it was opened, map "
+                        + header.id() + " is no longer at its offset");
+            }
+        }
+        return MapData.of(header.id(), header.name(), CompactGrid.wrap(header.rows(), header.cols(), cells));
+    }
+
+    /**
+     * Reads the fields of a map, the parser must be at the start of the map.
+     * The blocks are skipped if no cells are specified.
+     *
+     * @param parser the parser
+     * @param header the header of the map whose blocks are decoded, or null if they are skipped
+     * @param cells the cells to decode the blocks into, or null if they are skipped
+     * @return the header of the map
+     * @throws IOException if the map cannot be read or is invalid
+     */
+    private static MapHeader readMap(JsonParser parser, MapHeader header, byte[] cells) throws IOException {
+        var id = 0;
+        String name = null;
+        var rows = 0;
+        var cols = 0;
+        var hasBlocks = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> id = parser.getIntValue();
+                case "name" -> name = parser.getValueAsString();
+                case "rows" -> rows = parser.getIntValue();
+                case "cols" -> cols = parser.getIntValue();
+                case "blocks" -> {
+                    if (cells == null) {
+                        parser.skipChildren();
+                    } else {
+                        readBlocks(parser, header, cells);
+                    }
+                    hasBlocks = true;
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        if (rows <= 0 || cols <= 0) {
+            throw new JsonParseException(parser, "The number of rows and columns must be positive");
+        }
+        if ((long) rows * cols > Integer.MAX_VALUE) {
+            throw new JsonParseException(parser, "The map has too many cells");
+        }
+        if (!hasBlocks) {
+            throw new JsonParseException(parser, "The map has no blocks");
+        }
+        return new MapHeader(id, name, rows, cols);
+    }
+
+    /**
+     * Decodes the blocks of a map into packed cells, the parser must be at the
+     * start of the array of rows.
+     *
+     * @param parser the parser
+     * @param header the header of the map
+     * @param cells the cells to decode the blocks into
+     * @throws IOException if the blocks cannot be read or do not match the number of rows and columns
+     */
+    private static void readBlocks(JsonParser parser, MapHeader header, byte[] cells) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "The blocks must be an array of rows");
+        }
+        var row = 0;
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            if (row == header.rows()) {
+                throw new JsonParseException(parser, "The number of rows must match the number of blocks");
+            }
+            var col = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                if (col == header.cols()) {
+                    throw new JsonParseException(parser, "The number of columns must match the number of blocks");
+                }
+                cells[row * header.cols() + col] = (byte) readBlock(parser);
+                col++;
+            }
+            if (col != header.cols()) {
+                throw new JsonParseException(parser, "The number of columns must match the number of blocks");
+            }
+            row++;
+        }
+        if (parser.currentToken() != JsonToken.END_ARRAY || row != header.rows()) {
+            throw new JsonParseException(parser, "The number of rows must match the number of blocks");
+        }
+    }
+
+    /**
+     * Decodes a block into the bits of a cell, the parser must be at the start of the block.
+     *
+     * @param parser the parser
+     * @return the bits of the block as in {@link CompactGrid}
+     * @throws IOException if the block cannot be read
+     */
+    private static int readBlock(JsonParser parser) throws IOException {
+        var bits = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.getCurrentName();
+            parser.nextToken();
+            var bit = switch (field) {
+                case "wallTop" -> CompactGrid.WALL_TOP;
+                case "wallRight" -> CompactGrid.WALL_RIGHT;
+                case "wallBottom" -> CompactGrid.WALL_BOTTOM;
+                case "wallLeft" -> CompactGrid.WALL_LEFT;
+                case "start" -> CompactGrid.START;
+                case "end" -> CompactGrid.END;
+                case "monster" -> CompactGrid.MONSTER;
+                default -> 0;
+            };
+            if (bit == 0) {
+                parser.skipChildren();
+            } else if (parser.getBooleanValue()) {
+                bits |= bit;
+            }
+        }
+        return bits;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JsonMapPack{maps=%d}", headers.size());
+    }
+
+    /**
+     * Reads a file from an offset to its end. The reads of the streams over
+     * the same file are serialized, and each of them seeks to the position of
+     * its stream first. Unlike the reads of a {@link java.nio.channels.FileChannel},
+     * they do not close the file when the reading thread is interrupted.
+     */
+    private static final class FileRegionInputStream extends InputStream {
+
+        private final RandomAccessFile file;
+
+        private long position;
+
+        private FileRegionInputStream(RandomAccessFile file, long position) {
+            this.file = file;
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            var bytes = new byte[1];
+            return read(bytes, 0, 1) < 0 ? -1 : bytes[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            Objects.checkFromIndexSize(offset, length, bytes.length);
+            if (length == 0) {
+                return 0;
+            }
+            int count;
+            synchronized (file) {
+                file.seek(position);
+                count = file.read(bytes, offset, length);
+            }
+            if (count > 0) {
+                position += count;
+            }
+            return count;
+        }
+
+    }
+
+    /**
+     * Represents where the bytes of a pack are read from.
+     */
+    @FunctionalInterface
+    private interface Source {
+
+        /**
+         * Opens a stream over the bytes of the pack starting at the offset specified.
+         *
+         * @param offset the byte offset
+         * @return the stream
+         * @throws IOException if the pack cannot be read
+         */
+        InputStream open(long offset) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,72 @@
+package mazegame.map;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Represents a cache of decoded maps bounded by their total number of cells.
+ * <p>
+ * When the cache is full, the least recently used maps are evicted. The most
+ * recently added map is always kept, even if it alone exceeds the capacity.
+ */
+final class MapCache {
+
+    private final long capacity;
+
+    private final LinkedHashMap<Integer, MapData> maps = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long cells;
+
+    /**
+     * Constructs a new cache.
+     *
+     * @param capacity the maximum total number of cells of the cached maps
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    MapCache(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity of the cache must not be negative");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * {@return the cached map at the position specified, or null if it is not cached}
+     *
+     * @param index the position of the map in its pack
+     */
+    synchronized MapData get(int index) {
+        return maps.get(index);
+    }
+
+    /**
+     * Adds a map to the cache unless another thread has already added it, and
+     * evicts the least recently used maps over the capacity.
+     *
+     * @param index the position of the map in its pack
+     * @param map the decoded map
+     * @return the cached map at the position
+     */
+    synchronized MapData put(int index, MapData map) {
+        var cached = maps.putIfAbsent(index, map);
+        if (cached != null) {
+            return cached;
+        }
+        cells += (long) map.rows() * map.cols();
+        Iterator<MapData> eldest = maps.values().iterator();
+        while (cells > capacity && maps.size() > 1) {
+            var evicted = eldest.next();
+            cells -= (long) evicted.rows() * evicted.cols();
+            eldest.remove();
+        }
+        return map;
+    }
+
+    /**
+     * {@return the number of cached maps}
+     */
+    synchronized int size() {
+        return maps.size();
+    }
+
+}
@@ -48,6 +48,37 @@ public record MapData(@JsonProperty("id") int id, @JsonProperty("name") String n
         this.blocks = blocks;
     }
 
+    /**
+     * Creates a new map whose blocks are backed by the grid specified.
+     *
+     * @param id the id of the map
+     * @param name the name of the map
+     * @param grid the packed blocks of the map
+     * @return a new map backed by the grid
+     */
+    public static MapData of(int id, String name, CompactGrid grid) {
+        return new MapData(id, name, grid.rows(), grid.cols(), grid.asBlocks());
+    }
+
+    /**
+     * Returns the blocks of the map packed into a compact grid.
+     * If the blocks are already backed by a grid, no copy is made.
+     *
+     * @return the compact grid of the map
+     */
+    public CompactGrid toCompactGrid() {
+        return CompactGrid.of(this);
+    }
+
+    /**
+     * Returns a copy of the map whose blocks are backed by a compact grid.
+     *
+     * @return the compact copy of the map
+     */
+    public MapData compact() {
+        return of(id, name, toCompactGrid());
+    }
+
     @Override
     public String toString() {
         return String.format("MapData{id=%d, name='%s', rows=%d, cols=%d, blocks=%d}", id, name, rows, cols, blocks.size()*blocks.getFirst().size());
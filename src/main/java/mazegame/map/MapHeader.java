@@ -0,0 +1,46 @@
+package mazegame.map;
+
+/**
+ * Represents the header of a map in a map pack, which can be read without
+ * decoding the blocks of the map.
+ *
+ * @param id the id of the map
+ * @param name the name of the map
+ * @param rows the number of rows in the map
+ * @param cols the number of columns in the map
+ */
+public record MapHeader(int id, String name, int rows, int cols) {
+
+    /**
+     * Constructor for creating a new MapHeader object.
+     *
+     * @param id the id of the map
+     * @param name the name of the map
+     * @param rows the number of rows in the map
+     * @param cols the number of columns in the map
+     * @throws IllegalArgumentException if the number of rows or columns is not positive
+     */
+    public MapHeader {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("The number of rows and columns must be positive");
+        }
+    }
+
+    /**
+     * Returns the header of the map specified.
+     *
+     * @param map the map
+     * @return the header of the map
+     */
+    public static MapHeader of(MapData map) {
+        return new MapHeader(map.id(), map.name(), map.rows(), map.cols());
+    }
+
+    /**
+     * {@return the number of cells of the map}
+     */
+    public long cells() {
+        return (long) rows * cols;
+    }
+
+}
@@ -0,0 +1,30 @@
+package mazegame.map;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Represents a source of maps whose headers are known up front and whose
+ * blocks are decoded on request.
+ */
+public interface MapPack {
+
+    /**
+     * Returns the headers of the maps in the order they appear in the pack.
+     *
+     * @return the headers of the maps
+     */
+    List<MapHeader> headers();
+
+    /**
+     * Decodes the map at the position specified. Each call decodes the map
+     * again, callers are expected to cache the result.
+     *
+     * @param index the position of the map in {@link #headers()}
+     * @return the map, with its blocks backed by a compact grid
+     * @throws IOException if the map cannot be read or decoded
+     * @throws IndexOutOfBoundsException if the position is out of range
+     */
+    MapData read(int index) throws IOException;
+
+}
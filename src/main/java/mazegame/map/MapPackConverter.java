@@ -0,0 +1,33 @@
+package mazegame.map;
+
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts map packs from the JSON format to the binary format of {@link BinaryMapPack}.
+ */
+public class MapPackConverter {
+
+    /**
+     * Converts a map pack. The maps are decoded one at a time, so packs
+     * larger than the memory can be converted.
+     *
+     * @param args the path of the JSON map pack and the path of the binary map pack to write
+     * @throws IOException if the map pack cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: MapPackConverter INPUT.json OUTPUT.mzp");
+            System.exit(2);
+        }
+        var started = System.nanoTime();
+        var maps = new Maps(Path.of(args[0]), 0);
+        BinaryMapPack.write(Path.of(args[1]), maps);
+        Logger.info("Converted {} maps from {} to {} in {} ms", maps.getHeaders().size(), args[0], args[1],
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+}
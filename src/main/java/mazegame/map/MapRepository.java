@@ -0,0 +1,231 @@
+package mazegame.map;
+
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Represents a process-wide source of maps.
+ * <p>
+ * A repository parses its maps file once and hands out the loaded
+ * {@link Maps} as an immutable snapshot. The repositories returned by
+ * {@link #ofResource(String)} and {@link #ofFile(Path)} are shared, so every
+ * game reading the same file uses the same snapshot.
+ * <p>
+ * A repository over a file on the file system watches the file, and when it
+ * changes, the file is parsed again and the new snapshot replaces the old one
+ * atomically. Games that have already taken a snapshot keep it.
+ */
+public final class MapRepository implements AutoCloseable {
+
+    /**
+     * The name of the system property that can specify a maps file on the
+     * file system to use instead of the bundled maps.
+     */
+    public static final String MAPS_PROPERTY = "mazegame.maps";
+
+    /**
+     * The resource path of the bundled maps.
+     */
+    public static final String DEFAULT_RESOURCE = "/mazegame/map/maps.json";
+
+    /**
+     * The shared repositories, keyed by their resource path or absolute file path.
+     */
+    private static final Map<String, MapRepository> REPOSITORIES = new ConcurrentHashMap<>();
+
+    private final String source;
+
+    private final AtomicReference<Maps> snapshot;
+
+    private final WatchService watchService;
+
+    /**
+     * Constructs a new repository with the snapshot specified that is not watched.
+     *
+     * @param source the resource path or absolute file path of the maps
+     * @param maps the initial snapshot
+     */
+    private MapRepository(String source, Maps maps) {
+        this(source, maps, null);
+    }
+
+    /**
+     * Constructs a new repository with the snapshot specified.
+     *
+     * @param source the resource path or absolute file path of the maps
+     * @param maps the initial snapshot
+     * @param watchService the watch service of the maps file, or null if it is not watched
+     */
+    private MapRepository(String source, Maps maps, WatchService watchService) {
+        this.source = source;
+        this.snapshot = new AtomicReference<>(maps);
+        this.watchService = watchService;
+    }
+
+    /**
+     * Returns the shared repository of the maps file specified by the
+     * {@value #MAPS_PROPERTY} system property, or of the bundled maps if the
+     * property is not set.
+     *
+     * @return the default repository
+     * @throws UncheckedIOException if the maps file specified by the property cannot be read
+     */
+    public static MapRepository getDefault() {
+        var file = System.getProperty(MAPS_PROPERTY);
+        if (file == null || file.isBlank()) {
+            return ofResource(DEFAULT_RESOURCE);
+        }
+        try {
+            return ofFile(Path.of(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the shared repository of the maps resource specified.
+     * The resource is parsed the first time it is requested.
+     *
+     * @param resource the resource path of the maps
+     * @return the repository of the resource
+     * @throws NullPointerException if no resource is found at the path
+     */
+    public static MapRepository ofResource(String resource) {
+        return REPOSITORIES.computeIfAbsent("resource:" + resource,
+                key -> new MapRepository(key, new Maps(resource)));
+    }
+
+    /**
+     * Returns the shared repository of the maps file specified.
+     * The file is parsed the first time it is requested, and is watched for
+     * changes from then on.
+     *
+     * @param file the path of the maps file
+     * @return the repository of the file
+     * @throws IOException if the file cannot be read or parsed, or cannot be watched
+     */
+    public static MapRepository ofFile(Path file) throws IOException {
+        var path = file.toAbsolutePath().normalize();
+        try {
+            return REPOSITORIES.computeIfAbsent("file:" + path, key -> {
+                try {
+                    return watch(key, path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Loads the maps file specified and starts watching its directory.
+     *
+     * @param source the key of the repository
+     * @param path the absolute path of the maps file
+     * @return the repository of the file
+     * @throws IOException if the file cannot be read or parsed, or cannot be watched
+     */
+    private static MapRepository watch(String source, Path path) throws IOException {
+        var maps = new Maps(path);
+        var watchService = path.getFileSystem().newWatchService();
+        try {
+            path.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            watchService.close();
+            throw e;
+        }
+        var repository = new MapRepository(source, maps, watchService);
+        var watcher = new Thread(() -> repository.watchLoop(path), "map-watcher-" + path.getFileName());
+        watcher.setDaemon(true);
+        watcher.start();
+        Logger.info("Watching maps file: {}", path);
+        return repository;
+    }
+
+    /**
+     * Waits for changes of the maps file and reloads it until the repository is closed.
+     *
+     * @param path the absolute path of the maps file
+     */
+    private void watchLoop(Path path) {
+        try {
+            while (true) {
+                var key = watchService.take();
+                var changed = false;
+                for (var event : key.pollEvents()) {
+                    if (event.context() instanceof Path name && name.equals(path.getFileName())) {
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    reload(path);
+                }
+                if (!key.reset()) {
+                    Logger.warn("Stopped watching maps file: {}", path);
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Logger.debug("Stopped watching maps file: {}", path);
+        }
+    }
+
+    /**
+     * Parses the maps file again and swaps in the new snapshot. If the file
+     * cannot be parsed, for example because it is being written, the current
+     * snapshot is kept.
+     *
+     * @param path the absolute path of the maps file
+     */
+    private void reload(Path path) {
+        try {
+            var maps = new Maps(path);
+            snapshot.set(maps);
+            Logger.info("Reloaded maps file: {} ({} maps)", path, maps.getMaps().size());
+        } catch (IOException e) {
+            Logger.warn("Failed to reload maps file, keeping the previous maps: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the current snapshot of the maps. The returned instance is never
+     * changed, a reload replaces it with a new one.
+     *
+     * @return the current maps
+     */
+    public Maps snapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Stops watching the maps file and removes the repository from the shared
+     * repositories. The last snapshot can still be read.
+     *
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        REPOSITORIES.remove(source, this);
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MapRepository{source=%s, %s}", source, snapshot.get());
+    }
+
+}
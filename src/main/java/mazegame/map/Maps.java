@@ -1,76 +1,262 @@
 package mazegame.map;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.Getter;
 import mazegame.solver.Main;
 import org.tinylog.Logger;
 
 import java.io.*;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.stream.Collectors;
 
 /**
  * Represents the maps in the game.
+ * <p>
+ * The maps are indexed by their id once they are loaded, and are not changed
+ * afterwards, so an instance can be shared by any number of games.
+ * <p>
+ * Maps are loaded from packs in the JSON format of {@link JsonMapPack} or in
+ * the binary format of {@link BinaryMapPack}, and are read lazily: only the
+ * headers of the maps are read up front, and the blocks of a map are decoded
+ * when the map is first requested. The decoded maps are kept in a cache bounded by their total
+ * number of cells, so the memory used depends on the maps in use and not on
+ * the size of the pack.
  */
-@Getter
 public class Maps {
 
     /**
-     * The list of maps.
+     * The default maximum total number of cells of the decoded maps kept in memory.
      */
-    private final List<MapData> maps = new ArrayList<>();
+    public static final long DEFAULT_CACHE_CELLS = 1 << 24;
+
+    /**
+     * The pack of the maps.
+     */
+    private final MapPack pack;
+
+    /**
+     * The positions of the maps in the pack indexed by their id.
+     */
+    private final Map<Integer, Integer> indexById = new HashMap<>();
+
+    /**
+     * The decoded maps, or null if the pack holds the maps in memory.
+     */
+    private final MapCache cache;
 
     /**
      * Constructs a new maps with the specified file path.
      *
      * @param filePath the file path of the maps
+     * @throws NullPointerException if no resource is found at the file path
      */
     public Maps(String filePath) {
-        loadMaps(filePath);
+        this(loadMaps(filePath), new MapCache(DEFAULT_CACHE_CELLS));
+    }
+
+    /**
+     * Constructs a new maps from the maps specified.
+     * The blocks of the maps are packed into compact grids.
+     *
+     * @param maps the maps
+     */
+    public Maps(List<MapData> maps) {
+        this(new LoadedPack(maps.stream().map(MapData::compact).toList()), null);
     }
 
     /**
-     * Returns the map with the specified id.
+     * Constructs a new maps from the specified file on the file system.
+     * The file can be either in the JSON or in the binary format.
+     *
+     * @param path the path of the maps file
+     * @throws IOException if the file cannot be read, or the headers of the maps cannot be parsed
+     */
+    public Maps(Path path) throws IOException {
+        this(path, DEFAULT_CACHE_CELLS);
+    }
+
+    /**
+     * Constructs a new maps from the specified file on the file system.
+     *
+     * @param path the path of the maps file
+     * @param cacheCells the maximum total number of cells of the decoded maps kept in memory
+     * @throws IOException if the file cannot be read, or the headers of the maps cannot be parsed
+     * @throws IllegalArgumentException if the capacity of the cache is negative
+     */
+    public Maps(Path path, long cacheCells) throws IOException {
+        this(openPack(path), new MapCache(cacheCells));
+    }
+
+    /**
+     * Constructs a new maps over the pack specified.
+     *
+     * @param pack the pack of the maps
+     * @param cache the cache of the decoded maps, or null if the pack holds the maps in memory
+     */
+    private Maps(MapPack pack, MapCache cache) {
+        this.pack = pack;
+        this.cache = cache;
+        var headers = pack.headers();
+        for (var i = 0; i < headers.size(); i++) {
+            indexById.putIfAbsent(headers.get(i).id(), i);
+        }
+    }
+
+    /**
+     * Returns the map with the specified id. If several maps have the same id,
+     * the first one is returned.
      *
      * @param id the id of the map
      * @return the map with the specified id
      * @throws IllegalArgumentException if no map found with the specified id
+     * @throws UncheckedIOException if the map cannot be decoded
      */
     public MapData getMap(int id) {
-        return maps.stream()
-                .filter(map -> map.id() == id)
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("No map found with id: " + id));
+        var index = indexById.get(id);
+        if (index == null) {
+            throw new IllegalArgumentException("No map found with id: " + id);
+        }
+        return getMapAt(index);
     }
 
     /**
-     * Loads the maps from the specified file path.
+     * Returns the header of the map with the specified id without decoding
+     * the map. If several maps have the same id, the first one is returned.
      *
-     * @param filePath the file path of the maps
-     * @throws IllegalArgumentException if the file path is invalid
+     * @param id the id of the map
+     * @return the header of the map with the specified id
+     * @throws IllegalArgumentException if no map found with the specified id
+     */
+    public MapHeader getHeader(int id) {
+        var index = indexById.get(id);
+        if (index == null) {
+            throw new IllegalArgumentException("No map found with id: " + id);
+        }
+        return pack.headers().get(index);
+    }
+
+    /**
+     * Returns the list of maps in the order they were loaded. The maps are
+     * decoded as they are accessed.
+     *
+     * @return an unmodifiable list of the maps
+     */
+    public List<MapData> getMaps() {
+        return new MapList();
+    }
+
+    /**
+     * Returns the headers of the maps in the order they were loaded, without
+     * decoding any map.
+     *
+     * @return an unmodifiable list of the headers of the maps
      */
-    private void loadMaps(String filePath) {
-        ObjectMapper objectMapper = new ObjectMapper();
+    public List<MapHeader> getHeaders() {
+        return pack.headers();
+    }
+
+    /**
+     * Returns the map at the position specified, decoding it if it is not cached.
+     *
+     * @param index the position of the map
+     * @return the map
+     * @throws UncheckedIOException if the map cannot be decoded
+     */
+    private MapData getMapAt(int index) {
+        if (cache == null) {
+            return read(index);
+        }
+        var map = cache.get(index);
+        return map != null ? map : cache.put(index, read(index));
+    }
+
+    private MapData read(int index) {
         try {
-            InputStream resourceStream = getClass().getResourceAsStream(filePath);
-            List<MapData> loadedMaps = objectMapper.readValue(resourceStream, new TypeReference<List<MapData>>() {});
-            maps.addAll(loadedMaps);
+            return pack.read(index);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode map: " + pack.headers().get(index).id(), e);
+        }
+    }
+
+    /**
+     * Opens the map pack in the file specified, detecting whether it is in
+     * the JSON or in the binary format.
+     *
+     * @param path the path of the maps file
+     * @return the pack of the maps
+     * @throws IOException if the file cannot be read, or the headers of the maps cannot be parsed
+     */
+    private static MapPack openPack(Path path) throws IOException {
+        return BinaryMapPack.isBinary(path) ? BinaryMapPack.open(path) : JsonMapPack.open(path);
+    }
+
+    /**
+     * Opens the maps from the specified resource path. The resource is read
+     * into memory, but only the headers of the maps are parsed. The resource
+     * can be either in the JSON or in the binary format.
+     *
+     * @param filePath the file path of the maps
+     * @return the pack of the maps, empty if the maps cannot be read
+     * @throws NullPointerException if no resource is found at the file path
+     */
+    private static MapPack loadMaps(String filePath) {
+        try (InputStream resourceStream = Objects.requireNonNull(Maps.class.getResourceAsStream(filePath),
+                "No maps found at: " + filePath)) {
+            var bytes = resourceStream.readAllBytes();
+            return BinaryMapPack.isBinary(bytes) ? BinaryMapPack.of(ByteBuffer.wrap(bytes)) : JsonMapPack.of(bytes);
         } catch (IOException e) {
             Logger.error(e, "Failed to load maps from file: {}", filePath);
+            return new LoadedPack(List.of());
         }
     }
 
     @Override
     public String toString() {
-        return String.format("Maps{Loaded maps=%d}", maps.size());
+        return String.format("Maps{Loaded maps=%d}", pack.headers().size());
     }
 
-}
+    /**
+     * A read-only view of the maps that decodes each map on access.
+     */
+    private final class MapList extends AbstractList<MapData> implements RandomAccess {
+
+        @Override
+        public MapData get(int index) {
+            return getMapAt(Objects.checkIndex(index, size()));
+        }
 
+        @Override
+        public int size() {
+            return pack.headers().size();
+        }
+
+    }
+
+    /**
+     * A pack of maps that are already in memory.
+     *
+     * @param headers the headers of the maps
+     * @param maps the maps
+     */
+    private record LoadedPack(List<MapHeader> headers, List<MapData> maps) implements MapPack {
+
+        private LoadedPack(List<MapData> maps) {
+            this(maps.stream().map(MapHeader::of).toList(), maps);
+        }
+
+        @Override
+        public MapData read(int index) {
+            return maps.get(index);
+        }
+
+    }
+
+}
@@ -34,6 +34,15 @@ public enum Direction {
         this.colChange = colChange;
     }
 
+    /**
+     * {@return the bit of the direction in a mask of directions}
+     * The bits match the open directions of
+     * {@link mazegame.map.CompactGrid#openDirections(int)}.
+     */
+    public int getMask() {
+        return 1 << ordinal();
+    }
+
     /**
      * {@return the direction that corresponds to the coordinate changes
      * specified}
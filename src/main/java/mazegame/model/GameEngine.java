@@ -0,0 +1,291 @@
+package mazegame.model;
+
+import mazegame.map.CompactGrid;
+
+/**
+ * Represents the rules of the game on the packed grid of a map, without
+ * any observable properties.
+ * <p>
+ * A state of the game is the pair of the cell index of the player and the
+ * cell index of the monster. Checking and making moves reads the open
+ * directions of the grid and does not allocate, so the engine can be used
+ * for solvers and bulk simulations.
+ */
+public final class GameEngine {
+
+    /**
+     * The packed blocks of the map.
+     */
+    private final CompactGrid grid;
+
+    /**
+     * The cell index of the end.
+     */
+    private final int end;
+
+    /**
+     * The precomputed moves of the monster, or null if they are computed on each move.
+     */
+    private final MonsterTable monsterTable;
+
+    /**
+     * The cell index of the player.
+     */
+    private int player;
+
+    /**
+     * The cell index of the monster.
+     */
+    private int monster;
+
+    /**
+     * Constructs a new engine in the initial state of the map.
+     *
+     * @param grid the packed blocks of the map
+     * @throws IllegalArgumentException if the map has no start, end or monster block
+     */
+    public GameEngine(CompactGrid grid) {
+        this(grid, null);
+    }
+
+    /**
+     * Constructs a new engine in the initial state of the map, which reads the
+     * moves of the monster from the table specified.
+     *
+     * @param grid the packed blocks of the map
+     * @param monsterTable the moves of the monster on the map, or null to compute them on each move
+     * @throws IllegalArgumentException if the map has no start, end or monster
+     * block, or the table belongs to a map of a different size
+     */
+    public GameEngine(CompactGrid grid, MonsterTable monsterTable) {
+        this(grid, monsterTable, grid.find(CompactGrid.START), grid.find(CompactGrid.MONSTER));
+    }
+
+    /**
+     * Constructs a new engine in the state specified.
+     *
+     * @param grid the packed blocks of the map
+     * @param player the cell index of the player
+     * @param monster the cell index of the monster
+     * @throws IllegalArgumentException if the map has no end block, or a cell index is out of the grid
+     */
+    public GameEngine(CompactGrid grid, int player, int monster) {
+        this(grid, null, player, monster);
+    }
+
+    private GameEngine(CompactGrid grid, MonsterTable monsterTable, int player, int monster) {
+        this.grid = grid;
+        this.end = grid.find(CompactGrid.END);
+        if (end < 0) {
+            throw new IllegalArgumentException("The map has no end block");
+        }
+        if (monsterTable != null && monsterTable.size() != grid.size()) {
+            throw new IllegalArgumentException("The monster table belongs to a map of a different size");
+        }
+        this.monsterTable = monsterTable;
+        setState(player, monster);
+    }
+
+    /**
+     * Constructs a copy of the engine specified.
+     *
+     * @param other the engine to copy
+     */
+    private GameEngine(GameEngine other) {
+        this.grid = other.grid;
+        this.end = other.end;
+        this.monsterTable = other.monsterTable;
+        this.player = other.player;
+        this.monster = other.monster;
+    }
+
+    /**
+     * {@return the packed blocks of the map}
+     */
+    public CompactGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * {@return the cell index of the end}
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * {@return the cell index of the player}
+     */
+    public int getPlayer() {
+        return player;
+    }
+
+    /**
+     * {@return the cell index of the monster}
+     */
+    public int getMonster() {
+        return monster;
+    }
+
+    /**
+     * Sets the cell indices of the player and the monster.
+     *
+     * @param player the cell index of the player
+     * @param monster the cell index of the monster
+     * @throws IllegalArgumentException if a cell index is out of the grid
+     */
+    public void setState(int player, int monster) {
+        if (player < 0 || player >= grid.size() || monster < 0 || monster >= grid.size()) {
+            throw new IllegalArgumentException("The player and the monster must be inside the map");
+        }
+        this.player = player;
+        this.monster = monster;
+    }
+
+    /**
+     * {@return the position of the cell index specified}
+     *
+     * @param cell the cell index
+     */
+    public Position toPosition(int cell) {
+        return new Position(grid.row(cell), grid.col(cell));
+    }
+
+    /**
+     * Checks if the game is solved.
+     *
+     * @return true if the player is on the end cell, false otherwise
+     */
+    public boolean isSolved() {
+        return player == end;
+    }
+
+    /**
+     * Checks if the player has been caught.
+     *
+     * @return true if the player and the monster are on the same cell, false otherwise
+     */
+    public boolean isCaught() {
+        return player == monster;
+    }
+
+    /**
+     * Returns the legal moves of the player as a mask of {@link Direction#getMask()} bits.
+     *
+     * @return the mask of the legal moves of the player
+     */
+    public int getLegalMoves() {
+        return player == end ? 0 : grid.openDirections(player);
+    }
+
+    /**
+     * Checks if the player can move in the given direction.
+     *
+     * @param direction the bit of the direction
+     * @return true if the player can move in the given direction, false otherwise
+     */
+    public boolean isLegalMove(int direction) {
+        return (getLegalMoves() & direction) != 0;
+    }
+
+    /**
+     * Checks if the player can move in the given direction.
+     *
+     * @param direction the direction to move
+     * @return true if the player can move in the given direction, false otherwise
+     */
+    public boolean isLegalMove(Direction direction) {
+        return isLegalMove(direction.getMask());
+    }
+
+    /**
+     * Moves the player in the given direction if the move is legal, then lets
+     * the monster respond unless the game has been solved.
+     *
+     * @param direction the bit of the direction
+     * @return true if the move has been made, false if it is illegal
+     */
+    public boolean makeMove(int direction) {
+        if (!isLegalMove(direction)) {
+            return false;
+        }
+        player = grid.neighbour(player, direction);
+        if (player != end) {
+            monster = nextMonsterCell(player, monster);
+        }
+        return true;
+    }
+
+    /**
+     * Moves the player in the given direction if the move is legal, then lets
+     * the monster respond unless the game has been solved.
+     *
+     * @param direction the direction to move
+     * @return true if the move has been made, false if it is illegal
+     */
+    public boolean makeMove(Direction direction) {
+        return makeMove(direction.getMask());
+    }
+
+    /**
+     * Computes where the monster moves when the player is on the cell specified.
+     * <p>
+     * The monster takes at most two steps towards the player. It first moves
+     * horizontally, then vertically, then horizontally again, and in each
+     * phase it keeps going in the same direction while it is not blocked and
+     * has steps left. The distances are measured once, before the first step.
+     * If the engine has a monster table, the move is read from the table.
+     *
+     * @param player the cell index of the player
+     * @param monster the cell index of the monster
+     * @return the cell index of the monster after its move
+     */
+    public int nextMonsterCell(int player, int monster) {
+        return monsterTable != null ? monsterTable.next(player, monster) : chase(grid, player, monster);
+    }
+
+    /**
+     * Computes where the monster moves when the player is on the cell
+     * specified, as described in {@link #nextMonsterCell(int, int)}.
+     *
+     * @param grid the packed blocks of the map
+     * @param player the cell index of the player
+     * @param monster the cell index of the monster
+     * @return the cell index of the monster after its move
+     */
+    static int chase(CompactGrid grid, int player, int monster) {
+        var distanceX = grid.col(player) - grid.col(monster);
+        var distanceY = grid.row(player) - grid.row(monster);
+        var horizontal = distanceX > 0 ? CompactGrid.OPEN_RIGHT : CompactGrid.OPEN_LEFT;
+        var vertical = distanceY > 0 ? CompactGrid.OPEN_DOWN : CompactGrid.OPEN_UP;
+
+        var steps = 0;
+        for (var i = Math.abs(distanceX); i > 0 && steps < 2 && (grid.openDirections(monster) & horizontal) != 0; i--) {
+            monster = grid.neighbour(monster, horizontal);
+            steps++;
+        }
+        for (var i = Math.abs(distanceY); i > 0 && steps < 2 && (grid.openDirections(monster) & vertical) != 0; i--) {
+            monster = grid.neighbour(monster, vertical);
+            steps++;
+        }
+        for (var i = Math.abs(distanceX); i > 0 && steps < 2 && (grid.openDirections(monster) & horizontal) != 0; i--) {
+            monster = grid.neighbour(monster, horizontal);
+            steps++;
+        }
+        return monster;
+    }
+
+    /**
+     * {@return a copy of the engine in the same state}
+     */
+    public GameEngine copy() {
+        return new GameEngine(this);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GameEngine{player=%s, monster=%s, end=%s}",
+                toPosition(player), toPosition(monster), toPosition(end));
+    }
+
+}
@@ -5,8 +5,9 @@ import javafx.beans.property.ReadOnlyBooleanWrapper;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import lombok.Getter;
-import mazegame.map.Block;
+import mazegame.map.CompactGrid;
 import mazegame.map.MapData;
+import mazegame.map.MapHeader;
 import mazegame.map.Maps;
 import org.tinylog.Logger;
 import puzzle.State;
@@ -15,6 +16,9 @@ import java.util.*;
 
 /**
  * Represents the state of the game.
+ * <p>
+ * The rules are implemented by a {@link GameEngine}, this class exposes its
+ * state as observable properties for the user interface.
  */
 @Getter
 public class GameState implements State<Direction> {
@@ -44,6 +48,21 @@ public class GameState implements State<Direction> {
      */
     private final Maps maps;
 
+    /**
+     * The header of the current map.
+     */
+    private final MapHeader header;
+
+    /**
+     * The packed blocks of the current map.
+     */
+    private final CompactGrid grid;
+
+    /**
+     * The engine that implements the rules of the game.
+     */
+    private final GameEngine engine;
+
     /**
      * The positions of the player, monster, and end.
      */
@@ -61,8 +80,28 @@ public class GameState implements State<Direction> {
      * @param mapIndex the index of the current map
      */
     public GameState(Maps maps, int mapIndex) {
+        this(maps, mapIndex, null);
+    }
+
+    /**
+     * Constructs a new GameState on the map specified, copying the engine
+     * if one is given instead of starting from the initial state.
+     *
+     * @param maps the maps of the game
+     * @param mapIndex the index of the current map
+     * @param engine the engine to copy, or {@code null}
+     */
+    private GameState(Maps maps, int mapIndex, GameEngine engine) {
         this.maps = maps;
         this.mapIndex = mapIndex;
+        this.header = maps.getHeader(mapIndex);
+        if (engine == null) {
+            var grid = getCurrentMap().toCompactGrid();
+            this.engine = new GameEngine(grid, MonsterTable.forGrid(grid).orElse(null));
+        } else {
+            this.engine = engine.copy();
+        }
+        this.grid = this.engine.getGrid();
         this.positions = new ReadOnlyObjectWrapper[3];
         init();
         this.solved = new ReadOnlyBooleanWrapper();
@@ -70,28 +109,18 @@ public class GameState implements State<Direction> {
     }
 
     /**
-     * Initializes the positions of the player, monster, and end.
+     * Initializes the positions of the player, monster, and end from the engine.
      */
     private void init() {
-        var map = getCurrentMap();
-
-        for (int i = 0; i < map.rows(); i++) {
-            for (int j = 0; j < map.cols(); j++) {
-                var block = map.blocks().get(i).get(j);
-
-                if (block.start()) {
-                    positions[PLAYER] = new ReadOnlyObjectWrapper<>(new Position(i, j));
-                } else if (block.end()) {
-                    positions[END] = new ReadOnlyObjectWrapper<>(new Position(i, j));
-                } else if (block.monster()) {
-                    positions[MONSTER] = new ReadOnlyObjectWrapper<>(new Position(i, j));
-                }
-            }
-        }
+        positions[PLAYER] = new ReadOnlyObjectWrapper<>(engine.toPosition(engine.getPlayer()));
+        positions[MONSTER] = new ReadOnlyObjectWrapper<>(engine.toPosition(engine.getMonster()));
+        positions[END] = new ReadOnlyObjectWrapper<>(engine.toPosition(engine.getEnd()));
     }
 
     /**
-     * Gets the current map.
+     * Gets the current map, decoding it again if it is no longer cached. The
+     * header and the grid of the map are kept by the state and are cheaper to
+     * get with {@link #getHeader()} and {@link #getGrid()}.
      *
      * @return the current map
      */
@@ -128,175 +157,6 @@ public class GameState implements State<Direction> {
         return solved.getReadOnlyProperty();
     }
 
-    /**
-     * Checks if the {@code character} can move up.
-     * Characters are the player and the monster.
-     *
-     * @param currentMap the current map
-     * @param block the block of the character
-     * @param character the index of the character in the positions array
-     * @return true if the character can move up, false otherwise
-     */
-    private boolean canMoveUp(MapData currentMap, Block block, int character) {
-        if (getPosition(character).row() == 0 || block.wallTop()) {
-            return false;
-        }
-
-        var nextBlock = currentMap.blocks().
-                get(getPosition(character).moveUp().row()).
-                get(getPosition(character).moveUp().col());
-
-        return !nextBlock.wallBottom();
-    }
-
-    /**
-     * Checks if the {@code character} can move right.
-     * Characters are the player and the monster.
-     *
-     * @param currentMap the current map
-     * @param block the block of the character
-     * @param character the index of the character in the positions array
-     * @return true if the character can move right, false otherwise
-     */
-    private boolean canMoveRight(MapData currentMap, Block block, int character) {
-        if  (getPosition(character).col() == currentMap.cols() - 1 || block.wallRight()) {
-            return false;
-        }
-
-        var nextBlock = currentMap.blocks().
-                get(getPosition(character).moveRight().row()).
-                get(getPosition(character).moveRight().col());
-
-        return !nextBlock.wallLeft();
-    }
-
-    /**
-     * Checks if the {@code character} can move down.
-     * Characters are the player and the monster.
-     *
-     * @param currentMap the current map
-     * @param block the block of the character
-     * @param character the index of the character in the positions array
-     * @return true if the character can move down, false otherwise
-     */
-    private boolean canMoveDown(MapData currentMap, Block block, int character) {
-        if (getPosition(character).row() == currentMap.rows() - 1 || block.wallBottom()) {
-            return false;
-        }
-
-        var nextBlock = currentMap.blocks().
-                get(getPosition(character).moveDown().row()).
-                get(getPosition(character).moveDown().col());
-
-        return !nextBlock.wallTop();
-    }
-
-    /**
-     * Checks if the {@code character} can move left.
-     * Characters are the player and the monster.
-     *
-     * @param currentMap the current map
-     * @param block the block of the character
-     * @param character the index of the character in the positions array
-     * @return true if the character can move left, false otherwise
-     */
-    private boolean canMoveLeft(MapData currentMap, Block block, int character) {
-        if (getPosition(character).col() == 0 || block.wallLeft()) {
-            return false;
-        }
-
-        var nextBlock = currentMap.blocks().
-                get(getPosition(character).moveLeft().row()).
-                get(getPosition(character).moveLeft().col());
-
-        return !nextBlock.wallRight();
-    }
-
-    /**
-     * Checks if the monster can move in the given direction.
-     *
-     * @param direction the direction to move
-     * @return true if the monster can move in the given direction, false otherwise
-     */
-    private boolean isLegalMoveMonster(Direction direction) {
-        var currentMap = getCurrentMap();
-        var block = currentMap.blocks().
-                get(getPosition(MONSTER).row()).
-                get(getPosition(MONSTER).col());
-
-        return switch (direction) {
-            case UP -> canMoveUp(currentMap, block, MONSTER);
-            case RIGHT -> canMoveRight(currentMap, block, MONSTER);
-            case DOWN -> canMoveDown(currentMap, block, MONSTER);
-            case LEFT -> canMoveLeft(currentMap, block, MONSTER);
-        };
-    }
-
-    /**
-     * Moves the monster in the given direction.
-     *
-     * @param distance the distance to move
-     * @param positiveDir the direction to move in positive
-     * @param negativeDir the direction to move in negative
-     * @param stepsTaken the number of steps taken
-     * @return the number of steps taken
-     */
-    private int moveInDirection(int distance, Direction positiveDir, Direction negativeDir, int stepsTaken) {
-        if (distance == 0) return 0;
-
-        Direction direction = distance > 0 ? positiveDir : negativeDir;
-
-        int steps = 0;
-        for (var i = 0; i < Math.abs(distance) && stepsTaken + steps < 2; i++) {
-            if (isLegalMoveMonster(direction)) {
-                moveMonster(getPosition(MONSTER), direction);
-                steps++;
-            }
-        }
-
-        return steps;
-    }
-
-    /**
-     * Sets the position of the monster after moving.
-     *
-     * @param monsterPosition the current position of the monster
-     * @param direction the direction to move
-     */
-    private void moveMonster(Position monsterPosition, Direction direction) {
-        if (isLegalMoveMonster(direction)) {
-            monsterPosition = monsterPosition.move(direction);
-            positions[MONSTER].set(monsterPosition);
-            Logger.info("Monster moved to {}", positions[MONSTER].get());
-        }
-    }
-
-    /**
-     * Tries to move the monster towards the player.
-     */
-    private void tryToMoveMonster() {
-        Position playerPos = getPosition(PLAYER);
-        Position monsterPos = getPosition(MONSTER);
-
-        int distanceX = playerPos.col() - monsterPos.col();
-        int distanceY = playerPos.row() - monsterPos.row();
-
-        int stepsTaken = 0;
-
-        // Move horizontally first
-        stepsTaken += moveInDirection(distanceX, Direction.RIGHT, Direction.LEFT, stepsTaken);
-
-        // Move vertically if steps left
-        if (stepsTaken < 2) {
-            stepsTaken += moveInDirection(distanceY, Direction.DOWN, Direction.UP, stepsTaken);
-        }
-
-        // Move horizontally again if steps left
-        if (stepsTaken < 2 && distanceX != 0) {
-            moveInDirection(distanceX, Direction.RIGHT, Direction.LEFT, stepsTaken);
-        }
-    }
-
     /**
      * Returns the legal moves of the player.
      *
@@ -304,15 +164,25 @@ public class GameState implements State<Direction> {
      */
     @Override
     public Set<Direction> getLegalMoves() {
+        var mask = getLegalMovesMask();
         var legalMoves = EnumSet.noneOf(Direction.class);
         for (var direction : Direction.values()) {
-            if (isLegalMove(direction)) {
+            if ((mask & direction.getMask()) != 0) {
                 legalMoves.add(direction);
             }
         }
         return legalMoves;
     }
 
+    /**
+     * Returns the legal moves of the player as a mask of {@link Direction#getMask()} bits.
+     *
+     * @return the mask of the legal moves of the player
+     */
+    public int getLegalMovesMask() {
+        return engine.getLegalMoves();
+    }
+
     /**
      * Checks if the player can move in the given direction.
      *
@@ -321,21 +191,7 @@ public class GameState implements State<Direction> {
      */
     @Override
     public boolean isLegalMove(Direction direction) {
-        if (isSolved()) {
-            return false;
-        }
-
-        var currentMap = getCurrentMap();
-        var block = currentMap.blocks().
-                get(getPosition(PLAYER).row()).
-                get(getPosition(PLAYER).col());
-
-        return switch (direction) {
-            case UP -> canMoveUp(currentMap, block, PLAYER);
-            case RIGHT -> canMoveRight(currentMap, block, PLAYER);
-            case DOWN -> canMoveDown(currentMap, block, PLAYER);
-            case LEFT -> canMoveLeft(currentMap, block, PLAYER);
-        };
+        return engine.isLegalMove(direction);
     }
 
     /**
@@ -345,7 +201,7 @@ public class GameState implements State<Direction> {
      */
     @Override
     public boolean isSolved() {
-        return getPosition(PLAYER).equals(getPosition(END));
+        return engine.isSolved();
     }
 
     /**
@@ -355,19 +211,20 @@ public class GameState implements State<Direction> {
      */
     @Override
     public void makeMove(Direction direction) {
-        if (isLegalMove(direction)) {
-            positions[PLAYER].set(positions[PLAYER].get().move(direction));
-            Logger.info("Player moved to {}", positions[PLAYER].get());
+        var monster = engine.getMonster();
+        if (engine.makeMove(direction)) {
+            positions[PLAYER].set(engine.toPosition(engine.getPlayer()));
+            Logger.debug("Player moved to {}", positions[PLAYER].get());
+
+            if (engine.getMonster() != monster) {
+                positions[MONSTER].set(engine.toPosition(engine.getMonster()));
+                Logger.debug("Monster moved to {}", positions[MONSTER].get());
+            }
 
             if (isSolved()) {
                 Logger.info("Game solved");
-            } else {
-                tryToMoveMonster();
-
-                if (getPosition(PLAYER).equals(getPosition(MONSTER))) {
-                    Logger.info("Game over");
-                    //init();
-                }
+            } else if (engine.isCaught()) {
+                Logger.info("Game over");
             }
         }
     }
@@ -379,11 +236,7 @@ public class GameState implements State<Direction> {
      */
     @Override
     public GameState clone() {
-        var clone = new GameState(maps, mapIndex);
-        clone.positions[PLAYER].set(getPosition(PLAYER));
-        clone.positions[MONSTER].set(getPosition(MONSTER));
-        clone.positions[END].set(getPosition(END));
-        return clone;
+        return new GameState(maps, mapIndex, engine);
     }
 
     /**
@@ -0,0 +1,109 @@
+package mazegame.model;
+
+import mazegame.map.CompactGrid;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Represents the precomputed moves of the monster on a map.
+ * <p>
+ * The move of the monster depends only on the cell of the player and the
+ * cell of the monster, so for every pair the cell the monster moves to is
+ * stored in an {@code int[]} indexed by {@code player * cells + monster}, and
+ * a move of the monster is a single array read. The table needs
+ * {@code 4 * cells * cells} bytes, so it is only built for maps of at most
+ * {@value #MAX_CELLS} cells.
+ */
+public final class MonsterTable {
+
+    /**
+     * The largest number of cells of a map for which a table is built by {@link #forGrid(CompactGrid)}.
+     */
+    public static final int MAX_CELLS = 2048;
+
+    /**
+     * The tables of the maps in use, shared by the games on the same map.
+     */
+    private static final Map<CompactGrid, MonsterTable> TABLES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int size;
+
+    private final int[] next;
+
+    private MonsterTable(int size, int[] next) {
+        this.size = size;
+        this.next = next;
+    }
+
+    /**
+     * Builds the table of the map specified, computing the rows of the players in parallel.
+     *
+     * @param grid the packed blocks of the map
+     * @return the table of the map
+     * @throws IllegalArgumentException if the map has more than {@value #MAX_CELLS} cells
+     */
+    public static MonsterTable build(CompactGrid grid) {
+        var size = grid.size();
+        if (size > MAX_CELLS) {
+            throw new IllegalArgumentException("The map is too large for a monster table");
+        }
+        var next = new int[size * size];
+        IntStream.range(0, size).parallel().forEach(player -> {
+            var offset = player * size;
+            for (var monster = 0; monster < size; monster++) {
+                next[offset + monster] = GameEngine.chase(grid, player, monster);
+            }
+        });
+        return new MonsterTable(size, next);
+    }
+
+    /**
+     * Returns the table of the map specified, which is built the first time it
+     * is requested and shared while the grid is in use.
+     *
+     * @param grid the packed blocks of the map
+     * @return the table of the map, or an empty optional if the map has more than {@value #MAX_CELLS} cells
+     */
+    public static Optional<MonsterTable> forGrid(CompactGrid grid) {
+        if (grid.size() > MAX_CELLS) {
+            return Optional.empty();
+        }
+        var table = TABLES.get(grid);
+        if (table == null) {
+            table = build(grid);
+            var existing = TABLES.putIfAbsent(grid, table);
+            if (existing != null) {
+                table = existing;
+            }
+        }
+        return Optional.of(table);
+    }
+
+    /**
+     * {@return the number of cells of the map}
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the cell the monster moves to.
+     *
+     * @param player the cell index of the player
+     * @param monster the cell index of the monster
+     * @return the cell index of the monster after its move
+     */
+    public int next(int player, int monster) {
+        return next[player * size + monster];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MonsterTable{cells=%d}", size);
+    }
+
+}
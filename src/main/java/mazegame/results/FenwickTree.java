@@ -0,0 +1,143 @@
+package mazegame.results;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Represents a multiset of non-negative integers as a Fenwick tree of their
+ * counts, which counts the elements below a value and finds the element of
+ * a rank in {@code O(log m)} time, where {@code m} is the largest element.
+ * <p>
+ * The size of the tree is a power of two and doubles when a larger element
+ * is added. Doubling only needs the new root, which is the old total, as
+ * every other new node covers a range of new values only.
+ */
+final class FenwickTree {
+
+    /**
+     * The nodes, 1-based: node {@code i} holds the count of the values in
+     * {@code [i - lowestOneBit(i), i)}.
+     */
+    /**
+     * The largest number of values, which keeps the number of nodes an array length.
+     */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] tree = new long[2];
+
+    private long size;
+
+    /**
+     * Adds an occurrence of a value.
+     *
+     * @param value the value
+     * @throws IllegalArgumentException if the value is negative, or too large for the nodes of an array
+     */
+    void add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("The value must not be negative");
+        }
+        if (value >= MAX_CAPACITY) {
+            throw new IllegalArgumentException("The value must be less than " + MAX_CAPACITY);
+        }
+        while (value >= capacity()) {
+            var capacity = capacity();
+            tree = Arrays.copyOf(tree, 2 * capacity + 1);
+            tree[2 * capacity] = tree[capacity];
+        }
+        for (var i = value + 1; i < tree.length; i += i & -i) {
+            tree[i]++;
+        }
+        size++;
+    }
+
+    /**
+     * {@return the number of elements less than the value specified}
+     *
+     * @param value the value
+     */
+    long countBelow(int value) {
+        var count = 0L;
+        for (var i = Math.min(Math.max(value, 0), capacity()); i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    /**
+     * Returns the element of a rank, where the smallest element has rank 1.
+     *
+     * @param rank the rank
+     * @return the element
+     * @throws IllegalArgumentException if the rank is not between 1 and the number of elements
+     */
+    int select(long rank) {
+        if (rank < 1 || rank > size) {
+            throw new IllegalArgumentException("The rank must be between 1 and " + size);
+        }
+        var position = 0;
+        for (var step = capacity(); step > 0; step >>= 1) {
+            if (tree[position + step] < rank) {
+                position += step;
+                rank -= tree[position];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * {@return the number of elements}
+     */
+    long size() {
+        return size;
+    }
+
+    private int capacity() {
+        return tree.length - 1;
+    }
+
+    /**
+     * Writes the tree: the number of nodes, the nodes and the number of elements.
+     *
+     * @param out the output
+     * @throws IOException if an I/O error occurs
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(tree.length);
+        for (var node : tree) {
+            out.writeLong(node);
+        }
+        out.writeLong(size);
+    }
+
+    /**
+     * Reads a tree written by {@link #write(DataOutput)}.
+     *
+     * @param in the input
+     * @param maxValue the largest value the tree may hold
+     * @return the tree
+     * @throws IOException if the tree cannot be read or is invalid
+     */
+    static FenwickTree read(DataInput in, int maxValue) throws IOException {
+        var length = in.readInt();
+        if (length < 2 || Integer.bitCount(length - 1) != 1 || length - 1 > Integer.highestOneBit(maxValue) << 1) {
+            throw new IOException("Invalid number of nodes: " + length);
+        }
+        var fenwickTree = new FenwickTree();
+        fenwickTree.tree = new long[length];
+        for (var i = 0; i < length; i++) {
+            fenwickTree.tree[i] = in.readLong();
+            if (fenwickTree.tree[i] < 0) {
+                throw new IOException("Invalid count of node " + i);
+            }
+        }
+        fenwickTree.size = in.readLong();
+        if (fenwickTree.tree[fenwickTree.capacity()] != fenwickTree.size) {
+            throw new IOException("The counts of the tree do not match its size");
+        }
+        return fenwickTree;
+    }
+
+}
@@ -0,0 +1,439 @@
+package mazegame.results;
+
+import gameresult.OnePlayerGameResult;
+import org.tinylog.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Represents the best results of every ranking, kept up to date as results are added.
+ * <p>
+ * A ranking orders the results of a map, or of all maps, by a
+ * {@link Criterion}, either among all games or among the solved games only.
+ * The index keeps the best {@link #getCapacity()} results of every ranking
+ * in a small file of its own in the index directory, one result per line as
+ * in the {@link ResultStore}. Adding a result only rewrites the files of the
+ * rankings it enters, and reading a ranking only reads its file, so neither
+ * depends on the length of the history.
+ * <p>
+ * The index also records how many results of the store it contains, so a
+ * result whose rankings could not be written, or were not written before a
+ * crash, is added again by {@link #recover(ResultStore)}. A result that a
+ * ranking already contains is not added to it again. The results committed
+ * together are added together by {@link #add(List)}, which writes every
+ * ranking they enter and the number of results once. The rankings are
+ * forced to the disk before the number is written, and the number is not
+ * forced, as the results it misses after a crash are added again.
+ */
+public final class LeaderboardIndex {
+
+    /**
+     * The map id of the rankings of all maps.
+     */
+    public static final int ALL_MAPS = -1;
+
+    /**
+     * The default number of results kept per ranking.
+     */
+    public static final int DEFAULT_CAPACITY = 100;
+
+    /**
+     * The name of the file holding the number of results of the store the index contains.
+     */
+    private static final String COUNT_FILE = "results.count";
+
+    private final Path directory;
+
+    private final int capacity;
+
+    /**
+     * The rankings read so far.
+     */
+    private final Map<Ranking, List<MapResult>> rankings = new HashMap<>();
+
+    /**
+     * The number of results of the store the index contains.
+     */
+    private long resultCount;
+
+    /**
+     * Whether a result has not been written, so the results added after it
+     * must not be counted until the index is recovered.
+     */
+    private boolean incomplete;
+
+    private LeaderboardIndex(Path directory, int capacity, long resultCount) {
+        this.directory = directory;
+        this.capacity = capacity;
+        this.resultCount = resultCount;
+    }
+
+    /**
+     * Represents an order of the results, where better results come first.
+     * Ties are broken by the other criterion, then by the order the results were added.
+     */
+    public enum Criterion {
+
+        /**
+         * Fewer moves first.
+         */
+        MOVES(Comparator.comparingInt((OnePlayerGameResult result) -> result.getNumberOfMoves())
+                .thenComparing(OnePlayerGameResult::getDuration, Comparator.nullsLast(Comparator.naturalOrder()))),
+
+        /**
+         * Shorter games first.
+         */
+        DURATION(Comparator.comparing(OnePlayerGameResult::getDuration, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingInt(OnePlayerGameResult::getNumberOfMoves));
+
+        private final Comparator<MapResult> order;
+
+        Criterion(Comparator<OnePlayerGameResult> order) {
+            this.order = Comparator.comparing(MapResult::result, order);
+        }
+
+    }
+
+    /**
+     * Represents a ranking of the index.
+     *
+     * @param mapId the id of the map, or {@value #ALL_MAPS} for all maps
+     * @param criterion the order of the results
+     * @param solvedOnly whether only solved games are ranked
+     */
+    public record Ranking(int mapId, Criterion criterion, boolean solvedOnly) {
+
+        private String fileName() {
+            return "%s-%s-%s.jsonl".formatted(mapId == ALL_MAPS ? "all" : "map" + mapId,
+                    criterion.name().toLowerCase(), solvedOnly ? "solved" : "all");
+        }
+
+    }
+
+    /**
+     * Opens the index in the directory specified, creating it if it does not
+     * exist, with the default capacity.
+     *
+     * @param directory the directory of the index
+     * @return the index
+     * @throws IOException if the directory cannot be created
+     */
+    public static LeaderboardIndex open(Path directory) throws IOException {
+        return open(directory, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opens the index in the directory specified, creating it if it does not exist.
+     *
+     * @param directory the directory of the index
+     * @param capacity the number of results kept per ranking
+     * @return the index
+     * @throws IOException if the directory cannot be created, or the number of results cannot be read
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public static LeaderboardIndex open(Path directory, int capacity) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        Files.createDirectories(directory);
+        var resultCount = 0L;
+        try {
+            resultCount = Long.parseLong(Files.readString(directory.resolve(COUNT_FILE)).strip());
+        } catch (NoSuchFileException e) {
+            // The index has not counted its results yet, they are all added again
+        } catch (NumberFormatException e) {
+            Logger.warn("Ignoring the invalid number of results of the index in {}", directory);
+        }
+        return new LeaderboardIndex(directory, capacity, resultCount);
+    }
+
+    /**
+     * Adds the next result of the store to the rankings it belongs to, and
+     * writes the rankings it enters and the number of results.
+     *
+     * @param result the result
+     * @throws IOException if a ranking cannot be read or written
+     * @see #add(List)
+     */
+    public void add(MapResult result) throws IOException {
+        add(List.of(result));
+    }
+
+    /**
+     * Adds the next results of the store to the rankings they belong to, and
+     * writes the rankings they enter and the number of results once.
+     * <p>
+     * If a ranking cannot be written, the results added afterwards are not
+     * counted either, so that they are added again with the failed ones by
+     * {@link #recover(ResultStore)}.
+     *
+     * @param results the results in the order of the store
+     * @throws IOException if a ranking cannot be read or written
+     */
+    public synchronized void add(List<MapResult> results) throws IOException {
+        Set<Ranking> changed = new HashSet<>();
+        try {
+            for (var result : results) {
+                for (var ranking : rankingsOf(result)) {
+                    if (insert(load(ranking), ranking.criterion(), result)) {
+                        changed.add(ranking);
+                    }
+                }
+            }
+            for (var ranking : changed) {
+                write(ranking);
+            }
+        } catch (IOException e) {
+            incomplete = true;
+            throw e;
+        }
+        if (!incomplete) {
+            resultCount += results.size();
+            writeResultCount();
+        }
+    }
+
+    /**
+     * Adds the results of the store the index does not contain yet, which
+     * are the results added since it was last written completely.
+     *
+     * @param store the store of the results
+     * @throws IOException if the store cannot be read or a ranking cannot be written
+     */
+    public synchronized void recover(ResultStore store) throws IOException {
+        Set<Ranking> changed = new HashSet<>();
+        long added;
+        try {
+            added = store.forEach(resultCount, result -> {
+                for (var ranking : rankingsOf(result)) {
+                    try {
+                        if (insert(load(ranking), ranking.criterion(), result)) {
+                            changed.add(ranking);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (var ranking : changed) {
+            write(ranking);
+        }
+        resultCount += added;
+        incomplete = false;
+        writeResultCount();
+        if (added > 0) {
+            Logger.info("Ranked {} results added since the index of {} results", added, resultCount - added);
+        }
+    }
+
+    /**
+     * Returns the best results of a ranking.
+     *
+     * @param ranking the ranking
+     * @param limit the maximum number of results, at most the capacity is returned
+     * @return the results, best first
+     * @throws IOException if the ranking cannot be read
+     */
+    public synchronized List<MapResult> top(Ranking ranking, int limit) throws IOException {
+        var results = load(ranking);
+        return List.copyOf(results.subList(0, Math.min(Math.max(0, limit), results.size())));
+    }
+
+    /**
+     * Reads the results of every ranking from the files of the index. A
+     * result is read once for every ranking it is in.
+     *
+     * @param action the action to perform on each result
+     * @return the number of results read
+     * @throws IOException if a ranking cannot be read
+     */
+    public synchronized long forEach(Consumer<? super MapResult> action) throws IOException {
+        var count = 0L;
+        try (var files = Files.list(directory)) {
+            for (var file : (Iterable<Path>) files.sorted()::iterator) {
+                if (file.getFileName().toString().endsWith(".jsonl")) {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        count += ResultCodec.decode(in, action);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Replaces the rankings with the best results of the store specified,
+     * which are read once.
+     *
+     * @param store the store of the results
+     * @throws IOException if the store cannot be read or a ranking cannot be written
+     */
+    public synchronized void rebuild(ResultStore store) throws IOException {
+        Files.deleteIfExists(directory.resolve(COUNT_FILE));
+        try (var files = Files.list(directory)) {
+            for (var file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().endsWith(".jsonl")) {
+                    Files.delete(file);
+                }
+            }
+        }
+        rankings.clear();
+        Set<Ranking> changed = new HashSet<>();
+        var count = new long[1];
+        store.forEach(result -> {
+            for (var ranking : rankingsOf(result)) {
+                var results = rankings.computeIfAbsent(ranking, key -> new ArrayList<>(capacity + 1));
+                if (insert(results, ranking.criterion(), result)) {
+                    changed.add(ranking);
+                }
+            }
+            count[0]++;
+        });
+        for (var ranking : changed) {
+            write(ranking);
+        }
+        resultCount = count[0];
+        incomplete = false;
+        writeResultCount();
+        Logger.info("Rebuilt {} rankings from {} results", changed.size(), count[0]);
+    }
+
+    /**
+     * {@return the number of results of the store the index contains}
+     */
+    public synchronized long getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * {@return the number of results kept per ranking}
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * {@return the rankings a result belongs to}
+     */
+    private static List<Ranking> rankingsOf(MapResult result) {
+        var rankings = new ArrayList<Ranking>(8);
+        for (var mapId : new int[] {result.mapId(), ALL_MAPS}) {
+            for (var criterion : Criterion.values()) {
+                rankings.add(new Ranking(mapId, criterion, false));
+                if (result.result().isSolved()) {
+                    rankings.add(new Ranking(mapId, criterion, true));
+                }
+            }
+        }
+        return rankings;
+    }
+
+    /**
+     * Inserts a result into a ranking after the results that are not worse,
+     * and drops the results beyond the capacity. A result equal to one of the
+     * ranking is not inserted again.
+     *
+     * @return true if the result has entered the ranking, false otherwise
+     */
+    private boolean insert(List<MapResult> results, Criterion criterion, MapResult result) {
+        var order = criterion.order;
+        var low = 0;
+        var high = results.size();
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            if (order.compare(results.get(middle), result) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (low >= capacity) {
+            return false;
+        }
+        for (var i = low - 1; i >= 0 && order.compare(results.get(i), result) == 0; i--) {
+            if (results.get(i).equals(result)) {
+                return false;
+            }
+        }
+        results.add(low, result);
+        if (results.size() > capacity) {
+            results.removeLast();
+        }
+        return true;
+    }
+
+    private List<MapResult> load(Ranking ranking) throws IOException {
+        var results = rankings.get(ranking);
+        if (results == null) {
+            results = new ArrayList<>(capacity + 1);
+            try (InputStream in = Files.newInputStream(directory.resolve(ranking.fileName()))) {
+                ResultCodec.decode(in, results::add);
+            } catch (NoSuchFileException e) {
+                // The ranking is empty
+            }
+            rankings.put(ranking, results);
+        }
+        return results;
+    }
+
+    private void write(Ranking ranking) throws IOException {
+        var out = new ByteArrayOutputStream();
+        for (var result : rankings.get(ranking)) {
+            out.write(ResultCodec.encode(result));
+        }
+        replace(ranking.fileName(), out.toByteArray(), true);
+    }
+
+    private void writeResultCount() throws IOException {
+        replace(COUNT_FILE, (resultCount + "\n").getBytes(StandardCharsets.US_ASCII), false);
+    }
+
+    /**
+     * Replaces a file of the index atomically, forcing the new content to the
+     * disk first if specified. The rankings are forced, so that the number of
+     * results never counts a result the rankings have lost in a crash.
+     */
+    private void replace(String fileName, byte[] bytes, boolean force) throws IOException {
+        var file = directory.resolve(fileName);
+        var temporary = directory.resolve(fileName + ".tmp");
+        try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (force) {
+                channel.force(false);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LeaderboardIndex{directory=%s, capacity=%d}", directory, capacity);
+    }
+
+}
@@ -0,0 +1,73 @@
+package mazegame.results;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Set;
+
+public class Main {
+
+    /**
+     * Prints the statistics of every map from a checkpoint of the aggregates,
+     * without reading the results.
+     * <p>
+     * Usage: {@code Main [--map ID] [--streaks N] CHECKPOINT}
+     *
+     * @param args the command line arguments
+     * @throws IOException if the checkpoint cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Integer mapId = null;
+        var streaks = 5;
+        Path checkpoint = null;
+        for (var i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--map" -> mapId = Integer.parseInt(args[++i]);
+                case "--streaks" -> streaks = Integer.parseInt(args[++i]);
+                default -> checkpoint = Path.of(args[i]);
+            }
+        }
+        if (checkpoint == null) {
+            System.err.println("Usage: Main [--map ID] [--streaks N] CHECKPOINT");
+            System.exit(2);
+        }
+
+        var aggregates = ResultAggregates.load(checkpoint);
+        var now = Instant.now();
+        var window = aggregates.getBucketSize().multipliedBy(aggregates.getWindowBuckets());
+        var mapIds = mapId == null ? aggregates.getMapIds() : Set.of(mapId);
+        System.out.printf("%d results%n", aggregates.getResultCount());
+        for (var id : mapIds) {
+            System.out.printf("%nMap %d%n", id);
+            print("All time", aggregates.getAllTime(id));
+            print("Last " + format(window), aggregates.getWindow(id, now));
+            for (var streak : aggregates.getLongestStreaks(id, streaks)) {
+                System.out.printf("  %-20s best streak %d, current %d%n",
+                        streak.playerName(), streak.best(), streak.current());
+            }
+        }
+        if (mapId == null) {
+            System.out.printf("%nAll maps%n");
+            print("All time", aggregates.getAllTime(ResultAggregates.ALL_MAPS));
+            print("Last " + format(window), aggregates.getWindow(ResultAggregates.ALL_MAPS, now));
+        }
+    }
+
+    private static void print(String title, ResultStats stats) {
+        System.out.printf(Locale.ENGLISH, "  %s: %d games, %.1f%% solved", title, stats.getCount(),
+                stats.getCount() == 0 ? 0 : 100 * stats.getSolveRate());
+        if (stats.getSolved() > 0) {
+            System.out.printf(Locale.ENGLISH, ", moves mean %.1f, median %.0f, p90 %.0f, duration median %s, p90 %s",
+                    stats.getMeanMoves(), stats.getMovesQuantile(0.5), stats.getMovesQuantile(0.9),
+                    format(stats.getDurationQuantile(0.5)), format(stats.getDurationQuantile(0.9)));
+        }
+        System.out.println();
+    }
+
+    private static String format(Duration duration) {
+        return duration.toString().substring(2).toLowerCase();
+    }
+
+}
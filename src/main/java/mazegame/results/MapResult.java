@@ -0,0 +1,47 @@
+package mazegame.results;
+
+import gameresult.OnePlayerGameResult;
+
+import java.util.Objects;
+
+/**
+ * Represents the result of a game together with the map it was played on,
+ * and the record of the game in the move journal.
+ *
+ * @param mapId the id of the map, {@value #UNKNOWN_MAP} if the map is not known
+ * @param journalOffset the offset of the game in the move journal, {@value #UNRECORDED} if the game is not in it
+ * @param result the result of the game
+ */
+public record MapResult(int mapId, long journalOffset, OnePlayerGameResult result) {
+
+    /**
+     * The map id of the results saved before the map was recorded.
+     */
+    public static final int UNKNOWN_MAP = 0;
+
+    /**
+     * The journal offset of the results whose game has not been written to the move journal.
+     */
+    public static final long UNRECORDED = -1;
+
+    /**
+     * Constructs a new result.
+     *
+     * @throws NullPointerException if the result is null
+     */
+    public MapResult {
+        Objects.requireNonNull(result);
+    }
+
+    /**
+     * Constructs a new result of a game that is not in the move journal.
+     *
+     * @param mapId the id of the map, {@value #UNKNOWN_MAP} if the map is not known
+     * @param result the result of the game
+     * @throws NullPointerException if the result is null
+     */
+    public MapResult(int mapId, OnePlayerGameResult result) {
+        this(mapId, UNRECORDED, result);
+    }
+
+}
@@ -0,0 +1,219 @@
+package mazegame.results;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Represents the distribution of non-negative values in logarithmic
+ * buckets, which answers quantile queries with a bounded relative error.
+ * <p>
+ * A positive value {@code v} is counted in the bucket
+ * {@code ceil(log(v) / log(gamma))}, where
+ * {@code gamma = (1 + a) / (1 - a)} for the relative accuracy {@code a}, and
+ * every value of a bucket is estimated by the same value, which is within
+ * {@code a} of all of them. The number of buckets only grows with the
+ * logarithm of the range of the values, and two sketches of the same
+ * accuracy are merged by adding their counts, so the sketches of time
+ * windows or maps can be combined without the values.
+ */
+public final class QuantileSketch {
+
+    /**
+     * The default relative accuracy.
+     */
+    public static final double DEFAULT_ACCURACY = 0.01;
+
+    private final double accuracy;
+
+    private final double logGamma;
+
+    /**
+     * The number of values too small to have a bucket, estimated as 0.
+     */
+    private long zeroCount;
+
+    /**
+     * The counts of the buckets from {@link #offset} up.
+     */
+    private long[] counts = new long[0];
+
+    private int offset;
+
+    private long count;
+
+    /**
+     * Constructs a new empty sketch with the default accuracy.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_ACCURACY);
+    }
+
+    /**
+     * Constructs a new empty sketch.
+     *
+     * @param accuracy the relative accuracy of the quantiles
+     * @throws IllegalArgumentException if the accuracy is not between 0 and 1, exclusive
+     */
+    public QuantileSketch(double accuracy) {
+        if (!(accuracy > 0 && accuracy < 1)) {
+            throw new IllegalArgumentException("The accuracy must be between 0 and 1");
+        }
+        this.accuracy = accuracy;
+        this.logGamma = Math.log((1 + accuracy) / (1 - accuracy));
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value
+     * @throws IllegalArgumentException if the value is negative or not a number
+     */
+    public void add(double value) {
+        if (!(value >= 0)) {
+            throw new IllegalArgumentException("The value must not be negative");
+        }
+        if (value < Double.MIN_NORMAL) {
+            zeroCount++;
+        } else {
+            var key = (int) Math.ceil(Math.log(value) / logGamma);
+            grow(key, key);
+            counts[key - offset]++;
+        }
+        count++;
+    }
+
+    /**
+     * Adds the values of another sketch.
+     *
+     * @param other the other sketch
+     * @throws IllegalArgumentException if the sketches have different accuracies
+     */
+    public void merge(QuantileSketch other) {
+        if (other.accuracy != accuracy) {
+            throw new IllegalArgumentException("The sketches have different accuracies");
+        }
+        if (other.counts.length > 0) {
+            grow(other.offset, other.offset + other.counts.length - 1);
+            for (var i = 0; i < other.counts.length; i++) {
+                counts[other.offset - offset + i] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    /**
+     * Makes room for the buckets from the first key to the last key specified.
+     */
+    private void grow(int first, int last) {
+        if (counts.length == 0) {
+            counts = new long[last - first + 1];
+            offset = first;
+        } else if (first < offset || last >= offset + counts.length) {
+            var newOffset = Math.min(first, offset);
+            var grown = new long[Math.max(last, offset + counts.length - 1) - newOffset + 1];
+            System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+            counts = grown;
+            offset = newOffset;
+        }
+    }
+
+    /**
+     * Returns an estimate of a quantile of the values.
+     *
+     * @param quantile the quantile, 0.5 for the median
+     * @return the estimate within the relative accuracy, or {@link Double#NaN} if the sketch is empty
+     * @throws IllegalArgumentException if the quantile is not between 0 and 1
+     */
+    public double quantile(double quantile) {
+        if (!(quantile >= 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("The quantile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        var rank = (long) (quantile * (count - 1));
+        if (rank < zeroCount) {
+            return 0;
+        }
+        var seen = zeroCount;
+        for (var i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return 2 * Math.exp((offset + i) * logGamma) / (1 + Math.exp(logGamma));
+            }
+        }
+        throw new IllegalStateException("The counts do not add up");
+    }
+
+    /**
+     * {@return the number of values}
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * {@return the relative accuracy of the quantiles}
+     */
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    /**
+     * Writes the sketch, with the non-empty buckets only.
+     *
+     * @param out the output
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeDouble(accuracy);
+        out.writeLong(zeroCount);
+        var buckets = (int) Arrays.stream(counts).filter(bucket -> bucket > 0).count();
+        out.writeInt(buckets);
+        for (var i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                out.writeInt(offset + i);
+                out.writeLong(counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a sketch written by {@link #write(DataOutput)}.
+     *
+     * @param in the input
+     * @return the sketch
+     * @throws IOException if an I/O error occurs, or the input is not a sketch
+     */
+    public static QuantileSketch read(DataInput in) throws IOException {
+        QuantileSketch sketch;
+        try {
+            sketch = new QuantileSketch(in.readDouble());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid sketch", e);
+        }
+        sketch.zeroCount = in.readLong();
+        sketch.count = sketch.zeroCount;
+        var buckets = in.readInt();
+        for (var i = 0; i < buckets; i++) {
+            var key = in.readInt();
+            var bucket = in.readLong();
+            if (bucket <= 0) {
+                throw new IOException("Invalid sketch bucket: " + bucket);
+            }
+            sketch.grow(key, key);
+            sketch.counts[key - sketch.offset] += bucket;
+            sketch.count += bucket;
+        }
+        return sketch;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QuantileSketch{accuracy=%s, count=%d, buckets=%d}", accuracy, count, counts.length);
+    }
+
+}
@@ -0,0 +1,330 @@
+package mazegame.results;
+
+import org.tinylog.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.zip.CRC32;
+
+/**
+ * Represents the number of moves of every solved game by map, for rank,
+ * percentile and range queries.
+ * <p>
+ * The numbers of moves of a map are counted in a {@link FenwickTree}, so
+ * adding a result and every query take {@code O(log m)} time, where
+ * {@code m} is the largest number of moves, no matter how many results there
+ * are. Numbers of moves up to {@value #EXACT_MOVES} are counted exactly, and
+ * larger ones in buckets of 1/1024 of their power of two, so a result with
+ * any number of moves takes a tree of at most {@value #MAX_KEY} counts, and
+ * the results within a bucket share a rank. Solved games with a negative
+ * number of moves are not ranked. The index lives in memory and is kept up
+ * to date as results arrive.
+ * It is saved as a checkpoint file together with the number of results it
+ * contains, so after a restart only the results added since the checkpoint
+ * are read from the {@link ResultStore}. Fewer moves rank better, and
+ * results with the same number of moves share a rank.
+ */
+public final class RankIndex {
+
+    /**
+     * The map id of the counts of all maps.
+     */
+    public static final int ALL_MAPS = LeaderboardIndex.ALL_MAPS;
+
+    private static final int MAGIC = 0x4d5a524b; // "MZRK"
+
+    private static final int VERSION = 2;
+
+    /**
+     * The number of bits of the numbers of moves that are counted exactly.
+     */
+    private static final int EXACT_BITS = 14;
+
+    /**
+     * The number of moves below which the moves are counted exactly.
+     */
+    private static final int EXACT_MOVES = 1 << EXACT_BITS;
+
+    /**
+     * The number of bits of a larger number of moves kept below its highest bit.
+     */
+    private static final int BUCKET_BITS = 10;
+
+    /**
+     * The key of the largest number of moves.
+     */
+    private static final int MAX_KEY = EXACT_MOVES + ((Integer.SIZE - 1 - EXACT_BITS) << BUCKET_BITS) - 1;
+
+    private final Map<Integer, FenwickTree> trees = new HashMap<>();
+
+    /**
+     * The number of results added, solved or not.
+     */
+    private long resultCount;
+
+    /**
+     * Represents the standing of a result among the results of a map.
+     *
+     * @param rank the rank of the result, 1 for the fewest moves
+     * @param total the number of results ranked
+     */
+    public record Standing(long rank, long total) {
+
+        /**
+         * {@return the smallest whole percentage of the best results that
+         * contains the result, at least 1}
+         */
+        public int topPercent() {
+            return (int) Math.max(1, Math.ceilDiv(100 * rank, total));
+        }
+
+    }
+
+    /**
+     * Builds the index of every result of the store.
+     *
+     * @param store the store of the results
+     * @return the index
+     * @throws IOException if the store cannot be read
+     */
+    public static RankIndex build(ResultStore store) throws IOException {
+        var started = System.nanoTime();
+        var index = new RankIndex();
+        var count = store.forEach(index::add);
+        Logger.info("Ranked {} results in {} ms", count, (System.nanoTime() - started) / 1_000_000);
+        return index;
+    }
+
+    /**
+     * Loads the index of a checkpoint, or starts an empty index if there is
+     * no usable checkpoint, and adds the results of the store that the
+     * checkpoint does not contain.
+     *
+     * @param checkpoint the path of the checkpoint
+     * @param store the store of the results
+     * @return the index of every result of the store
+     * @throws IOException if the store cannot be read
+     */
+    public static RankIndex recover(Path checkpoint, ResultStore store) throws IOException {
+        RankIndex index;
+        try {
+            index = load(checkpoint);
+        } catch (NoSuchFileException e) {
+            index = new RankIndex();
+        } catch (IOException e) {
+            Logger.warn("Ignoring the checkpoint {}: {}", checkpoint, e.getMessage());
+            index = new RankIndex();
+        }
+        var skipped = index.getResultCount();
+        var added = store.forEach(skipped, index::add);
+        if (added > 0) {
+            Logger.info("Ranked {} results added since the checkpoint of {} results", added, skipped);
+        }
+        return index;
+    }
+
+    /**
+     * Writes the index to a checkpoint file, which is replaced atomically.
+     * <p>
+     * All numbers are big-endian. The file holds the magic {@code "MZRK"},
+     * the version, the number of results and the trees of the maps, followed
+     * by the CRC-32 of everything before it.
+     *
+     * @param path the path of the checkpoint
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void save(Path path) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        synchronized (this) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(resultCount);
+            out.writeInt(trees.size());
+            for (var entry : trees.entrySet()) {
+                out.writeInt(entry.getKey());
+                entry.getValue().write(out);
+            }
+        }
+        var crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (var file = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+            bytes.writeTo(file);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the index of a checkpoint file.
+     *
+     * @param path the path of the checkpoint
+     * @return the index
+     * @throws NoSuchFileException if the file does not exist
+     * @throws IOException if the file cannot be read, or it is not a valid checkpoint
+     */
+    public static RankIndex load(Path path) throws IOException {
+        byte[] bytes;
+        try (var in = new BufferedInputStream(Files.newInputStream(path))) {
+            bytes = in.readAllBytes();
+        }
+        if (bytes.length < 4) {
+            throw new IOException("Truncated checkpoint: " + path);
+        }
+        var crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        var in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+            throw new IOException("Not a checkpoint of version " + VERSION + ": " + path);
+        }
+        var stored = new DataInputStream(new ByteArrayInputStream(bytes, bytes.length - 4, 4)).readInt();
+        if (stored != (int) crc.getValue()) {
+            throw new IOException("Damaged checkpoint: " + path);
+        }
+        var index = new RankIndex();
+        index.resultCount = in.readLong();
+        var treeCount = in.readInt();
+        for (var i = 0; i < treeCount; i++) {
+            index.trees.put(in.readInt(), FenwickTree.read(in, MAX_KEY));
+        }
+        return index;
+    }
+
+    /**
+     * Adds a result to the index. Only solved games are ranked, but every
+     * result is counted in {@link #getResultCount()}.
+     *
+     * @param result the result
+     */
+    public synchronized void add(MapResult result) {
+        resultCount++;
+        var moves = result.result().getNumberOfMoves();
+        if (result.result().isSolved() && moves >= 0) {
+            trees.computeIfAbsent(result.mapId(), mapId -> new FenwickTree()).add(key(moves));
+            trees.computeIfAbsent(ALL_MAPS, mapId -> new FenwickTree()).add(key(moves));
+        }
+    }
+
+    /**
+     * {@return the key of a number of moves in the trees}, which keeps the
+     * order of the numbers of moves. A negative number is its own key.
+     *
+     * @param moves the number of moves
+     */
+    static int key(int moves) {
+        if (moves < EXACT_MOVES) {
+            return moves;
+        }
+        var exponent = 31 - Integer.numberOfLeadingZeros(moves);
+        var bucket = (moves >>> (exponent - BUCKET_BITS)) & ((1 << BUCKET_BITS) - 1);
+        return EXACT_MOVES + ((exponent - EXACT_BITS) << BUCKET_BITS) + bucket;
+    }
+
+    /**
+     * {@return the smallest number of moves of a key}
+     *
+     * @param key the key
+     */
+    static int moves(int key) {
+        if (key < EXACT_MOVES) {
+            return key;
+        }
+        var exponent = EXACT_BITS + ((key - EXACT_MOVES) >>> BUCKET_BITS);
+        var bucket = (key - EXACT_MOVES) & ((1 << BUCKET_BITS) - 1);
+        return (1 << exponent) | (bucket << (exponent - BUCKET_BITS));
+    }
+
+    /**
+     * {@return the number of results added, solved or not}
+     */
+    public synchronized long getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * {@return the number of solved games of a map}
+     *
+     * @param mapId the id of the map, or {@value #ALL_MAPS} for all maps
+     */
+    public synchronized long count(int mapId) {
+        var tree = trees.get(mapId);
+        return tree == null ? 0 : tree.size();
+    }
+
+    /**
+     * Returns the number of solved games of a map with a number of moves in a range.
+     *
+     * @param mapId the id of the map, or {@value #ALL_MAPS} for all maps
+     * @param minMoves the smallest number of moves, inclusive
+     * @param maxMoves the largest number of moves, inclusive
+     * @return the number of games
+     */
+    public synchronized long countBetween(int mapId, int minMoves, int maxMoves) {
+        var tree = trees.get(mapId);
+        if (tree == null || minMoves > maxMoves) {
+            return 0;
+        }
+        return tree.countBelow(key(maxMoves) + 1) - tree.countBelow(key(minMoves));
+    }
+
+    /**
+     * Returns the rank of a number of moves among the solved games of a map,
+     * which is one more than the number of games with fewer moves.
+     *
+     * @param mapId the id of the map, or {@value #ALL_MAPS} for all maps
+     * @param moves the number of moves
+     * @return the rank
+     */
+    public synchronized long rank(int mapId, int moves) {
+        var tree = trees.get(mapId);
+        return 1 + (tree == null ? 0 : tree.countBelow(key(moves)));
+    }
+
+    /**
+     * Returns the standing a new solved game would have among the solved
+     * games of a map, counting the new game too.
+     *
+     * @param mapId the id of the map, or {@value #ALL_MAPS} for all maps
+     * @param moves the number of moves of the new game
+     * @return the standing
+     */
+    public synchronized Standing standing(int mapId, int moves) {
+        return new Standing(rank(mapId, moves), count(mapId) + 1);
+    }
+
+    /**
+     * Returns the number of moves of the solved game of a rank, which is the
+     * smallest number of moves of its bucket above {@value #EXACT_MOVES} moves.
+     *
+     * @param mapId the id of the map, or {@value #ALL_MAPS} for all maps
+     * @param rank the rank, 1 for the fewest moves
+     * @return the number of moves, or an empty optional if there are fewer games than the rank
+     */
+    public synchronized OptionalInt movesAt(int mapId, long rank) {
+        var tree = trees.get(mapId);
+        if (tree == null || rank < 1 || rank > tree.size()) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of(moves(tree.select(rank)));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("RankIndex{maps=%d, results=%d}", trees.size() - (trees.containsKey(ALL_MAPS) ? 1 : 0),
+                count(ALL_MAPS));
+    }
+
+}
@@ -0,0 +1,386 @@
+package mazegame.results;
+
+import org.tinylog.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * Represents statistics of the results by map, updated as each result arrives.
+ * <p>
+ * For every map, and for all maps together, the aggregates keep the
+ * all-time {@link ResultStats}, the statistics of the last time window in
+ * buckets of {@link #getBucketSize()}, and the streaks of solved games of
+ * every player. A result falls into the bucket of its creation time, and
+ * the buckets that fall out of the window are dropped, so the size of the
+ * aggregates depends on the number of maps and players only. Queries never
+ * read the results.
+ * <p>
+ * The aggregates are saved as a checkpoint file together with the number
+ * of results they contain, so after a restart only the results added since
+ * the checkpoint are read from the {@link ResultStore}.
+ */
+public final class ResultAggregates {
+
+    /**
+     * The map id of the aggregates of all maps.
+     */
+    public static final int ALL_MAPS = LeaderboardIndex.ALL_MAPS;
+
+    /**
+     * The default size of a bucket of the window.
+     */
+    public static final Duration DEFAULT_BUCKET_SIZE = Duration.ofHours(1);
+
+    /**
+     * The default number of buckets of the window.
+     */
+    public static final int DEFAULT_WINDOW_BUCKETS = 24;
+
+    private static final int MAGIC = 0x4d5a4147; // "MZAG"
+
+    private static final int VERSION = 1;
+
+    private final Duration bucketSize;
+
+    private final int windowBuckets;
+
+    private final Map<Integer, MapAggregates> maps = new HashMap<>();
+
+    private long resultCount;
+
+    /**
+     * Constructs new empty aggregates with a window of the default size.
+     */
+    public ResultAggregates() {
+        this(DEFAULT_BUCKET_SIZE, DEFAULT_WINDOW_BUCKETS);
+    }
+
+    /**
+     * Constructs new empty aggregates.
+     *
+     * @param bucketSize the size of a bucket of the window
+     * @param windowBuckets the number of buckets of the window
+     * @throws IllegalArgumentException if the bucket size is shorter than a
+     *                                  millisecond, or the number of buckets is not positive
+     */
+    public ResultAggregates(Duration bucketSize, int windowBuckets) {
+        if (bucketSize.toMillis() <= 0) {
+            throw new IllegalArgumentException("The bucket size must be at least a millisecond");
+        }
+        if (windowBuckets <= 0) {
+            throw new IllegalArgumentException("The number of buckets must be positive");
+        }
+        this.bucketSize = bucketSize;
+        this.windowBuckets = windowBuckets;
+    }
+
+    /**
+     * Represents the streaks of solved games of a player.
+     *
+     * @param playerName the name of the player
+     * @param current the number of games solved since the last game not solved
+     * @param best the longest streak of the player
+     */
+    public record Streak(String playerName, int current, int best) {
+    }
+
+    /**
+     * Represents the aggregates of a map.
+     */
+    private static final class MapAggregates {
+
+        private final ResultStats allTime = new ResultStats();
+
+        /**
+         * The statistics of the window by the index of their bucket.
+         */
+        private final TreeMap<Long, ResultStats> window = new TreeMap<>();
+
+        /**
+         * The current and the best streak by the name of the player.
+         */
+        private final Map<String, int[]> streaks = new HashMap<>();
+
+    }
+
+    /**
+     * Adds a result.
+     *
+     * @param result the result
+     */
+    public synchronized void add(MapResult result) {
+        var bucket = Optional.ofNullable(result.result().getCreated())
+                .map(created -> bucketOf(created.toInstant()));
+        add(aggregates(result.mapId()), result, bucket);
+        add(aggregates(ALL_MAPS), result, bucket);
+        resultCount++;
+    }
+
+    private void add(MapAggregates aggregates, MapResult result, Optional<Long> bucket) {
+        aggregates.allTime.add(result.result());
+        if (bucket.isPresent()) {
+            var newest = aggregates.window.isEmpty()
+                    ? bucket.get()
+                    : Math.max(bucket.get(), aggregates.window.lastKey());
+            if (bucket.get() > newest - windowBuckets) {
+                aggregates.window.computeIfAbsent(bucket.get(), key -> new ResultStats()).add(result.result());
+                aggregates.window.headMap(newest - windowBuckets, true).clear();
+            }
+        }
+        if (result.result().getPlayerName() != null) {
+            var streak = aggregates.streaks.computeIfAbsent(result.result().getPlayerName(), name -> new int[2]);
+            streak[0] = result.result().isSolved() ? streak[0] + 1 : 0;
+            streak[1] = Math.max(streak[1], streak[0]);
+        }
+    }
+
+    private MapAggregates aggregates(int mapId) {
+        return maps.computeIfAbsent(mapId, id -> new MapAggregates());
+    }
+
+    private long bucketOf(Instant instant) {
+        return Math.floorDiv(instant.toEpochMilli(), bucketSize.toMillis());
+    }
+
+    /**
+     * Returns the all-time statistics of a map.
+     *
+     * @param mapId the id of the map, or {@value #ALL_MAPS} for all maps
+     * @return a copy of the statistics
+     */
+    public synchronized ResultStats getAllTime(int mapId) {
+        var aggregates = maps.get(mapId);
+        return aggregates == null ? new ResultStats() : aggregates.allTime.copy();
+    }
+
+    /**
+     * Returns the statistics of a map in the window that ends at the time
+     * specified, which is {@code windowBuckets} buckets long.
+     *
+     * @param mapId the id of the map, or {@value #ALL_MAPS} for all maps
+     * @param now the end of the window
+     * @return the statistics
+     */
+    public synchronized ResultStats getWindow(int mapId, Instant now) {
+        var stats = new ResultStats();
+        var aggregates = maps.get(mapId);
+        if (aggregates != null) {
+            var last = bucketOf(now);
+            aggregates.window.subMap(last - windowBuckets, false, last, true).values().forEach(stats::merge);
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the streaks of a player on a map.
+     *
+     * @param mapId the id of the map, or {@value #ALL_MAPS} for all maps
+     * @param playerName the name of the player
+     * @return the streaks, or an empty optional if the player has not played the map
+     */
+    public synchronized Optional<Streak> getStreak(int mapId, String playerName) {
+        return Optional.ofNullable(maps.get(mapId))
+                .map(aggregates -> aggregates.streaks.get(playerName))
+                .map(streak -> new Streak(playerName, streak[0], streak[1]));
+    }
+
+    /**
+     * Returns the players with the longest streaks on a map.
+     *
+     * @param mapId the id of the map, or {@value #ALL_MAPS} for all maps
+     * @param limit the maximum number of players
+     * @return the streaks in descending order of the best streak
+     */
+    public synchronized List<Streak> getLongestStreaks(int mapId, int limit) {
+        var aggregates = maps.get(mapId);
+        if (aggregates == null) {
+            return List.of();
+        }
+        return aggregates.streaks.entrySet().stream()
+                .map(entry -> new Streak(entry.getKey(), entry.getValue()[0], entry.getValue()[1]))
+                .sorted(Comparator.comparingInt(Streak::best).reversed().thenComparing(Streak::playerName))
+                .limit(Math.max(0, limit))
+                .toList();
+    }
+
+    /**
+     * {@return the ids of the maps with results, without {@value #ALL_MAPS}}
+     */
+    public synchronized Set<Integer> getMapIds() {
+        var mapIds = new TreeSet<>(maps.keySet());
+        mapIds.remove(ALL_MAPS);
+        return mapIds;
+    }
+
+    /**
+     * {@return the number of results added}
+     */
+    public synchronized long getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * {@return the size of a bucket of the window}
+     */
+    public Duration getBucketSize() {
+        return bucketSize;
+    }
+
+    /**
+     * {@return the number of buckets of the window}
+     */
+    public int getWindowBuckets() {
+        return windowBuckets;
+    }
+
+    /**
+     * Writes the aggregates to a checkpoint file, which is replaced atomically.
+     * <p>
+     * All numbers are big-endian. The file holds the magic {@code "MZAG"},
+     * the version, the window, the number of results and the maps, followed
+     * by the CRC-32 of everything before it.
+     *
+     * @param path the path of the checkpoint
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void save(Path path) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        synchronized (this) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(bucketSize.toMillis());
+            out.writeInt(windowBuckets);
+            out.writeLong(resultCount);
+            out.writeInt(maps.size());
+            for (var entry : maps.entrySet()) {
+                var aggregates = entry.getValue();
+                out.writeInt(entry.getKey());
+                aggregates.allTime.write(out);
+                out.writeInt(aggregates.window.size());
+                for (var bucket : aggregates.window.entrySet()) {
+                    out.writeLong(bucket.getKey());
+                    bucket.getValue().write(out);
+                }
+                out.writeInt(aggregates.streaks.size());
+                for (var streak : aggregates.streaks.entrySet()) {
+                    out.writeUTF(streak.getKey());
+                    out.writeInt(streak.getValue()[0]);
+                    out.writeInt(streak.getValue()[1]);
+                }
+            }
+        }
+        var crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (var file = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+            bytes.writeTo(file);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the aggregates of a checkpoint file.
+     *
+     * @param path the path of the checkpoint
+     * @return the aggregates
+     * @throws NoSuchFileException if the file does not exist
+     * @throws IOException if the file cannot be read, or it is not a valid checkpoint
+     */
+    public static ResultAggregates load(Path path) throws IOException {
+        byte[] bytes;
+        try (var in = new BufferedInputStream(Files.newInputStream(path))) {
+            bytes = in.readAllBytes();
+        }
+        if (bytes.length < 4) {
+            throw new IOException("Truncated checkpoint: " + path);
+        }
+        var crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        var in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+            throw new IOException("Not a checkpoint of version " + VERSION + ": " + path);
+        }
+        var stored = new DataInputStream(new ByteArrayInputStream(bytes, bytes.length - 4, 4)).readInt();
+        if (stored != (int) crc.getValue()) {
+            throw new IOException("Damaged checkpoint: " + path);
+        }
+        ResultAggregates aggregates;
+        try {
+            aggregates = new ResultAggregates(Duration.ofMillis(in.readLong()), in.readInt());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid window in checkpoint: " + path, e);
+        }
+        aggregates.resultCount = in.readLong();
+        var mapCount = in.readInt();
+        for (var i = 0; i < mapCount; i++) {
+            var map = aggregates.aggregates(in.readInt());
+            map.allTime.merge(ResultStats.read(in));
+            var buckets = in.readInt();
+            for (var j = 0; j < buckets; j++) {
+                map.window.put(in.readLong(), ResultStats.read(in));
+            }
+            var streaks = in.readInt();
+            for (var j = 0; j < streaks; j++) {
+                map.streaks.put(in.readUTF(), new int[] {in.readInt(), in.readInt()});
+            }
+        }
+        return aggregates;
+    }
+
+    /**
+     * Loads the aggregates of a checkpoint, or starts empty aggregates if
+     * there is no usable checkpoint, and adds the results of the store that
+     * the checkpoint does not contain.
+     *
+     * @param checkpoint the path of the checkpoint
+     * @param store the store of the results
+     * @return the aggregates of every result of the store
+     * @throws IOException if the store cannot be read
+     */
+    public static ResultAggregates recover(Path checkpoint, ResultStore store) throws IOException {
+        ResultAggregates aggregates;
+        try {
+            aggregates = load(checkpoint);
+        } catch (NoSuchFileException e) {
+            aggregates = new ResultAggregates();
+        } catch (IOException e) {
+            Logger.warn("Ignoring the checkpoint {}: {}", checkpoint, e.getMessage());
+            aggregates = new ResultAggregates();
+        }
+        var skipped = aggregates.getResultCount();
+        var added = store.forEach(skipped, aggregates::add);
+        if (added > 0) {
+            Logger.info("Aggregated {} results added since the checkpoint of {} results", added, skipped);
+        }
+        return aggregates;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ResultAggregates{maps=%d, results=%d}", getMapIds().size(), resultCount);
+    }
+
+}
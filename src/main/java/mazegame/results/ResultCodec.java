@@ -0,0 +1,126 @@
+package mazegame.results;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import gameresult.OnePlayerGameResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Encodes game results as JSON objects of a single line, with the map id
+ * and the fields of {@code results.json}: the duration in seconds and the
+ * creation time in ISO-8601 format. A line without a map id is a result of
+ * an unknown map, and a line without a journal offset is a result whose game
+ * is not in the move journal.
+ */
+final class ResultCodec {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private ResultCodec() {
+    }
+
+    /**
+     * Encodes a result as a line of JSON, including the line feed.
+     *
+     * @param mapResult the result
+     * @return the UTF-8 encoded line
+     */
+    static byte[] encode(MapResult mapResult) {
+        var result = mapResult.result();
+        var out = new ByteArrayOutputStream(160);
+        try (var generator = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            if (mapResult.mapId() != MapResult.UNKNOWN_MAP) {
+                generator.writeNumberField("mapId", mapResult.mapId());
+            }
+            if (mapResult.journalOffset() != MapResult.UNRECORDED) {
+                generator.writeNumberField("journalOffset", mapResult.journalOffset());
+            }
+            generator.writeStringField("playerName", result.getPlayerName());
+            generator.writeBooleanField("solved", result.isSolved());
+            generator.writeNumberField("numberOfMoves", result.getNumberOfMoves());
+            if (result.getDuration() != null) {
+                generator.writeNumberField("duration", BigDecimal.valueOf(result.getDuration().getSeconds())
+                        .add(BigDecimal.valueOf(result.getDuration().getNano(), 9)));
+            }
+            if (result.getCreated() != null) {
+                generator.writeStringField("created", result.getCreated().toString());
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            // Writing to memory does not fail
+            throw new IllegalStateException(e);
+        }
+        out.write('\n');
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes the results of a stream of lines in order.
+     *
+     * @param in the stream of lines
+     * @param action the action to perform on each result
+     * @return the number of results read
+     * @throws IOException if the stream cannot be read, or a line is not a result
+     */
+    static long decode(InputStream in, Consumer<? super MapResult> action) throws IOException {
+        var count = 0L;
+        try (var parser = FACTORY.createParser(in)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "Expected a game result");
+                }
+                action.accept(decodeResult(parser));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static MapResult decodeResult(JsonParser parser) throws IOException {
+        var mapId = MapResult.UNKNOWN_MAP;
+        var journalOffset = MapResult.UNRECORDED;
+        var builder = OnePlayerGameResult.builder();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "mapId" -> mapId = parser.getIntValue();
+                case "journalOffset" -> journalOffset = parser.getLongValue();
+                case "playerName" -> builder.playerName(parser.getValueAsString());
+                case "solved" -> builder.solved(parser.getBooleanValue());
+                case "numberOfMoves" -> builder.numberOfMoves(parser.getIntValue());
+                case "duration" -> {
+                    var seconds = parser.getDecimalValue();
+                    builder.duration(Duration.ofSeconds(seconds.longValue(),
+                            seconds.remainder(BigDecimal.ONE).movePointRight(9).intValue()));
+                }
+                case "created" -> {
+                    try {
+                        builder.created(ZonedDateTime.parse(parser.getText()));
+                    } catch (DateTimeException e) {
+                        throw new JsonParseException(parser, "Invalid creation time: " + parser.getText());
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        if (parser.currentToken() != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Unterminated game result");
+        }
+        return new MapResult(mapId, journalOffset, builder.build());
+    }
+
+}
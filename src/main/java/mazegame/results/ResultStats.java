@@ -0,0 +1,178 @@
+package mazegame.results;
+
+import gameresult.OnePlayerGameResult;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Represents the statistics of a set of results: the number of games and
+ * of solved games, and the distributions of the number of moves and of the
+ * duration of the solved games. The statistics of two sets are merged
+ * without their results. Not thread-safe.
+ */
+public final class ResultStats {
+
+    private long count;
+
+    private long solved;
+
+    private long totalMoves;
+
+    private long totalMillis;
+
+    private final QuantileSketch moves;
+
+    private final QuantileSketch millis;
+
+    /**
+     * Constructs new statistics of no results.
+     */
+    public ResultStats() {
+        this(new QuantileSketch(), new QuantileSketch());
+    }
+
+    private ResultStats(QuantileSketch moves, QuantileSketch millis) {
+        this.moves = moves;
+        this.millis = millis;
+    }
+
+    /**
+     * Adds a result.
+     *
+     * @param result the result
+     */
+    public void add(OnePlayerGameResult result) {
+        count++;
+        if (result.isSolved()) {
+            solved++;
+            totalMoves += result.getNumberOfMoves();
+            moves.add(result.getNumberOfMoves());
+            var duration = result.getDuration() == null ? 0 : Math.max(0, result.getDuration().toMillis());
+            totalMillis += duration;
+            millis.add(duration);
+        }
+    }
+
+    /**
+     * Adds the results of other statistics.
+     *
+     * @param other the other statistics
+     */
+    public void merge(ResultStats other) {
+        count += other.count;
+        solved += other.solved;
+        totalMoves += other.totalMoves;
+        totalMillis += other.totalMillis;
+        moves.merge(other.moves);
+        millis.merge(other.millis);
+    }
+
+    /**
+     * {@return a copy of the statistics}
+     */
+    public ResultStats copy() {
+        var copy = new ResultStats();
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * {@return the number of games}
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * {@return the number of solved games}
+     */
+    public long getSolved() {
+        return solved;
+    }
+
+    /**
+     * {@return the share of the games that have been solved, or {@link Double#NaN} if there are no games}
+     */
+    public double getSolveRate() {
+        return count == 0 ? Double.NaN : (double) solved / count;
+    }
+
+    /**
+     * {@return the mean number of moves of the solved games, or {@link Double#NaN} if there are none}
+     */
+    public double getMeanMoves() {
+        return solved == 0 ? Double.NaN : (double) totalMoves / solved;
+    }
+
+    /**
+     * Returns an estimate of a quantile of the number of moves of the solved games.
+     *
+     * @param quantile the quantile, 0.5 for the median
+     * @return the estimate, or {@link Double#NaN} if there are no solved games
+     */
+    public double getMovesQuantile(double quantile) {
+        return moves.quantile(quantile);
+    }
+
+    /**
+     * {@return the mean duration of the solved games, or {@code null} if there are none}
+     */
+    public Duration getMeanDuration() {
+        return solved == 0 ? null : Duration.ofMillis(totalMillis / solved);
+    }
+
+    /**
+     * Returns an estimate of a quantile of the duration of the solved games.
+     *
+     * @param quantile the quantile, 0.5 for the median
+     * @return the estimate, or {@code null} if there are no solved games
+     */
+    public Duration getDurationQuantile(double quantile) {
+        var estimate = millis.quantile(quantile);
+        return Double.isNaN(estimate) ? null : Duration.ofMillis(Math.round(estimate));
+    }
+
+    /**
+     * Writes the statistics.
+     *
+     * @param out the output
+     * @throws IOException if an I/O error occurs
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeLong(solved);
+        out.writeLong(totalMoves);
+        out.writeLong(totalMillis);
+        moves.write(out);
+        millis.write(out);
+    }
+
+    /**
+     * Reads statistics written by {@link #write(DataOutput)}.
+     *
+     * @param in the input
+     * @return the statistics
+     * @throws IOException if an I/O error occurs
+     */
+    static ResultStats read(DataInput in) throws IOException {
+        var count = in.readLong();
+        var solved = in.readLong();
+        var totalMoves = in.readLong();
+        var totalMillis = in.readLong();
+        var stats = new ResultStats(QuantileSketch.read(in), QuantileSketch.read(in));
+        stats.count = count;
+        stats.solved = solved;
+        stats.totalMoves = totalMoves;
+        stats.totalMillis = totalMillis;
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResultStats{count=%d, solved=%d}", count, solved);
+    }
+
+}
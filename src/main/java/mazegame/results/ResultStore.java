@@ -0,0 +1,445 @@
+package mazegame.results;
+
+import org.tinylog.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Represents the history of game results as an append-only log with compaction.
+ * <p>
+ * The results live in a directory. Every finished game is appended as a
+ * line of JSON to the current log segment {@code results-<n>.log}, which is
+ * a constant-time write no matter how long the history is. When a segment
+ * has {@link #getSegmentSize()} results, a new segment is started and the
+ * closed segments are merged in the background into the snapshot
+ * {@code results-<n>.snapshot}, where {@code n} is the last segment it
+ * contains. The snapshot is written next to the old one and moved over it,
+ * so a crash during compaction loses nothing: the next open keeps the
+ * newest complete snapshot and the segments after it.
+ * <p>
+ * Readers see the snapshot followed by the tail of segments after it, and
+ * never the same result twice.
+ */
+public final class ResultStore implements AutoCloseable {
+
+    /**
+     * The default number of results of a log segment.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 10_000;
+
+    private static final Pattern FILE_NAME = Pattern.compile("results-(\\d+)\\.(log|snapshot)");
+
+    private final Path directory;
+
+    private final boolean sync;
+
+    private final int segmentSize;
+
+    /**
+     * Guards the set of files: readers hold the read lock, starting a segment
+     * and replacing the snapshot take the write lock.
+     */
+    private final ReadWriteLock files = new ReentrantReadWriteLock();
+
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "results-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The last segment merged into the snapshot, 0 if there is no snapshot.
+     */
+    private long snapshotGeneration;
+
+    /**
+     * The segment results are appended to.
+     */
+    private long generation;
+
+    private FileChannel log;
+
+    private int logCount;
+
+    /**
+     * The number of bytes of the current segment that hold complete results.
+     */
+    private volatile long logSize;
+
+    private ResultStore(Path directory, boolean sync, int segmentSize) {
+        this.directory = directory;
+        this.sync = sync;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Opens the store in the directory specified, creating it if it does not
+     * exist. Results are written to the operating system but not forced to the disk.
+     *
+     * @param directory the directory of the store
+     * @return the store
+     * @throws IOException if the store cannot be opened
+     */
+    public static ResultStore open(Path directory) throws IOException {
+        return open(directory, false, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens the store in the directory specified, creating it if it does not exist.
+     *
+     * @param directory the directory of the store
+     * @param sync whether every result is forced to the disk before {@link #append(MapResult)} returns
+     * @param segmentSize the number of results of a log segment
+     * @return the store
+     * @throws IOException if the store cannot be opened
+     * @throws IllegalArgumentException if the segment size is not positive
+     */
+    public static ResultStore open(Path directory, boolean sync, int segmentSize) throws IOException {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("The segment size must be positive");
+        }
+        Files.createDirectories(directory);
+        var store = new ResultStore(directory, sync, segmentSize);
+        store.recover();
+        return store;
+    }
+
+    /**
+     * Finds the newest snapshot and the segments after it, removes what an
+     * interrupted compaction has left behind, and reopens the last segment.
+     */
+    private void recover() throws IOException {
+        var snapshots = new TreeMap<Long, Path>();
+        var segments = new TreeMap<Long, Path>();
+        try (var list = Files.list(directory)) {
+            for (var file : (Iterable<Path>) list::iterator) {
+                var name = file.getFileName().toString();
+                var matcher = FILE_NAME.matcher(name);
+                if (matcher.matches()) {
+                    (matcher.group(2).equals("log") ? segments : snapshots).put(Long.parseLong(matcher.group(1)), file);
+                } else if (name.startsWith("results-") && name.endsWith(".tmp")) {
+                    Files.delete(file);
+                }
+            }
+        }
+        snapshotGeneration = snapshots.isEmpty() ? 0 : snapshots.lastKey();
+        for (var file : snapshots.headMap(snapshotGeneration).values()) {
+            Files.delete(file);
+        }
+        for (var file : segments.headMap(snapshotGeneration, true).values()) {
+            Files.delete(file);
+        }
+        generation = Math.max(snapshotGeneration + 1, segments.isEmpty() ? 0 : segments.lastKey());
+        openSegment();
+
+        // Cut off a result torn by a crash, so that the next one starts on a new line
+        var bytes = Files.readAllBytes(segment(generation));
+        var end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') {
+            end--;
+        }
+        if (end < bytes.length) {
+            Logger.warn("Cutting a torn result off the end of {} ({} bytes)", segment(generation), bytes.length - end);
+            log.truncate(end);
+        }
+        for (var i = 0; i < end; i++) {
+            logCount += bytes[i] == '\n' ? 1 : 0;
+        }
+        logSize = end;
+        log.position(end);
+        if (generation > snapshotGeneration + 1) {
+            compactor.execute(this::compactClosedSegments);
+        }
+    }
+
+    private void openSegment() throws IOException {
+        log = FileChannel.open(segment(generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        logCount = 0;
+        logSize = 0;
+    }
+
+    private Path segment(long generation) {
+        return directory.resolve("results-%d.log".formatted(generation));
+    }
+
+    private Path snapshot(long generation) {
+        return directory.resolve("results-%d.snapshot".formatted(generation));
+    }
+
+    /**
+     * Appends a result to the current log segment, starting a new segment
+     * and compacting the closed ones in the background if it is full.
+     *
+     * @param result the result
+     * @throws IOException if the result cannot be written
+     */
+    public synchronized void append(MapResult result) throws IOException {
+        var buffer = ByteBuffer.wrap(ResultCodec.encode(result));
+        while (buffer.hasRemaining()) {
+            log.write(buffer);
+        }
+        if (sync) {
+            log.force(false);
+        }
+        logSize += buffer.limit();
+        if (++logCount >= segmentSize) {
+            startSegment();
+        }
+    }
+
+    /**
+     * Forces the results appended so far to the disk.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized void sync() throws IOException {
+        log.force(false);
+    }
+
+    /**
+     * Closes the current log segment if it is not empty, and compacts the
+     * closed segments in the background.
+     *
+     * @return a future that completes when the segments have been compacted
+     * @throws IOException if a new segment cannot be started
+     */
+    public synchronized CompletableFuture<Void> compact() throws IOException {
+        if (logCount > 0) {
+            startSegment();
+        }
+        return CompletableFuture.runAsync(this::compactClosedSegments, compactor);
+    }
+
+    /**
+     * Closes the current log segment and starts a new one. The caller must hold the monitor of the store.
+     */
+    private void startSegment() throws IOException {
+        files.writeLock().lock();
+        try {
+            log.force(false);
+            log.close();
+            generation++;
+            openSegment();
+        } finally {
+            files.writeLock().unlock();
+        }
+        compactor.execute(this::compactClosedSegments);
+    }
+
+    /**
+     * Merges the snapshot and the closed log segments into a new snapshot.
+     * Runs on the compactor thread only.
+     */
+    private void compactClosedSegments() {
+        long from;
+        long to;
+        files.readLock().lock();
+        try {
+            from = snapshotGeneration;
+            to = generation - 1;
+        } finally {
+            files.readLock().unlock();
+        }
+        if (to <= from) {
+            return;
+        }
+        var started = System.nanoTime();
+        var target = snapshot(to);
+        var temporary = directory.resolve(target.getFileName() + ".tmp");
+        try {
+            var count = 0L;
+            try (var out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                if (from > 0) {
+                    try (var in = FileChannel.open(snapshot(from), StandardOpenOption.READ)) {
+                        var size = in.size();
+                        for (var position = 0L; position < size; ) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                    }
+                }
+                for (var segment = from + 1; segment <= to; segment++) {
+                    var bytes = Files.readAllBytes(segment(segment));
+                    // Check that the segment only holds complete results before merging it
+                    count += ResultCodec.decode(new ByteArrayInputStream(bytes), result -> { });
+                    out.write(ByteBuffer.wrap(bytes));
+                }
+                out.force(false);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            files.writeLock().lock();
+            try {
+                snapshotGeneration = to;
+                if (from > 0) {
+                    Files.deleteIfExists(snapshot(from));
+                }
+                for (var segment = from + 1; segment <= to; segment++) {
+                    Files.deleteIfExists(segment(segment));
+                }
+            } finally {
+                files.writeLock().unlock();
+            }
+            Logger.info("Compacted {} results into {} in {} ms", count, target,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (IOException e) {
+            Logger.error(e, "Failed to compact the results in {}", directory);
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                // The temporary file is removed the next time the store is opened
+            }
+        }
+    }
+
+    /**
+     * Reads every result in the order they were appended: the snapshot, then
+     * the log segments after it.
+     *
+     * @param action the action to perform on each result
+     * @return the number of results read
+     * @throws IOException if the results cannot be read
+     */
+    public long forEach(Consumer<? super MapResult> action) throws IOException {
+        return forEach(0, action);
+    }
+
+    /**
+     * Reads the results after the first ones in the order they were
+     * appended. The results skipped are not decoded, only their line feeds
+     * are counted.
+     *
+     * @param skip the number of results to skip
+     * @param action the action to perform on each result after them
+     * @return the number of results read after the ones skipped
+     * @throws IOException if the results cannot be read
+     */
+    public long forEach(long skip, Consumer<? super MapResult> action) throws IOException {
+        files.readLock().lock();
+        try {
+            var remaining = new long[] {skip};
+            var count = 0L;
+            if (snapshotGeneration > 0) {
+                try (var channel = FileChannel.open(snapshot(snapshotGeneration), StandardOpenOption.READ)) {
+                    channel.position(skipLines(channel, channel.size(), remaining));
+                    var in = new BufferedInputStream(Channels.newInputStream(channel), 1 << 16);
+                    count += ResultCodec.decode(in, action);
+                }
+            }
+            for (var segment = snapshotGeneration + 1; segment <= generation; segment++) {
+                try (var channel = FileChannel.open(segment(segment), StandardOpenOption.READ)) {
+                    // Only the complete results of the current segment
+                    var size = segment == generation ? logSize : channel.size();
+                    var start = skipLines(channel, size, remaining);
+                    var bytes = ByteBuffer.allocate(Math.toIntExact(size - start));
+                    while (bytes.hasRemaining() && channel.read(bytes, start + bytes.position()) >= 0) {
+                        // Keep reading until the buffer is full
+                    }
+                    count += ResultCodec.decode(new ByteArrayInputStream(bytes.array(), 0, bytes.position()), action);
+                }
+            }
+            return count;
+        } finally {
+            files.readLock().unlock();
+        }
+    }
+
+    /**
+     * Skips lines from the start of a file, at most as many as remain to be skipped.
+     *
+     * @param channel the file
+     * @param size the number of bytes of the file to read
+     * @param remaining the number of lines to skip, decreased by the lines skipped
+     * @return the position after the lines skipped
+     */
+    private static long skipLines(FileChannel channel, long size, long[] remaining) throws IOException {
+        var buffer = ByteBuffer.allocate(1 << 16);
+        var position = 0L;
+        while (remaining[0] > 0 && position < size) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), size - position));
+            var read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            for (var i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n' && --remaining[0] == 0) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return position;
+    }
+
+    /**
+     * Returns every result in the order they were appended.
+     *
+     * @return the results
+     * @throws IOException if the results cannot be read
+     */
+    public List<MapResult> getAll() throws IOException {
+        var results = new ArrayList<MapResult>();
+        forEach(results::add);
+        return results;
+    }
+
+    /**
+     * {@return the directory of the store}
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * {@return the number of results of a log segment}
+     */
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Waits for a running compaction to finish and closes the current log segment.
+     *
+     * @throws IOException if the segment cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            if (!compactor.awaitTermination(1, TimeUnit.MINUTES)) {
+                Logger.warn("Gave up waiting for the compaction of the results in {}", directory);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            log.force(false);
+            log.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResultStore{directory=%s}", directory);
+    }
+
+}
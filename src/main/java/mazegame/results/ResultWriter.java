@@ -0,0 +1,391 @@
+package mazegame.results;
+
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Writes results to a {@link ResultStore} on a thread of its own, forcing
+ * several results to the disk at once.
+ * <p>
+ * Results are submitted to a bounded queue and the caller gets a future
+ * instead of waiting for the disk. The writer thread appends every result
+ * it takes from the queue, and forces them to the disk together as the
+ * {@link Durability} allows, so the results that arrive while the disk is
+ * busy share a single sync. Once the results are on the disk, the writer
+ * passes them to the commit action together and completes their futures. Closing the writer
+ * writes and forces the results still in the queue. If the writer thread
+ * stops for any other reason, the writer is closed and the futures of the
+ * requests it has not taken fail.
+ */
+public final class ResultWriter implements AutoCloseable {
+
+    /**
+     * The default number of results the queue holds.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Marks the end of the requests.
+     */
+    private static final Request CLOSE = new Request(null, null);
+
+    private final ResultStore store;
+
+    private final Durability durability;
+
+    private final Consumer<? super List<MapResult>> committed;
+
+    private final BlockingQueue<Request> queue;
+
+    private final Thread thread;
+
+    private volatile boolean closed;
+
+    /**
+     * Whether the writer thread has stopped taking requests.
+     */
+    private volatile boolean stopped;
+
+    private ResultWriter(ResultStore store, Durability durability, int capacity,
+                         Consumer<? super List<MapResult>> committed) {
+        this.store = store;
+        this.durability = durability;
+        this.committed = committed;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::run, "results-writer");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Represents when the results written are forced to the disk. The
+     * results are forced when {@code batchSize} results are waiting, or when
+     * the oldest of them has waited {@code maxDelay}, whichever comes first.
+     *
+     * @param batchSize the number of results forced together
+     * @param maxDelay the longest time a result waits to be forced, or
+     *                 {@code null} to wait for a full batch
+     */
+    public record Durability(int batchSize, Duration maxDelay) {
+
+        /**
+         * Constructs a new durability.
+         *
+         * @throws IllegalArgumentException if the batch size is not positive or the delay is negative
+         */
+        public Durability {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("The batch size must be positive");
+            }
+            if (maxDelay != null && maxDelay.isNegative()) {
+                throw new IllegalArgumentException("The delay must not be negative");
+            }
+        }
+
+        /**
+         * Returns the durability that forces every result before its future
+         * completes. The results taken from the queue together are still
+         * forced together.
+         *
+         * @return the durability
+         */
+        public static Durability perResult() {
+            return new Durability(1, Duration.ZERO);
+        }
+
+        /**
+         * Returns the durability that forces the results at most once in
+         * the interval specified.
+         *
+         * @param interval the longest time a result waits to be forced
+         * @return the durability
+         */
+        public static Durability timeBatched(Duration interval) {
+            return new Durability(Integer.MAX_VALUE, interval);
+        }
+
+        /**
+         * Returns the durability that forces the results in batches of the
+         * size specified, or when the writer is flushed or closed.
+         *
+         * @param size the number of results forced together
+         * @return the durability
+         */
+        public static Durability sizeBatched(int size) {
+            return new Durability(size, null);
+        }
+
+        /**
+         * Parses a durability: {@code result}, {@code time:<milliseconds>} or {@code size:<results>}.
+         *
+         * @param text the text to parse
+         * @return the durability
+         * @throws IllegalArgumentException if the text is not a durability
+         */
+        public static Durability parse(String text) {
+            var parts = text.split(":", 2);
+            try {
+                return switch (parts[0]) {
+                    case "result" -> {
+                        if (parts.length != 1) {
+                            throw new IllegalArgumentException("Unexpected argument: " + text);
+                        }
+                        yield perResult();
+                    }
+                    case "time" -> timeBatched(Duration.ofMillis(Long.parseLong(argument(parts, text))));
+                    case "size" -> sizeBatched(Integer.parseInt(argument(parts, text)));
+                    default -> throw new IllegalArgumentException("Unknown durability: " + text);
+                };
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid durability: " + text, e);
+            }
+        }
+
+        private static String argument(String[] parts, String text) {
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Missing argument: " + text);
+            }
+            return parts[1];
+        }
+
+    }
+
+    /**
+     * Represents a result to write, or a flush if the result is null.
+     */
+    private record Request(MapResult result, CompletableFuture<Void> done) {
+    }
+
+    /**
+     * Starts a writer with the default capacity.
+     *
+     * @param store the store to write to
+     * @param durability when the results are forced to the disk
+     * @param committed the action to perform on the results forced to the
+     *                  disk together, in the order they were written, on the writer thread
+     * @return the writer
+     */
+    public static ResultWriter start(ResultStore store, Durability durability,
+                                     Consumer<? super List<MapResult>> committed) {
+        return start(store, durability, DEFAULT_CAPACITY, committed);
+    }
+
+    /**
+     * Starts a writer.
+     *
+     * @param store the store to write to
+     * @param durability when the results are forced to the disk
+     * @param capacity the number of results the queue holds
+     * @param committed the action to perform on the results forced to the
+     *                  disk together, in the order they were written, on the writer thread
+     * @return the writer
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public static ResultWriter start(ResultStore store, Durability durability, int capacity,
+                                     Consumer<? super List<MapResult>> committed) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        var writer = new ResultWriter(Objects.requireNonNull(store), Objects.requireNonNull(durability), capacity,
+                Objects.requireNonNull(committed));
+        writer.thread.start();
+        return writer;
+    }
+
+    /**
+     * Submits a result to be written. Waits only if the queue is full.
+     *
+     * @param result the result
+     * @return a future that completes when the result is on the disk
+     * @throws IllegalStateException if the writer is closed
+     */
+    public CompletableFuture<Void> submit(MapResult result) {
+        return enqueue(new Request(Objects.requireNonNull(result), new CompletableFuture<>()));
+    }
+
+    /**
+     * Forces the results submitted so far to the disk, whatever the durability is.
+     *
+     * @return a future that completes when the results submitted so far are on the disk
+     * @throws IllegalStateException if the writer is closed
+     */
+    public CompletableFuture<Void> flush() {
+        return enqueue(new Request(null, new CompletableFuture<>()));
+    }
+
+    private CompletableFuture<Void> enqueue(Request request) {
+        if (closed) {
+            throw new IllegalStateException("The writer is closed");
+        }
+        try {
+            queue.put(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            request.done().completeExceptionally(e);
+            return request.done();
+        }
+        if (stopped) {
+            // The writer thread has already failed the requests it found, fail the ones put after
+            failQueued();
+        }
+        return request.done();
+    }
+
+    /**
+     * Fails the requests in the queue.
+     */
+    private void failQueued() {
+        var requests = new ArrayList<Request>();
+        queue.drainTo(requests);
+        for (var request : requests) {
+            if (request != CLOSE) {
+                request.done().completeExceptionally(new IllegalStateException("The writer is closed"));
+            }
+        }
+    }
+
+    /**
+     * {@return when the results are forced to the disk}
+     */
+    public Durability getDurability() {
+        return durability;
+    }
+
+    private void run() {
+        try {
+            write();
+        } catch (RuntimeException | Error e) {
+            Logger.error(e, "The results writer has failed");
+            throw e;
+        } finally {
+            closed = true;
+            stopped = true;
+            failQueued();
+        }
+    }
+
+    private void write() {
+        var batch = new ArrayList<Request>();
+        var waiting = new ArrayList<Request>();
+        var waitingResults = 0;
+        var oldest = 0L;
+        var running = true;
+        while (running) {
+            Request first;
+            try {
+                if (waiting.isEmpty() || durability.maxDelay() == null) {
+                    first = queue.take();
+                } else {
+                    first = queue.poll(oldest + durability.maxDelay().toNanos() - System.nanoTime(),
+                            TimeUnit.NANOSECONDS);
+                }
+            } catch (InterruptedException e) {
+                Logger.warn("The results writer has been interrupted");
+                first = CLOSE;
+            }
+            var force = false;
+            if (first != null) {
+                batch.add(first);
+                queue.drainTo(batch);
+            }
+            for (var request : batch) {
+                if (request == CLOSE) {
+                    running = false;
+                    force = true;
+                    continue;
+                }
+                if (request.result() == null) {
+                    force = true;
+                } else {
+                    try {
+                        store.append(request.result());
+                        waitingResults++;
+                    } catch (IOException | RuntimeException e) {
+                        Logger.error(e, "Failed to write the result {}", request.result());
+                        request.done().completeExceptionally(e);
+                        continue;
+                    }
+                }
+                if (waiting.isEmpty()) {
+                    oldest = System.nanoTime();
+                }
+                waiting.add(request);
+            }
+            batch.clear();
+            if (!waiting.isEmpty() && (force || waitingResults >= durability.batchSize()
+                    || durability.maxDelay() != null
+                    && System.nanoTime() - oldest >= durability.maxDelay().toNanos())) {
+                commit(waiting);
+                waiting.clear();
+                waitingResults = 0;
+            }
+        }
+    }
+
+    /**
+     * Forces the results written to the disk, and completes their futures.
+     */
+    private void commit(List<Request> requests) {
+        try {
+            store.sync();
+        } catch (IOException | RuntimeException e) {
+            Logger.error(e, "Failed to force {} results to the disk", requests.size());
+            requests.forEach(request -> request.done().completeExceptionally(e));
+            return;
+        }
+        var results = new ArrayList<MapResult>(requests.size());
+        for (var request : requests) {
+            if (request.result() != null) {
+                results.add(request.result());
+            }
+        }
+        if (!results.isEmpty()) {
+            try {
+                committed.accept(results);
+            } catch (RuntimeException e) {
+                Logger.error(e, "Failed to process {} results", results.size());
+            }
+        }
+        requests.forEach(request -> request.done().complete(null));
+        Logger.debug("Forced {} requests to the disk", requests.size());
+    }
+
+    /**
+     * Writes and forces the results in the queue, and stops the writer thread.
+     * Does not close the store.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (!closed) {
+                closed = true;
+                try {
+                    queue.put(CLOSE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    thread.interrupt();
+                }
+            }
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResultWriter{store=%s, durability=%s}", store, durability);
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Contains classes that store the results of played games.
+ */
+package mazegame.results;
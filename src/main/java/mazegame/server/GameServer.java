@@ -0,0 +1,237 @@
+package mazegame.server;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import mazegame.model.Direction;
+import mazegame.model.Position;
+import org.tinylog.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Represents a headless server of games over HTTP with JSON responses.
+ * <p>
+ * The endpoints are:
+ * <ul>
+ *     <li>{@code POST /sessions?map=ID} starts a game and returns its state with status 201</li>
+ *     <li>{@code GET /sessions/ID} returns the state of a game</li>
+ *     <li>{@code POST /sessions/ID/move?direction=UP} moves the player and returns the new state</li>
+ *     <li>{@code DELETE /sessions/ID} ends a game and returns its last state</li>
+ * </ul>
+ * A state is an object of the fields of {@link Session.State}, and an
+ * error is an object with an {@code error} message: 400 for a malformed
+ * request, 404 for an unknown session, 405 for a wrong method, 409 for an
+ * illegal move and 503 if there are too many sessions.
+ * <p>
+ * Every exchange is handled on a virtual thread of its own, and the only
+ * lock it takes is the lock of its session.
+ */
+public final class GameServer implements AutoCloseable {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private static final String SESSIONS = "/sessions";
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final SessionManager sessions;
+
+    private GameServer(HttpServer server, SessionManager sessions) {
+        this.server = server;
+        this.sessions = sessions;
+    }
+
+    /**
+     * Starts a server of the sessions specified.
+     *
+     * @param address the address to listen on, port 0 for any free port
+     * @param sessions the sessions
+     * @return the server
+     * @throws IOException if the server cannot listen on the address
+     */
+    public static GameServer start(InetSocketAddress address, SessionManager sessions) throws IOException {
+        var gameServer = new GameServer(HttpServer.create(address, 0), sessions);
+        gameServer.server.createContext(SESSIONS, gameServer::handle);
+        gameServer.server.setExecutor(gameServer.executor);
+        gameServer.server.start();
+        Logger.info("Game server listening on {}", gameServer.getAddress());
+        return gameServer;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            var path = exchange.getRequestURI().getPath().substring(SESSIONS.length());
+            var segments = path.isEmpty() || path.equals("/") ? new String[0] : path.substring(1).split("/");
+            var method = exchange.getRequestMethod();
+            try {
+                if (!path.isEmpty() && path.charAt(0) != '/') {
+                    throw new NoSuchElementException("No resource " + exchange.getRequestURI().getPath());
+                }
+                switch (segments.length) {
+                    case 0 -> {
+                        requireMethod(method, "POST");
+                        var mapId = parseInt(query(exchange).get("map"), "map");
+                        var session = sessions.create(mapId);
+                        if (session.isEmpty()) {
+                            sendError(exchange, 503, "Too many sessions");
+                        } else {
+                            sendState(exchange, 201, session.get().getState());
+                        }
+                    }
+                    case 1 -> {
+                        switch (method) {
+                            case "GET" -> sendState(exchange, 200, sessions.get(segments[0]).getState());
+                            case "DELETE" -> sendState(exchange, 200, sessions.end(segments[0]));
+                            default -> throw new UnsupportedOperationException(method);
+                        }
+                    }
+                    case 2 -> {
+                        if (!segments[1].equals("move")) {
+                            throw new NoSuchElementException("No resource " + exchange.getRequestURI().getPath());
+                        }
+                        requireMethod(method, "POST");
+                        var direction = parseDirection(query(exchange).get("direction"));
+                        sendState(exchange, 200, sessions.get(segments[0]).move(direction));
+                    }
+                    default -> throw new NoSuchElementException("No resource " + exchange.getRequestURI().getPath());
+                }
+            } catch (NoSuchElementException e) {
+                sendError(exchange, 404, e.getMessage());
+            } catch (UnsupportedOperationException e) {
+                sendError(exchange, 405, "Method not allowed: " + method);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            } catch (IllegalStateException e) {
+                sendError(exchange, 409, e.getMessage());
+            }
+        } catch (IOException e) {
+            Logger.debug("Failed to answer a request: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            Logger.error(e, "Failed to handle a request");
+        }
+    }
+
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw new UnsupportedOperationException(method);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        var parameters = new HashMap<String, String>();
+        var query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (var pair : query.split("&")) {
+                var separator = pair.indexOf('=');
+                if (separator > 0) {
+                    parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private static int parseInt(String value, String name) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static Direction parseDirection(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter: direction");
+        }
+        try {
+            return Direction.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid direction: " + value);
+        }
+    }
+
+    private static void sendState(HttpExchange exchange, int status, Session.State state) throws IOException {
+        var out = new ByteArrayOutputStream(256);
+        try (var generator = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeStringField("id", state.id());
+            generator.writeNumberField("mapId", state.mapId());
+            generator.writeStringField("status", state.status().name());
+            generator.writeNumberField("moves", state.moves());
+            writePosition(generator, "player", state.player());
+            writePosition(generator, "monster", state.monster());
+            writePosition(generator, "end", state.end());
+            generator.writeArrayFieldStart("legalMoves");
+            for (var direction : state.legalMoves()) {
+                generator.writeString(direction.name());
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        send(exchange, status, out.toByteArray());
+    }
+
+    private static void writePosition(JsonGenerator generator, String name, Position position) throws IOException {
+        generator.writeObjectFieldStart(name);
+        generator.writeNumberField("row", position.row());
+        generator.writeNumberField("col", position.col());
+        generator.writeEndObject();
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        var out = new ByteArrayOutputStream(64);
+        try (var generator = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeStringField("error", message);
+            generator.writeEndObject();
+        }
+        send(exchange, status, out.toByteArray());
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * {@return the address the server listens on}
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stops the server, waiting at most a second for the exchanges in progress.
+     * Does not close the sessions.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GameServer{address=%s, sessions=%s}", getAddress(), sessions);
+    }
+
+}
@@ -0,0 +1,151 @@
+package mazegame.server;
+
+import mazegame.journal.JournalEntry;
+import mazegame.journal.MoveJournal;
+import mazegame.journal.MoveList;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Appends the games of the ended sessions to a move journal on a thread of its own.
+ * <p>
+ * Sessions end on the virtual threads of the requests and on the sweeper.
+ * They only put their game into a bounded queue, which does not pin a
+ * virtual thread while it waits, so the file of the journal and its lock
+ * are only used by the writer thread, and ending a session never waits for
+ * the games of the other sessions to be written. Closing the writer appends
+ * the games still in the queue. Does not close the journal.
+ */
+final class JournalWriter implements Consumer<JournalEntry>, AutoCloseable {
+
+    /**
+     * The default number of games the queue holds.
+     */
+    static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Marks the end of the games.
+     */
+    private static final JournalEntry CLOSE = new JournalEntry(0, 0, Instant.EPOCH, Instant.EPOCH,
+            JournalEntry.Outcome.ABANDONED, new MoveList());
+
+    private final MoveJournal journal;
+
+    private final BlockingQueue<JournalEntry> queue;
+
+    private final Thread thread;
+
+    private volatile boolean closed;
+
+    private JournalWriter(MoveJournal journal, int capacity) {
+        this.journal = journal;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::run, "journal-writer");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts a writer with the default capacity.
+     *
+     * @param journal the journal to append to
+     * @return the writer
+     */
+    static JournalWriter start(MoveJournal journal) {
+        return start(journal, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Starts a writer.
+     *
+     * @param journal the journal to append to
+     * @param capacity the number of games the queue holds
+     * @return the writer
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    static JournalWriter start(MoveJournal journal, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        var writer = new JournalWriter(Objects.requireNonNull(journal), capacity);
+        writer.thread.start();
+        return writer;
+    }
+
+    /**
+     * Submits a game to be appended. Waits only if the queue is full. A game
+     * submitted after the writer is closed is logged and dropped.
+     *
+     * @param entry the game
+     */
+    @Override
+    public void accept(JournalEntry entry) {
+        Objects.requireNonNull(entry);
+        if (closed) {
+            Logger.warn("Dropped a game of map {} ended after the journal was closed", entry.mapId());
+            return;
+        }
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Logger.warn("Dropped a game of map {} interrupted on its way to the journal", entry.mapId());
+        }
+    }
+
+    private void run() {
+        var batch = new ArrayList<JournalEntry>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Logger.warn("The journal writer has been interrupted");
+                batch.add(CLOSE);
+            }
+            queue.drainTo(batch);
+            for (var entry : batch) {
+                if (entry == CLOSE) {
+                    return;
+                }
+                try {
+                    journal.append(entry);
+                } catch (IOException | RuntimeException e) {
+                    Logger.error(e, "Failed to write the game to the move journal");
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Appends the games in the queue, and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            queue.put(CLOSE);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JournalWriter{journal=%s, queued=%d}", journal, queue.size());
+    }
+
+}
@@ -0,0 +1,69 @@
+package mazegame.server;
+
+import mazegame.journal.MoveJournal;
+import mazegame.map.MapRepository;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+public class Main {
+
+    /**
+     * Runs the game server until the process is stopped.
+     * <p>
+     * Usage: {@code Main [--port N] [--maps FILE] [--max-sessions N] [--idle-timeout SECONDS] [--journal FILE]}
+     *
+     * @param args the command line arguments
+     * @throws IOException if the maps, the journal or the port cannot be opened
+     * @throws InterruptedException if the main thread is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        var port = 8080;
+        Path mapsFile = null;
+        var maxSessions = SessionManager.DEFAULT_MAX_SESSIONS;
+        var idleTimeout = SessionManager.DEFAULT_IDLE_TIMEOUT;
+        Path journalFile = null;
+        for (var i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--maps" -> mapsFile = Path.of(args[++i]);
+                case "--max-sessions" -> maxSessions = Integer.parseInt(args[++i]);
+                case "--idle-timeout" -> idleTimeout = Duration.ofSeconds(Long.parseLong(args[++i]));
+                case "--journal" -> journalFile = Path.of(args[++i]);
+                default -> {
+                    System.err.println("Usage: Main [--port N] [--maps FILE] [--max-sessions N] "
+                            + "[--idle-timeout SECONDS] [--journal FILE]");
+                    System.exit(2);
+                }
+            }
+        }
+
+        var repository = mapsFile == null ? MapRepository.getDefault() : MapRepository.ofFile(mapsFile);
+        var journal = journalFile == null ? null : MoveJournal.open(journalFile);
+        // The games are appended on a thread of their own, so ending a session does no file I/O
+        var journalWriter = journal == null ? null : JournalWriter.start(journal);
+        var sessions = new SessionManager(repository, maxSessions, idleTimeout,
+                journalWriter == null ? entry -> { } : journalWriter);
+        var server = GameServer.start(new InetSocketAddress(port), sessions);
+        var stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            sessions.close();
+            if (journal != null) {
+                journalWriter.close();
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    Logger.error(e, "Failed to close the move journal");
+                }
+            }
+            stopped.countDown();
+        }));
+        stopped.await();
+    }
+
+}
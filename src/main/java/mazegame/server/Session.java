@@ -0,0 +1,198 @@
+package mazegame.server;
+
+import mazegame.journal.JournalEntry;
+import mazegame.journal.MoveList;
+import mazegame.model.Direction;
+import mazegame.model.GameEngine;
+import mazegame.model.Position;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Represents a game played through the server.
+ * <p>
+ * The game runs on a {@link GameEngine} of its own, and the requests of a
+ * session are serialized by a lock of the session, so games never wait for
+ * each other. The lock is a {@link ReentrantLock} rather than a monitor, so
+ * a virtual thread waiting for it does not pin its carrier thread.
+ */
+public final class Session {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final String id;
+
+    private final int mapId;
+
+    private final GameEngine engine;
+
+    private final MoveList moves = new MoveList();
+
+    private final Instant started = Instant.now();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private boolean ended;
+
+    /**
+     * The value of {@link System#nanoTime()} at the last request.
+     */
+    private volatile long lastActive = System.nanoTime();
+
+    /**
+     * Constructs a new session.
+     *
+     * @param id the id of the session
+     * @param mapId the id of the map
+     * @param engine the engine in the initial state of the map, owned by the session
+     */
+    Session(String id, int mapId, GameEngine engine) {
+        this.id = id;
+        this.mapId = mapId;
+        this.engine = engine;
+    }
+
+    /**
+     * Represents the status of a game.
+     */
+    public enum Status {
+
+        /**
+         * The player can move.
+         */
+        PLAYING,
+
+        /**
+         * The player has reached the end.
+         */
+        SOLVED,
+
+        /**
+         * The monster has caught the player.
+         */
+        CAUGHT
+
+    }
+
+    /**
+     * Represents the state of a game.
+     *
+     * @param id the id of the session
+     * @param mapId the id of the map
+     * @param status the status of the game
+     * @param moves the number of moves made
+     * @param player the position of the player
+     * @param monster the position of the monster
+     * @param end the position of the end
+     * @param legalMoves the directions the player can move in, empty if the game is over
+     */
+    public record State(String id, int mapId, Status status, int moves, Position player, Position monster,
+                        Position end, List<Direction> legalMoves) {
+    }
+
+    /**
+     * Moves the player, and the monster after it.
+     *
+     * @param direction the direction of the move
+     * @return the state after the move
+     * @throws IllegalStateException if the game is over or the move is not legal
+     */
+    public State move(Direction direction) {
+        lock.lock();
+        try {
+            touch();
+            if (ended || status() != Status.PLAYING) {
+                throw new IllegalStateException("The game is over");
+            }
+            if (!engine.makeMove(direction)) {
+                throw new IllegalStateException("Illegal move: " + direction);
+            }
+            moves.add(direction);
+            return state();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@return the current state of the game}
+     */
+    public State getState() {
+        lock.lock();
+        try {
+            touch();
+            return state();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends the session. Moves are rejected from then on.
+     *
+     * @return the played game, or null if the session has already ended
+     */
+    JournalEntry end() {
+        lock.lock();
+        try {
+            if (ended) {
+                return null;
+            }
+            ended = true;
+            var outcome = switch (status()) {
+                case PLAYING -> JournalEntry.Outcome.ABANDONED;
+                case SOLVED -> JournalEntry.Outcome.SOLVED;
+                case CAUGHT -> JournalEntry.Outcome.CAUGHT;
+            };
+            return new JournalEntry(mapId, 0, started, Instant.now(), outcome, moves);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private State state() {
+        var status = status();
+        var legalMoves = new ArrayList<Direction>(4);
+        if (status == Status.PLAYING && !ended) {
+            var mask = engine.getLegalMoves();
+            for (var direction : DIRECTIONS) {
+                if ((mask & direction.getMask()) != 0) {
+                    legalMoves.add(direction);
+                }
+            }
+        }
+        return new State(id, mapId, status, moves.size(), engine.toPosition(engine.getPlayer()),
+                engine.toPosition(engine.getMonster()), engine.toPosition(engine.getEnd()), legalMoves);
+    }
+
+    private Status status() {
+        return engine.isSolved() ? Status.SOLVED : engine.isCaught() ? Status.CAUGHT : Status.PLAYING;
+    }
+
+    private void touch() {
+        lastActive = System.nanoTime();
+    }
+
+    /**
+     * {@return the id of the session}
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * {@return the value of {@link System#nanoTime()} at the last request}
+     */
+    long getLastActive() {
+        return lastActive;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Session{id=%s, mapId=%d, engine=%s}", id, mapId, engine);
+    }
+
+}
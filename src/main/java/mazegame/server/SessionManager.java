@@ -0,0 +1,248 @@
+package mazegame.server;
+
+import mazegame.journal.JournalEntry;
+import mazegame.map.MapRepository;
+import mazegame.map.Maps;
+import mazegame.model.GameEngine;
+import mazegame.model.MonsterTable;
+import org.tinylog.Logger;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Represents the sessions of the server.
+ * <p>
+ * The sessions are kept in a concurrent map by their random id, so
+ * requests of different sessions never share a lock. The engine of a map
+ * in its initial state, with the monster table of the map when it is small
+ * enough for one, is built once per snapshot of the map repository and
+ * copied for every new session, so a session costs a few small objects. A
+ * session that has not been used for the idle timeout is ended.
+ */
+public final class SessionManager implements AutoCloseable {
+
+    /**
+     * The default maximum number of sessions.
+     */
+    public static final int DEFAULT_MAX_SESSIONS = 100_000;
+
+    /**
+     * The default time after which an unused session is ended.
+     */
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final MapRepository repository;
+
+    private final int maxSessions;
+
+    private final Duration idleTimeout;
+
+    private final Consumer<? super JournalEntry> finished;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * The number of sessions, including the ones being created, which
+     * reserve their place before they are built.
+     */
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "session-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The engines in the initial state of the maps of the snapshot in use.
+     */
+    private volatile Templates templates;
+
+    private record Templates(Maps maps, Map<Integer, GameEngine> engines) {
+    }
+
+    /**
+     * Constructs a new manager of the sessions.
+     *
+     * @param repository the repository of the maps
+     * @param maxSessions the maximum number of sessions
+     * @param idleTimeout the time after which an unused session is ended
+     * @param finished the action to perform on the game of each session that ends
+     * @throws IllegalArgumentException if the maximum number of sessions or the timeout is not positive
+     */
+    public SessionManager(MapRepository repository, int maxSessions, Duration idleTimeout,
+                          Consumer<? super JournalEntry> finished) {
+        if (maxSessions <= 0) {
+            throw new IllegalArgumentException("The maximum number of sessions must be positive");
+        }
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("The idle timeout must be positive");
+        }
+        this.repository = repository;
+        this.maxSessions = maxSessions;
+        this.idleTimeout = idleTimeout;
+        this.finished = finished;
+        var period = Math.max(1, idleTimeout.toMillis() / 4);
+        sweeper.scheduleWithFixedDelay(() -> expireIdleSessions(System.nanoTime()), period, period,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts a new game on a map.
+     *
+     * @param mapId the id of the map
+     * @return the session, or an empty optional if there are already as many sessions as allowed
+     * @throws IllegalArgumentException if there is no playable map with the id
+     */
+    public Optional<Session> create(int mapId) {
+        if (sessionCount.incrementAndGet() > maxSessions) {
+            sessionCount.decrementAndGet();
+            return Optional.empty();
+        }
+        GameEngine engine;
+        try {
+            engine = engine(mapId).copy();
+        } catch (RuntimeException e) {
+            sessionCount.decrementAndGet();
+            throw e;
+        }
+        while (true) {
+            var session = new Session(HEX.toHexDigits(random.nextLong()), mapId, engine);
+            if (sessions.putIfAbsent(session.getId(), session) == null) {
+                return Optional.of(session);
+            }
+        }
+    }
+
+    /**
+     * Returns a session.
+     *
+     * @param id the id of the session
+     * @return the session
+     * @throws NoSuchElementException if there is no session with the id
+     */
+    public Session get(String id) {
+        var session = sessions.get(id);
+        if (session == null) {
+            throw new NoSuchElementException("No session " + id);
+        }
+        return session;
+    }
+
+    /**
+     * Ends a session.
+     *
+     * @param id the id of the session
+     * @return the last state of the game
+     * @throws NoSuchElementException if there is no session with the id
+     */
+    public Session.State end(String id) {
+        var session = sessions.remove(id);
+        if (session == null) {
+            throw new NoSuchElementException("No session " + id);
+        }
+        var state = session.getState();
+        finish(session);
+        return state;
+    }
+
+    /**
+     * Ends a session removed from the map of the sessions.
+     */
+    private void finish(Session session) {
+        sessionCount.decrementAndGet();
+        var entry = session.end();
+        if (entry != null && entry.moves().size() > 0) {
+            finished.accept(entry);
+        }
+    }
+
+    /**
+     * Ends the sessions that have not been used for the idle timeout.
+     *
+     * @param now the current value of {@link System#nanoTime()}
+     */
+    void expireIdleSessions(long now) {
+        var timeout = idleTimeout.toNanos();
+        var expired = 0;
+        for (var session : sessions.values()) {
+            if (now - session.getLastActive() >= timeout && sessions.remove(session.getId(), session)) {
+                finish(session);
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            Logger.info("Ended {} idle sessions, {} left", expired, sessions.size());
+        }
+    }
+
+    /**
+     * {@return the number of sessions}
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Returns the engine in the initial state of a map, building it the first
+     * time the map is played in the current snapshot of the repository.
+     */
+    private GameEngine engine(int mapId) {
+        var maps = repository.snapshot();
+        var current = templates;
+        if (current == null || current.maps() != maps) {
+            current = new Templates(maps, new ConcurrentHashMap<>());
+            templates = current;
+        }
+        var engine = current.engines().get(mapId);
+        if (engine != null) {
+            return engine;
+        }
+        // The engine is built outside the map, so building a large monster table holds no lock of the map.
+        // Unknown ids are not cached, so requests for them cannot fill the cache
+        GameEngine built;
+        try {
+            var grid = maps.getMap(mapId).toCompactGrid();
+            built = new GameEngine(grid, MonsterTable.forGrid(grid).orElse(null));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("No playable map " + mapId, e);
+        }
+        var previous = current.engines().putIfAbsent(mapId, built);
+        return previous == null ? built : previous;
+    }
+
+    /**
+     * Stops expiring sessions, and ends every session.
+     */
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        for (var id : sessions.keySet()) {
+            var session = sessions.remove(id);
+            if (session != null) {
+                finish(session);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SessionManager{sessions=%d, maxSessions=%d}", sessions.size(), maxSessions);
+    }
+
+}
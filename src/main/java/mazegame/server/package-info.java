@@ -0,0 +1,4 @@
+/**
+ * Contains classes that serve games over HTTP without the user interface.
+ */
+package mazegame.server;
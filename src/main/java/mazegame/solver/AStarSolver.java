@@ -0,0 +1,142 @@
+package mazegame.solver;
+
+import mazegame.map.CompactGrid;
+import mazegame.model.Direction;
+import mazegame.model.GameEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Finds the shortest solution of a map with A* search.
+ * <p>
+ * States are encoded as in {@link BreadthFirstSolver}. The heuristic of a
+ * state is the maze distance of the player from the end cell, which never
+ * overestimates the number of moves left, since the player moves one cell
+ * per move whatever the monster does. The open list is an {@link IntMinHeap}.
+ * <p>
+ * The search can be cancelled by interrupting the thread running it, it then
+ * throws a {@link CancellationException}.
+ */
+public class AStarSolver {
+
+    private final GameEngine engine;
+
+    private final CompactGrid grid;
+
+    private final ExitDistances exitDistances;
+
+    private final int cells;
+
+    /**
+     * Constructs a new solver for the map specified.
+     *
+     * @param grid the packed blocks of the map
+     * @throws IllegalArgumentException if the map has more than {@link BreadthFirstSolver#MAX_CELLS} cells,
+     * or it has no start, end or monster block
+     */
+    public AStarSolver(CompactGrid grid) {
+        if (grid.size() > BreadthFirstSolver.MAX_CELLS) {
+            throw new IllegalArgumentException("The map is too large to encode its states as ints: " + grid.size());
+        }
+        this.engine = new GameEngine(grid);
+        this.grid = grid;
+        this.exitDistances = new ExitDistances(grid);
+        this.cells = grid.size();
+    }
+
+    /**
+     * Solves the map from its initial state.
+     *
+     * @return the result of the search
+     */
+    public SearchResult solve() {
+        return solve(engine.getPlayer(), engine.getMonster());
+    }
+
+    /**
+     * Solves the map from the state specified.
+     *
+     * @param player the cell index of the player
+     * @param monster the cell index of the monster
+     * @return the result of the search
+     * @throws CancellationException if the thread is interrupted during the search
+     */
+    public SearchResult solve(int player, int monster) {
+        var end = engine.getEnd();
+        if (exitDistances.distance(player) == ExitDistances.UNREACHABLE) {
+            return SearchResult.unsolved(0, 0);
+        }
+        var start = player * cells + monster;
+        var closed = new BitSet(cells * cells);
+        var costs = new int[cells * cells];
+        var parent = new int[cells * cells];
+        Arrays.fill(costs, Integer.MAX_VALUE);
+        var open = new IntMinHeap(1024);
+        var expanded = 0L;
+        var peak = 1L;
+
+        costs[start] = 0;
+        open.push(start, exitDistances.distance(player));
+        while (!open.isEmpty()) {
+            var state = open.pop();
+            if (closed.get(state)) {
+                continue;
+            }
+            closed.set(state);
+            var from = state / cells;
+            if (from == end) {
+                return SearchResult.solved(pathTo(state, start, parent), expanded, peak);
+            }
+            expanded++;
+            if ((expanded & 0xffff) == 0 && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("The search has been interrupted");
+            }
+            var fromMonster = state % cells;
+            var cost = costs[state] + 1;
+            var directions = grid.openDirections(from);
+            for (var direction = 1; direction <= CompactGrid.OPEN_LEFT; direction <<= 1) {
+                if ((directions & direction) == 0) {
+                    continue;
+                }
+                var to = grid.neighbour(from, direction);
+                var toMonster = to == end ? fromMonster : engine.nextMonsterCell(to, fromMonster);
+                if (to != end && to == toMonster) {
+                    continue;
+                }
+                var next = to * cells + toMonster;
+                if (cost < costs[next]) {
+                    costs[next] = cost;
+                    parent[next] = state;
+                    open.push(next, cost + exitDistances.distance(to));
+                }
+            }
+            peak = Math.max(peak, open.size());
+        }
+        return SearchResult.unsolved(expanded, peak);
+    }
+
+    /**
+     * Follows the parent pointers from a state back to the start.
+     *
+     * @param state the last state of the path
+     * @param start the first state of the path
+     * @param parent the parent pointers
+     * @return the moves leading from the start to the state
+     */
+    private List<Direction> pathTo(int state, int start, int[] parent) {
+        var moves = new ArrayList<Direction>();
+        while (state != start) {
+            var previous = parent[state];
+            moves.add(BreadthFirstSolver.directionBetween(grid, previous / cells, state / cells));
+            state = previous;
+        }
+        Collections.reverse(moves);
+        return moves;
+    }
+
+}
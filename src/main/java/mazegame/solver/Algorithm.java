@@ -0,0 +1,60 @@
+package mazegame.solver;
+
+import mazegame.map.CompactGrid;
+
+import java.util.Locale;
+
+/**
+ * Represents the search algorithms that can solve a map.
+ */
+public enum Algorithm {
+
+    /**
+     * Breadth-first search with {@link BreadthFirstSolver}.
+     */
+    BFS {
+        @Override
+        public SearchResult solve(CompactGrid grid) {
+            return new BreadthFirstSolver(grid).solve();
+        }
+    },
+
+    /**
+     * A* search with {@link AStarSolver}.
+     */
+    ASTAR {
+        @Override
+        public SearchResult solve(CompactGrid grid) {
+            return new AStarSolver(grid).solve();
+        }
+    },
+
+    /**
+     * Parallel breadth-first search with {@link ParallelBreadthFirstSolver} in the common pool.
+     */
+    PARALLEL {
+        @Override
+        public SearchResult solve(CompactGrid grid) {
+            return new ParallelBreadthFirstSolver(grid).solve();
+        }
+    };
+
+    /**
+     * Solves the map specified from its initial state.
+     *
+     * @param grid the packed blocks of the map
+     * @return the result of the search
+     */
+    public abstract SearchResult solve(CompactGrid grid);
+
+    /**
+     * {@return the algorithm with the name specified, ignoring case}
+     *
+     * @param name the name of the algorithm
+     * @throws IllegalArgumentException if there is no algorithm with the name
+     */
+    public static Algorithm of(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+}
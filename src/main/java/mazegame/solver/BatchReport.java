@@ -0,0 +1,48 @@
+package mazegame.solver;
+
+/**
+ * Represents the outcome of solving one map of a batch.
+ *
+ * @param pack the file of the map pack
+ * @param mapId the id of the map, or -1 if the pack could not be loaded
+ * @param name the name of the map
+ * @param status the outcome of the search
+ * @param moves the number of moves of the optimal solution, or -1 if there is none
+ * @param statesExplored the number of states expanded during the search
+ * @param wallTimeMillis the wall time of the search in milliseconds
+ * @param allocatedBytes the bytes allocated on the thread that ran the search, including
+ *                       the garbage; the bytes allocated on other threads, like the
+ *                       workers of {@link Algorithm#PARALLEL}, are not counted
+ * @param error the message of the error that made the search fail, or {@code null}
+ */
+public record BatchReport(String pack, int mapId, String name, Status status, int moves, long statesExplored,
+                          long wallTimeMillis, long allocatedBytes, String error) {
+
+    /**
+     * Represents the outcome of the search for a map.
+     */
+    public enum Status {
+
+        /**
+         * The map has been solved.
+         */
+        SOLVED,
+
+        /**
+         * The map has no solution.
+         */
+        UNSOLVABLE,
+
+        /**
+         * The search has been stopped because it ran out of time.
+         */
+        TIMEOUT,
+
+        /**
+         * The search or the loading of the map failed.
+         */
+        FAILED
+
+    }
+
+}
@@ -0,0 +1,243 @@
+package mazegame.solver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mazegame.map.MapHeader;
+import mazegame.map.Maps;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Solves every map of one or more map packs concurrently on a bounded pool of workers.
+ * <p>
+ * The timeout of a map starts when a worker picks it up. When it runs out,
+ * the worker is interrupted, the map is reported as timed out and the worker
+ * moves on to the next map.
+ */
+public class BatchSolver {
+
+    private final int threads;
+
+    private final Duration timeout;
+
+    private final Algorithm algorithm;
+
+    /**
+     * Constructs a new batch solver.
+     *
+     * @param threads the number of maps solved at the same time
+     * @param timeout the time a single map may take
+     * @param algorithm the algorithm that solves the maps
+     * @throws IllegalArgumentException if the number of threads or the timeout is not positive
+     */
+    public BatchSolver(int threads, Duration timeout, Algorithm algorithm) {
+        if (threads <= 0 || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("The number of threads and the timeout must be positive");
+        }
+        this.threads = threads;
+        this.timeout = timeout;
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Solves every map of the packs specified. The reports are passed to the
+     * consumer in the order of the packs and the maps as they are completed.
+     *
+     * @param packs the files of the map packs
+     * @param consumer the consumer of the reports
+     * @return the reports of all maps
+     */
+    public List<BatchReport> solve(List<Path> packs, Consumer<BatchReport> consumer) {
+        var jobs = new ArrayList<Job>();
+        var failures = new ArrayList<BatchReport>();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        try {
+            for (var pack : packs) {
+                Maps maps;
+                try {
+                    maps = new Maps(pack);
+                } catch (IOException | RuntimeException e) {
+                    Logger.error(e, "Failed to load map pack {}", pack);
+                    failures.add(new BatchReport(pack.toString(), -1, null, BatchReport.Status.FAILED,
+                            -1, 0, 0, 0, e.getMessage()));
+                    continue;
+                }
+                var headers = maps.getHeaders();
+                for (var i = 0; i < headers.size(); i++) {
+                    var index = i;
+                    var task = new FutureTask<>(() -> solve(pack, maps, index));
+                    jobs.add(new Job(pack, headers.get(i), task));
+                    workers.execute(() -> {
+                        var deadline = timer.schedule(() -> task.cancel(true), timeout.toMillis(), TimeUnit.MILLISECONDS);
+                        try {
+                            task.run();
+                        } finally {
+                            deadline.cancel(false);
+                        }
+                    });
+                }
+            }
+
+            var reports = new ArrayList<BatchReport>(failures);
+            failures.forEach(consumer);
+            for (var job : jobs) {
+                var report = await(job);
+                reports.add(report);
+                consumer.accept(report);
+            }
+            return reports;
+        } finally {
+            workers.shutdownNow();
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for the report of a map. A cancelled task is reported as timed out.
+     *
+     * @param job the job of the map
+     * @return the report of the map
+     */
+    private BatchReport await(Job job) {
+        try {
+            return job.task().get();
+        } catch (CancellationException e) {
+            return new BatchReport(job.pack().toString(), job.map().id(), job.map().name(), BatchReport.Status.TIMEOUT,
+                    -1, 0, timeout.toMillis(), 0, "No solution found within " + timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the batch");
+        } catch (ExecutionException e) {
+            return new BatchReport(job.pack().toString(), job.map().id(), job.map().name(), BatchReport.Status.FAILED,
+                    -1, 0, 0, 0, String.valueOf(e.getCause()));
+        }
+    }
+
+    /**
+     * Decodes and solves a single map and measures the search.
+     *
+     * @param pack the file of the map pack
+     * @param maps the maps of the pack
+     * @param index the position of the map in the pack
+     * @return the report of the map
+     */
+    private BatchReport solve(Path pack, Maps maps, int index) {
+        var map = maps.getHeaders().get(index);
+        var threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var threadId = Thread.currentThread().threadId();
+        var allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        var started = System.nanoTime();
+        try {
+            var result = algorithm.solve(maps.getMaps().get(index).toCompactGrid());
+            return new BatchReport(pack.toString(), map.id(), map.name(),
+                    result.solved() ? BatchReport.Status.SOLVED : BatchReport.Status.UNSOLVABLE,
+                    result.solved() ? result.moves().size() : -1,
+                    result.nodesExpanded(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                    threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore,
+                    null);
+        } catch (CancellationException e) {
+            // The task has timed out, its result is discarded
+            throw e;
+        } catch (RuntimeException | OutOfMemoryError e) {
+            Logger.error(e, "Failed to solve map {} of {}", map.id(), pack);
+            return new BatchReport(pack.toString(), map.id(), map.name(), BatchReport.Status.FAILED, -1, 0,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), 0, String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Represents a map waiting to be solved.
+     *
+     * @param pack the file of the map pack
+     * @param map the header of the map to solve
+     * @param task the task solving the map
+     */
+    private record Job(Path pack, MapHeader map, FutureTask<BatchReport> task) {
+    }
+
+    /**
+     * Expands the paths specified into map pack files: a directory stands for
+     * the {@code .json} and {@code .mzp} files directly inside it.
+     *
+     * @param paths the files and directories
+     * @return the map pack files
+     * @throws IOException if a directory cannot be listed
+     */
+    static List<Path> findPacks(List<Path> paths) throws IOException {
+        var packs = new ArrayList<Path>();
+        for (var path : paths) {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.list(path)) {
+                    files.filter(file -> file.getFileName().toString().endsWith(".json")
+                                    || file.getFileName().toString().endsWith(".mzp"))
+                            .sorted()
+                            .forEach(packs::add);
+                }
+            } else {
+                packs.add(path);
+            }
+        }
+        return packs;
+    }
+
+    /**
+     * Solves the map packs given on the command line and writes one JSON report per line.
+     * <p>
+     * Usage: {@code BatchSolver [--threads N] [--timeout SECONDS] [--algorithm bfs|astar|parallel]
+     * [--output FILE] PACK_OR_DIRECTORY...}
+     *
+     * @param args the command line arguments
+     * @throws IOException if a directory cannot be listed or the output cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        var threads = Runtime.getRuntime().availableProcessors();
+        var timeout = Duration.ofMinutes(1);
+        var algorithm = Algorithm.BFS;
+        Path output = null;
+        var paths = new ArrayList<Path>();
+        for (var i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--timeout" -> timeout = Duration.ofSeconds(Long.parseLong(args[++i]));
+                case "--algorithm" -> algorithm = Algorithm.of(args[++i]);
+                case "--output" -> output = Path.of(args[++i]);
+                default -> paths.add(Path.of(args[i]));
+            }
+        }
+        if (paths.isEmpty()) {
+            System.err.println("Usage: BatchSolver [--threads N] [--timeout SECONDS] "
+                    + "[--algorithm bfs|astar|parallel] [--output FILE] PACK_OR_DIRECTORY...");
+            System.exit(2);
+        }
+
+        var objectMapper = new ObjectMapper();
+        try (var out = output == null ? System.out : new PrintStream(Files.newOutputStream(output), true)) {
+            new BatchSolver(threads, timeout, algorithm).solve(findPacks(paths), report -> {
+                try {
+                    out.println(objectMapper.writeValueAsString(report));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+    }
+
+}
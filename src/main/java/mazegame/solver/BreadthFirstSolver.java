@@ -0,0 +1,161 @@
+package mazegame.solver;
+
+import mazegame.map.CompactGrid;
+import mazegame.model.Direction;
+import mazegame.model.GameEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Finds the shortest solution of a map with breadth-first search.
+ * <p>
+ * A state is encoded as the single int {@code player * cells + monster},
+ * where {@code cells} is the number of cells of the map. Visited states are
+ * kept in a {@link BitSet} and parent pointers in an {@code int[]}, both
+ * sized {@code cells * cells}. States in which the monster has caught the
+ * player are dead ends, since the game is over there.
+ * <p>
+ * The search can be cancelled by interrupting the thread running it, it then
+ * throws a {@link CancellationException}.
+ */
+public class BreadthFirstSolver {
+
+    /**
+     * The largest number of cells for which every state can be encoded as an int.
+     */
+    public static final int MAX_CELLS = 46340;
+
+    private final GameEngine engine;
+
+    private final CompactGrid grid;
+
+    private final int cells;
+
+    /**
+     * Constructs a new solver for the map specified.
+     *
+     * @param grid the packed blocks of the map
+     * @throws IllegalArgumentException if the map has more than {@link #MAX_CELLS} cells,
+     * or it has no start, end or monster block
+     */
+    public BreadthFirstSolver(CompactGrid grid) {
+        if (grid.size() > MAX_CELLS) {
+            throw new IllegalArgumentException("The map is too large to encode its states as ints: " + grid.size());
+        }
+        this.engine = new GameEngine(grid);
+        this.grid = grid;
+        this.cells = grid.size();
+    }
+
+    /**
+     * Solves the map from its initial state.
+     *
+     * @return the result of the search
+     */
+    public SearchResult solve() {
+        return solve(engine.getPlayer(), engine.getMonster());
+    }
+
+    /**
+     * Solves the map from the state specified.
+     *
+     * @param player the cell index of the player
+     * @param monster the cell index of the monster
+     * @return the result of the search
+     * @throws CancellationException if the thread is interrupted during the search
+     */
+    public SearchResult solve(int player, int monster) {
+        var end = engine.getEnd();
+        if (player == end) {
+            return SearchResult.solved(List.of(), 0, 0);
+        }
+        var start = player * cells + monster;
+        var visited = new BitSet(cells * cells);
+        var parent = new int[cells * cells];
+        var queue = new int[Math.min(cells * cells, 1024)];
+        var head = 0;
+        var tail = 0;
+        var peak = 1L;
+
+        visited.set(start);
+        queue[tail++] = start;
+        while (head < tail) {
+            var state = queue[head++];
+            if ((head & 0xffff) == 0 && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("The search has been interrupted");
+            }
+            var from = state / cells;
+            var fromMonster = state % cells;
+            var open = grid.openDirections(from);
+            for (var direction = 1; direction <= CompactGrid.OPEN_LEFT; direction <<= 1) {
+                if ((open & direction) == 0) {
+                    continue;
+                }
+                var to = grid.neighbour(from, direction);
+                var toMonster = to == end ? fromMonster : engine.nextMonsterCell(to, fromMonster);
+                if (to != end && to == toMonster) {
+                    continue;
+                }
+                var next = to * cells + toMonster;
+                if (visited.get(next)) {
+                    continue;
+                }
+                visited.set(next);
+                parent[next] = state;
+                if (to == end) {
+                    return SearchResult.solved(pathTo(next, start, parent), head, peak);
+                }
+                if (tail == queue.length) {
+                    queue = Arrays.copyOf(queue, (int) Math.min((long) queue.length * 2, (long) cells * cells));
+                }
+                queue[tail++] = next;
+            }
+            peak = Math.max(peak, tail - head);
+        }
+        return SearchResult.unsolved(head, peak);
+    }
+
+    /**
+     * Follows the parent pointers from a state back to the start.
+     *
+     * @param state the last state of the path
+     * @param start the first state of the path
+     * @param parent the parent pointers
+     * @return the moves leading from the start to the state
+     */
+    private List<Direction> pathTo(int state, int start, int[] parent) {
+        var moves = new ArrayList<Direction>();
+        while (state != start) {
+            var previous = parent[state];
+            moves.add(directionBetween(grid, previous / cells, state / cells));
+            state = previous;
+        }
+        Collections.reverse(moves);
+        return moves;
+    }
+
+    /**
+     * {@return the direction of the move between two neighbouring cells}
+     *
+     * @param grid the packed blocks of the map
+     * @param from the cell index before the move
+     * @param to the cell index after the move
+     */
+    static Direction directionBetween(CompactGrid grid, int from, int to) {
+        var difference = to - from;
+        if (difference == -grid.cols()) {
+            return Direction.UP;
+        } else if (difference == grid.cols()) {
+            return Direction.DOWN;
+        } else if (difference == 1) {
+            return Direction.RIGHT;
+        }
+        return Direction.LEFT;
+    }
+
+}
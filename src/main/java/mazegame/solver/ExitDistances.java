@@ -0,0 +1,68 @@
+package mazegame.solver;
+
+import mazegame.map.CompactGrid;
+
+import java.util.Arrays;
+
+/**
+ * Represents the maze distance of every cell of a map from its end cell.
+ * <p>
+ * The distances are computed by a single breadth-first search from the end
+ * cell over the open directions of the grid. Since the open directions are
+ * resolved from the walls of both neighbouring cells, every passage can be
+ * walked both ways, so the reverse search gives the distance to the end.
+ */
+public final class ExitDistances {
+
+    /**
+     * The distance of the cells from which the end cannot be reached.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int[] distances;
+
+    /**
+     * Computes the distances of the cells of the map specified from its end cell.
+     *
+     * @param grid the packed blocks of the map
+     * @throws IllegalArgumentException if the map has no end block
+     */
+    public ExitDistances(CompactGrid grid) {
+        var end = grid.find(CompactGrid.END);
+        if (end < 0) {
+            throw new IllegalArgumentException("The map has no end block");
+        }
+        distances = new int[grid.size()];
+        Arrays.fill(distances, UNREACHABLE);
+
+        var queue = new int[grid.size()];
+        var head = 0;
+        var tail = 0;
+        distances[end] = 0;
+        queue[tail++] = end;
+        while (head < tail) {
+            var cell = queue[head++];
+            var open = grid.openDirections(cell);
+            for (var direction = 1; direction <= CompactGrid.OPEN_LEFT; direction <<= 1) {
+                if ((open & direction) != 0) {
+                    var next = grid.neighbour(cell, direction);
+                    if (distances[next] == UNREACHABLE) {
+                        distances[next] = distances[cell] + 1;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * {@return the number of moves needed to walk from the cell specified to
+     * the end cell, or {@link #UNREACHABLE}}
+     *
+     * @param cell the cell index
+     */
+    public int distance(int cell) {
+        return distances[cell];
+    }
+
+}
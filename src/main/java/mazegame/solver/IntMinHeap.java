@@ -0,0 +1,98 @@
+package mazegame.solver;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of int values ordered by int keys, stored in two
+ * parallel arrays so that no entry is boxed.
+ */
+class IntMinHeap {
+
+    private int[] keys;
+
+    private int[] values;
+
+    private int size;
+
+    /**
+     * Constructs a new empty heap.
+     *
+     * @param initialCapacity the initial number of entries the heap can hold
+     */
+    IntMinHeap(int initialCapacity) {
+        keys = new int[Math.max(initialCapacity, 16)];
+        values = new int[keys.length];
+    }
+
+    /**
+     * {@return the number of entries in the heap}
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * {@return whether the heap has no entries}
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds an entry to the heap.
+     *
+     * @param value the value of the entry
+     * @param key the key the entries are ordered by
+     */
+    void push(int value, int key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        var i = size++;
+        while (i > 0) {
+            var parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            keys[i] = keys[parent];
+            values[i] = values[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    /**
+     * Removes the entry with the smallest key from the heap.
+     *
+     * @return the value of the removed entry
+     * @throws IllegalStateException if the heap is empty
+     */
+    int pop() {
+        if (size == 0) {
+            throw new IllegalStateException("The heap is empty");
+        }
+        var result = values[0];
+        var key = keys[--size];
+        var value = values[size];
+        var i = 0;
+        var half = size >>> 1;
+        while (i < half) {
+            var child = 2 * i + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            keys[i] = keys[child];
+            values[i] = values[child];
+            i = child;
+        }
+        keys[i] = key;
+        values[i] = value;
+        return result;
+    }
+
+}
@@ -1,19 +1,33 @@
 package mazegame.solver;
 
 import mazegame.map.Maps;
-import mazegame.model.Direction;
-import mazegame.model.GameState;
-import puzzle.solver.BreadthFirstSearch;
 
 public class Main {
 
+    /**
+     * Solves a bundled map and prints the solution with the search statistics.
+     *
+     * @param args the optional map id (default 1) and algorithm, {@code bfs} (default), {@code astar} or {@code parallel}
+     */
     public static void main(String[] args) {
         // Load the maps
         var maps = new Maps("/mazegame/map/maps.json");
+        var mapId = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        var algorithm = args.length > 1 ? Algorithm.of(args[1]) : Algorithm.BFS;
+        var grid = maps.getMap(mapId).toCompactGrid();
 
         // Solve the game
-        var bfs = new BreadthFirstSearch<Direction>();
-        bfs.solveAndPrintSolution(new GameState(maps, 1));
+        var result = algorithm.solve(grid);
+        if (result.solved()) {
+            var moves = result.moves();
+            for (var i = 0; i < moves.size(); i++) {
+                System.out.printf("%d. %s%n", i + 1, moves.get(i));
+            }
+        } else {
+            System.out.println("No solution found");
+        }
+        System.out.printf("Nodes expanded: %d, peak frontier size: %d%n",
+                result.nodesExpanded(), result.peakFrontierSize());
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,278 @@
+package mazegame.solver;
+
+import mazegame.map.CompactGrid;
+import mazegame.model.Direction;
+import mazegame.model.GameEngine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds the shortest solution of a map with a level-synchronous breadth-first
+ * search that expands each level across a {@link ForkJoinPool}.
+ * <p>
+ * A state is encoded as the long {@code player * cells + monster}. Visited
+ * states are marked with compare-and-set in a shared {@code long[]} bitset,
+ * and every task collects its part of the next level in its own buffer, so
+ * there is no global lock. The levels are kept to reconstruct the path, which
+ * costs eight bytes per reached state on top of one bit per state of the map.
+ * The solution has the same length as the one found by {@link BreadthFirstSolver},
+ * but when there are several shortest solutions it may be a different one.
+ * <p>
+ * The search can be cancelled between levels by interrupting the thread
+ * running it, it then throws a {@link CancellationException}.
+ */
+public class ParallelBreadthFirstSolver {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * The number of states below which a task expands its part of a level itself.
+     */
+    private static final int THRESHOLD = 1 << 12;
+
+    private final GameEngine engine;
+
+    private final CompactGrid grid;
+
+    private final int cells;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a new solver for the map specified that runs in the common pool.
+     *
+     * @param grid the packed blocks of the map
+     * @throws IllegalArgumentException if the visited states of the map do not fit in a bitset,
+     * or it has no start, end or monster block
+     */
+    public ParallelBreadthFirstSolver(CompactGrid grid) {
+        this(grid, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new solver for the map specified that runs in the pool specified.
+     *
+     * @param grid the packed blocks of the map
+     * @param pool the pool to expand the levels in
+     * @throws IllegalArgumentException if the visited states of the map do not fit in a bitset,
+     * or it has no start, end or monster block
+     */
+    public ParallelBreadthFirstSolver(CompactGrid grid, ForkJoinPool pool) {
+        if ((long) grid.size() * grid.size() > (long) Integer.MAX_VALUE * Long.SIZE) {
+            throw new IllegalArgumentException("The map is too large to keep its visited states in a bitset: " + grid.size());
+        }
+        this.engine = new GameEngine(grid);
+        this.grid = grid;
+        this.cells = grid.size();
+        this.pool = pool;
+    }
+
+    /**
+     * Solves the map from its initial state.
+     *
+     * @return the result of the search
+     */
+    public SearchResult solve() {
+        return solve(engine.getPlayer(), engine.getMonster());
+    }
+
+    /**
+     * Solves the map from the state specified.
+     *
+     * @param player the cell index of the player
+     * @param monster the cell index of the monster
+     * @return the result of the search
+     * @throws CancellationException if the thread is interrupted during the search
+     */
+    public SearchResult solve(int player, int monster) {
+        if (player == engine.getEnd()) {
+            return SearchResult.solved(List.of(), 0, 0);
+        }
+        var states = (long) cells * cells;
+        var visited = new long[(int) ((states + Long.SIZE - 1) / Long.SIZE)];
+        var start = (long) player * cells + monster;
+        mark(visited, start);
+
+        var levels = new ArrayList<long[]>();
+        var frontier = new long[]{start};
+        var goal = new AtomicLong(-1);
+        var expanded = 0L;
+        var peak = 1L;
+        while (frontier.length > 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("The search has been interrupted");
+            }
+            levels.add(frontier);
+            var next = pool.invoke(new ExpandTask(frontier, 0, frontier.length, visited, goal));
+            expanded += frontier.length;
+            if (goal.get() >= 0) {
+                return SearchResult.solved(pathTo(goal.get(), levels), expanded, peak);
+            }
+            frontier = concat(next);
+            peak = Math.max(peak, frontier.length);
+        }
+        return SearchResult.unsolved(expanded, peak);
+    }
+
+    /**
+     * Marks a state as visited.
+     *
+     * @param visited the bitset of the visited states
+     * @param state the state to mark
+     * @return true if this call marked the state, false if it had already been visited
+     */
+    private static boolean mark(long[] visited, long state) {
+        var word = (int) (state >>> 6);
+        var bit = 1L << state;
+        var old = (long) WORDS.getVolatile(visited, word);
+        while ((old & bit) == 0) {
+            var witness = (long) WORDS.compareAndExchange(visited, word, old, old | bit);
+            if (witness == old) {
+                return true;
+            }
+            old = witness;
+        }
+        return false;
+    }
+
+    /**
+     * Computes the state after a move, or -1 if the monster catches the player.
+     *
+     * @param player the cell index of the player
+     * @param monster the cell index of the monster
+     * @param direction the bit of the direction of the move
+     * @return the state after the move
+     */
+    private long successor(int player, int monster, int direction) {
+        var end = engine.getEnd();
+        var to = grid.neighbour(player, direction);
+        var toMonster = to == end ? monster : engine.nextMonsterCell(to, monster);
+        if (to != end && to == toMonster) {
+            return -1;
+        }
+        return (long) to * cells + toMonster;
+    }
+
+    /**
+     * Reconstructs the path to a state of the level after the last kept level,
+     * by finding a predecessor of each state in the level before it.
+     *
+     * @param state the last state of the path
+     * @param levels the levels of the search
+     * @return the moves leading from the start to the state
+     */
+    private List<Direction> pathTo(long state, List<long[]> levels) {
+        var moves = new ArrayList<Direction>();
+        for (var level = levels.size() - 1; level >= 0; level--) {
+            var target = state;
+            var previous = Arrays.stream(levels.get(level)).parallel()
+                    .filter(candidate -> leadsTo(candidate, target))
+                    .findAny()
+                    .orElseThrow();
+            moves.add(BreadthFirstSolver.directionBetween(grid, (int) (previous / cells), (int) (state / cells)));
+            state = previous;
+        }
+        Collections.reverse(moves);
+        return moves;
+    }
+
+    private boolean leadsTo(long from, long to) {
+        var player = (int) (from / cells);
+        var monster = (int) (from % cells);
+        var open = grid.openDirections(player);
+        for (var direction = 1; direction <= CompactGrid.OPEN_LEFT; direction <<= 1) {
+            if ((open & direction) != 0 && successor(player, monster, direction) == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long[] concat(List<long[]> chunks) {
+        var length = 0;
+        for (var chunk : chunks) {
+            length = Math.addExact(length, chunk.length);
+        }
+        var result = new long[length];
+        var offset = 0;
+        for (var chunk : chunks) {
+            System.arraycopy(chunk, 0, result, offset, chunk.length);
+            offset += chunk.length;
+        }
+        return result;
+    }
+
+    /**
+     * Expands a range of a level and returns the newly visited states as a list of chunks.
+     */
+    private class ExpandTask extends RecursiveTask<List<long[]>> {
+
+        private final long[] frontier;
+
+        private final int from;
+
+        private final int to;
+
+        private final long[] visited;
+
+        private final AtomicLong goal;
+
+        ExpandTask(long[] frontier, int from, int to, long[] visited, AtomicLong goal) {
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.visited = visited;
+            this.goal = goal;
+        }
+
+        @Override
+        protected List<long[]> compute() {
+            if (to - from > THRESHOLD) {
+                var middle = (from + to) >>> 1;
+                var left = new ExpandTask(frontier, from, middle, visited, goal);
+                left.fork();
+                var right = new ExpandTask(frontier, middle, to, visited, goal).compute();
+                var result = new ArrayList<>(left.join());
+                result.addAll(right);
+                return result;
+            }
+            var end = engine.getEnd();
+            var buffer = new long[Math.max(16, (to - from) * 2)];
+            var size = 0;
+            for (var i = from; i < to && goal.get() < 0; i++) {
+                var player = (int) (frontier[i] / cells);
+                var monster = (int) (frontier[i] % cells);
+                var open = grid.openDirections(player);
+                for (var direction = 1; direction <= CompactGrid.OPEN_LEFT; direction <<= 1) {
+                    if ((open & direction) == 0) {
+                        continue;
+                    }
+                    var next = successor(player, monster, direction);
+                    if (next < 0 || !mark(visited, next)) {
+                        continue;
+                    }
+                    if (next / cells == end) {
+                        goal.compareAndSet(-1, next);
+                    } else {
+                        if (size == buffer.length) {
+                            buffer = Arrays.copyOf(buffer, size * 2);
+                        }
+                        buffer[size++] = next;
+                    }
+                }
+            }
+            return List.of(Arrays.copyOf(buffer, size));
+        }
+
+    }
+
+}
@@ -0,0 +1,46 @@
+package mazegame.solver;
+
+import mazegame.model.Direction;
+
+import java.util.List;
+
+/**
+ * Represents the outcome of a search for the solution of a map.
+ *
+ * @param solved whether a solution has been found
+ * @param moves the moves of the solution, empty if no solution has been found
+ * @param nodesExpanded the number of states expanded during the search
+ * @param peakFrontierSize the largest number of states waiting to be expanded at the same time
+ */
+public record SearchResult(boolean solved, List<Direction> moves, long nodesExpanded, long peakFrontierSize) {
+
+    /**
+     * Creates the result of a search that found the solution specified.
+     *
+     * @param moves the moves of the solution
+     * @param nodesExpanded the number of states expanded during the search
+     * @param peakFrontierSize the largest number of states waiting to be expanded at the same time
+     * @return the result of the search
+     */
+    public static SearchResult solved(List<Direction> moves, long nodesExpanded, long peakFrontierSize) {
+        return new SearchResult(true, List.copyOf(moves), nodesExpanded, peakFrontierSize);
+    }
+
+    /**
+     * Creates the result of a search that found no solution.
+     *
+     * @param nodesExpanded the number of states expanded during the search
+     * @param peakFrontierSize the largest number of states waiting to be expanded at the same time
+     * @return the result of the search
+     */
+    public static SearchResult unsolved(long nodesExpanded, long peakFrontierSize) {
+        return new SearchResult(false, List.of(), nodesExpanded, peakFrontierSize);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SearchResult{solved=%s, moves=%d, nodesExpanded=%d, peakFrontierSize=%d}",
+                solved, moves.size(), nodesExpanded, peakFrontierSize);
+    }
+
+}
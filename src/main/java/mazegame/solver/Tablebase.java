@@ -0,0 +1,272 @@
+package mazegame.solver;
+
+import mazegame.map.CompactGrid;
+import mazegame.model.Direction;
+import mazegame.model.GameEngine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Represents the outcome of every state of a map, computed by retrograde analysis.
+ * <p>
+ * Since the monster's response to a move is deterministic, the game is a
+ * finite graph over the (player, monster) states. The tablebase is built
+ * backwards from the solved states: a breadth-first search over the reversed
+ * moves labels every state from which the player can force an escape with
+ * the number of moves needed and the first move of a shortest escape. The
+ * remaining states, including those in which the player has been caught,
+ * are lost.
+ * <p>
+ * Each state is stored as an int entry: 0 for a lost state, otherwise
+ * {@code (distance + 1) << 2 | direction}, where {@code direction} is the
+ * ordinal of the best move. States are indexed as {@code player * cells + monster}.
+ */
+public final class Tablebase {
+
+    /**
+     * The largest number of cells of a map for which a tablebase can be built.
+     */
+    public static final int MAX_CELLS = 4096;
+
+    private static final int MAGIC = 0x4d5a5442; // "MZTB"
+
+    private static final int VERSION = 1;
+
+    private final int mapId;
+
+    private final int rows;
+
+    private final int cols;
+
+    private final int[] entries;
+
+    /**
+     * Constructs a new tablebase over the entries specified.
+     *
+     * @param mapId the id of the map
+     * @param rows the number of rows of the map
+     * @param cols the number of columns of the map
+     * @param entries the entries of the states
+     */
+    private Tablebase(int mapId, int rows, int cols, int[] entries) {
+        this.mapId = mapId;
+        this.rows = rows;
+        this.cols = cols;
+        this.entries = entries;
+    }
+
+    /**
+     * Builds the tablebase of a map.
+     *
+     * @param mapId the id of the map
+     * @param grid the packed blocks of the map
+     * @return the tablebase of the map
+     * @throws IllegalArgumentException if the map has more than {@link #MAX_CELLS} cells, or it has no end block
+     */
+    public static Tablebase build(int mapId, CompactGrid grid) {
+        if (grid.size() > MAX_CELLS) {
+            throw new IllegalArgumentException("The map is too large to build a tablebase: " + grid.size());
+        }
+        var cells = grid.size();
+        var states = cells * cells;
+        var end = grid.find(CompactGrid.END);
+        var engine = new GameEngine(grid, end, end);
+
+        // Count the predecessors of every state, then store them grouped by state
+        var offsets = new int[states + 1];
+        forEachMove(grid, engine, (from, to) -> offsets[to + 1]++);
+        for (var i = 0; i < states; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        var predecessors = new int[offsets[states]];
+        var fill = offsets.clone();
+        forEachMove(grid, engine, (from, to) -> predecessors[fill[to]++] = from);
+
+        // Walk the reversed moves breadth-first from the solved states
+        var entries = new int[states];
+        var queue = new int[states];
+        var head = 0;
+        var tail = 0;
+        for (var monster = 0; monster < cells; monster++) {
+            var state = end * cells + monster;
+            entries[state] = 1 << 2;
+            queue[tail++] = state;
+        }
+        while (head < tail) {
+            var state = queue[head++];
+            var distance = (entries[state] >>> 2) - 1;
+            for (var i = offsets[state]; i < offsets[state + 1]; i++) {
+                var previous = predecessors[i];
+                if (entries[previous] == 0) {
+                    var direction = BreadthFirstSolver.directionBetween(grid, previous / cells, state / cells);
+                    entries[previous] = (distance + 2) << 2 | direction.ordinal();
+                    queue[tail++] = previous;
+                }
+            }
+        }
+        return new Tablebase(mapId, grid.rows(), grid.cols(), entries);
+    }
+
+    /**
+     * Calls the consumer with every move between two states that does not end the game
+     * by the monster catching the player. Moves are only made from states in which the
+     * game is still going on.
+     *
+     * @param grid the packed blocks of the map
+     * @param engine an engine on the map
+     * @param consumer the consumer of the moves, given the state before and after the move
+     */
+    private static void forEachMove(CompactGrid grid, GameEngine engine, MoveConsumer consumer) {
+        var cells = grid.size();
+        var end = engine.getEnd();
+        for (var player = 0; player < cells; player++) {
+            if (player == end) {
+                continue;
+            }
+            var open = grid.openDirections(player);
+            for (var monster = 0; monster < cells; monster++) {
+                if (player == monster) {
+                    continue;
+                }
+                for (var direction = 1; direction <= CompactGrid.OPEN_LEFT; direction <<= 1) {
+                    if ((open & direction) == 0) {
+                        continue;
+                    }
+                    var to = grid.neighbour(player, direction);
+                    var toMonster = to == end ? monster : engine.nextMonsterCell(to, monster);
+                    if (to == end || to != toMonster) {
+                        consumer.accept(player * cells + monster, to * cells + toMonster);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Consumes a move between two states.
+     */
+    @FunctionalInterface
+    private interface MoveConsumer {
+
+        void accept(int from, int to);
+
+    }
+
+    /**
+     * {@return the id of the map}
+     */
+    public int getMapId() {
+        return mapId;
+    }
+
+    /**
+     * Checks if the player can force an escape.
+     *
+     * @param player the cell index of the player
+     * @param monster the cell index of the monster
+     * @return true if the player can reach the end without being caught, false otherwise
+     */
+    public boolean isWin(int player, int monster) {
+        return entry(player, monster) != 0;
+    }
+
+    /**
+     * Returns the number of moves the player needs to escape.
+     *
+     * @param player the cell index of the player
+     * @param monster the cell index of the monster
+     * @return the number of moves of the shortest escape, or -1 if the player cannot escape
+     */
+    public int distance(int player, int monster) {
+        return (entry(player, monster) >>> 2) - 1;
+    }
+
+    /**
+     * Returns the first move of a shortest escape.
+     *
+     * @param player the cell index of the player
+     * @param monster the cell index of the monster
+     * @return the best move, or an empty optional if the game is solved or the player cannot escape
+     */
+    public Optional<Direction> bestMove(int player, int monster) {
+        var entry = entry(player, monster);
+        if (entry >>> 2 <= 1) {
+            return Optional.empty();
+        }
+        return Optional.of(Direction.values()[entry & 3]);
+    }
+
+    private int entry(int player, int monster) {
+        return entries[player * rows * cols + monster];
+    }
+
+    /**
+     * Writes the tablebase to a file. Entries are written with two bytes each
+     * if the longest escape allows it, otherwise with four bytes.
+     *
+     * @param path the path of the file
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(Path path) throws IOException {
+        var max = 0;
+        for (var entry : entries) {
+            max = Math.max(max, entry);
+        }
+        var width = max <= 0xffff ? Short.BYTES : Integer.BYTES;
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(mapId);
+            out.writeInt(rows);
+            out.writeInt(cols);
+            out.writeByte(width);
+            for (var entry : entries) {
+                if (width == Short.BYTES) {
+                    out.writeShort(entry);
+                } else {
+                    out.writeInt(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a tablebase from a file written by {@link #write(Path)}.
+     *
+     * @param path the path of the file
+     * @return the tablebase read
+     * @throws IOException if an I/O error occurs, or the file is not a tablebase
+     */
+    public static Tablebase read(Path path) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedShort() != VERSION) {
+                throw new IOException("Not a tablebase file: " + path);
+            }
+            var mapId = in.readInt();
+            var rows = in.readInt();
+            var cols = in.readInt();
+            var width = in.readUnsignedByte();
+            if (rows <= 0 || cols <= 0 || rows * cols > MAX_CELLS || (width != Short.BYTES && width != Integer.BYTES)) {
+                throw new IOException("Invalid tablebase header: " + path);
+            }
+            var entries = new int[rows * cols * rows * cols];
+            for (var i = 0; i < entries.length; i++) {
+                entries[i] = width == Short.BYTES ? in.readUnsignedShort() : in.readInt();
+            }
+            return new Tablebase(mapId, rows, cols, entries);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Tablebase{mapId=%d, rows=%d, cols=%d}", mapId, rows, cols);
+    }
+
+}
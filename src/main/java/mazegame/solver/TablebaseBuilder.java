@@ -0,0 +1,39 @@
+package mazegame.solver;
+
+import mazegame.map.Maps;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Builds the tablebases of the bundled maps offline.
+ */
+public class TablebaseBuilder {
+
+    /**
+     * Builds the tablebase of every bundled map and writes it to
+     * {@code map-<id>.tb} in the output directory.
+     *
+     * @param args the optional output directory, the working directory by default
+     * @throws IOException if a tablebase cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        var directory = Path.of(args.length > 0 ? args[0] : ".");
+        Files.createDirectories(directory);
+        var maps = new Maps("/mazegame/map/maps.json");
+        for (var map : maps.getMaps()) {
+            var grid = map.toCompactGrid();
+            if (grid.size() > Tablebase.MAX_CELLS) {
+                Logger.warn("Skipping map {}, it is too large for a tablebase", map.id());
+                continue;
+            }
+            var tablebase = Tablebase.build(map.id(), grid);
+            var path = directory.resolve("map-%d.tb".formatted(map.id()));
+            tablebase.write(path);
+            Logger.info("Wrote tablebase of map {} to {}", map.id(), path);
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package mazegame.game.view;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CameraTest {
+
+    Camera camera;
+
+    @BeforeEach
+    void init() {
+        camera = new Camera(100, 200, 15, 20, 3);
+    }
+
+    @Test
+    void smallMap() {
+        var small = new Camera(6, 6, 15, 15, 3);
+        assertEquals(6, small.getRows());
+        assertEquals(6, small.getCols());
+        assertFalse(small.centerOn(3, 3));
+        assertFalse(small.follow(5, 5));
+        assertTrue(small.isVisible(5, 5));
+        assertFalse(small.isVisible(6, 0));
+    }
+
+    @Test
+    void follow() {
+        assertFalse(camera.follow(11, 16));
+        assertTrue(camera.follow(12, 16));
+        assertEquals(1, camera.getTop());
+        assertEquals(0, camera.getLeft());
+        assertTrue(camera.follow(12, 17));
+        assertEquals(1, camera.getLeft());
+        assertFalse(camera.follow(4, 4));
+        assertTrue(camera.follow(3, 4));
+        assertEquals(0, camera.getTop());
+        assertTrue(camera.isVisible(0, 1));
+        assertFalse(camera.isVisible(0, 0));
+        assertFalse(camera.isVisible(15, 1));
+    }
+
+    @Test
+    void centerOn() {
+        assertTrue(camera.centerOn(50, 100));
+        assertEquals(43, camera.getTop());
+        assertEquals(90, camera.getLeft());
+        assertTrue(camera.centerOn(99, 199));
+        assertEquals(85, camera.getTop());
+        assertEquals(180, camera.getLeft());
+        assertFalse(camera.follow(98, 198));
+        assertTrue(camera.centerOn(0, 0));
+        assertEquals(0, camera.getTop());
+        assertEquals(0, camera.getLeft());
+    }
+
+    @Test
+    void constructor_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new Camera(0, 1, 1, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Camera(1, 1, 1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Camera(1, 1, 1, 1, -1));
+    }
+
+}
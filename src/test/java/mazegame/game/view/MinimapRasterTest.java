@@ -0,0 +1,61 @@
+package mazegame.game.view;
+
+import mazegame.generator.MazeAlgorithm;
+import mazegame.generator.MazeGenerator;
+import mazegame.map.CompactGrid;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinimapRasterTest {
+
+    @Test
+    void smallMap_drawsWalls() {
+        var grid = MazeGenerator.generate(1, 3, 5, 1, MazeAlgorithm.BACKTRACKER).toCompactGrid();
+        var raster = new MinimapRaster(grid, 50);
+        assertEquals(10, raster.cellPixels());
+        assertEquals(1, raster.cellsPerPixel());
+        assertEquals(50, raster.width());
+        assertEquals(30, raster.height());
+        assertEquals(50 * 30, raster.pixels().length);
+        // The border of the maze is closed, the middle of a cell is open
+        assertEquals(MinimapRaster.WALL, raster.pixels()[0]);
+        assertEquals(MinimapRaster.WALL, raster.pixels()[29 * 50 + 25]);
+        assertEquals(MinimapRaster.FLOOR, raster.pixels()[5 * 50 + 5]);
+        var end = grid.find(CompactGrid.END);
+        assertEquals(MinimapRaster.END, raster.pixels()[raster.y(grid.row(end)) * 50 + raster.x(grid.col(end))]);
+    }
+
+    @Test
+    void largeMap_downsamples() {
+        var grid = MazeGenerator.generate(1, 1000, 450, 1, MazeAlgorithm.KRUSKAL).toCompactGrid();
+        var raster = new MinimapRaster(grid, 100);
+        assertEquals(1, raster.cellPixels());
+        assertEquals(10, raster.cellsPerPixel());
+        assertEquals(45, raster.width());
+        assertEquals(100, raster.height());
+        assertEquals(44, raster.x(449));
+        assertEquals(99, raster.y(999));
+        for (var pixel : raster.pixels()) {
+            assertEquals(0xFF, pixel >>> 24);
+            assertNotEquals(MinimapRaster.FLOOR, pixel);
+        }
+    }
+
+    @Test
+    void unevenDownsampling_coversEveryCell() {
+        var grid = MazeGenerator.generate(1, 101, 7, 1, MazeAlgorithm.WILSON).toCompactGrid();
+        var raster = new MinimapRaster(grid, 50);
+        assertEquals(3, raster.cellsPerPixel());
+        assertEquals(3, raster.width());
+        assertEquals(34, raster.height());
+        assertEquals(33, raster.y(100));
+    }
+
+    @Test
+    void constructor_invalidSize() {
+        var grid = MazeGenerator.generate(1, 2, 2, 1, MazeAlgorithm.BACKTRACKER).toCompactGrid();
+        assertThrows(IllegalArgumentException.class, () -> new MinimapRaster(grid, 0));
+    }
+
+}
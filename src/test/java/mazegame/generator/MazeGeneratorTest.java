@@ -0,0 +1,151 @@
+package mazegame.generator;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mazegame.map.BinaryMapPack;
+import mazegame.map.CompactGrid;
+import mazegame.map.JsonMapPack;
+import mazegame.map.MapData;
+import mazegame.map.Maps;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MazeGeneratorTest {
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @EnumSource(MazeAlgorithm.class)
+    void generate_perfectMaze(MazeAlgorithm algorithm) {
+        for (var size : new int[][] {{1, 3}, {3, 1}, {1, 9}, {7, 1}, {2, 2}, {6, 6}, {31, 17}, {128, 128}}) {
+            var map = MazeGenerator.generate(3, size[0], size[1], 7, algorithm);
+            assertEquals(3, map.id());
+            assertPerfect(map.toCompactGrid());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(MazeAlgorithm.class)
+    void generate_reproducible(MazeAlgorithm algorithm) {
+        var first = MazeGenerator.generate(1, 40, 50, 123, algorithm).toCompactGrid().toByteArray();
+        var second = MazeGenerator.generate(1, 40, 50, 123, algorithm).toCompactGrid().toByteArray();
+        var other = MazeGenerator.generate(1, 40, 50, 124, algorithm).toCompactGrid().toByteArray();
+        assertArrayEquals(first, second);
+        assertFalse(java.util.Arrays.equals(first, other));
+    }
+
+    @Test
+    void generate_placesPieces() {
+        var grid = MazeGenerator.generate(1, 5, 8, 1, MazeAlgorithm.KRUSKAL).toCompactGrid();
+        assertEquals(0, grid.find(CompactGrid.START));
+        assertEquals(grid.size() - 1, grid.find(CompactGrid.END));
+        assertEquals(grid.index(2, 4), grid.find(CompactGrid.MONSTER));
+    }
+
+    @Test
+    void generate_monsterNotOnEnd() {
+        for (var size : new int[][] {{2, 2}, {1, 3}, {3, 1}, {2, 3}, {3, 2}}) {
+            var grid = MazeGenerator.generate(1, size[0], size[1], 1, MazeAlgorithm.KRUSKAL).toCompactGrid();
+            var monster = grid.find(CompactGrid.MONSTER);
+            assertNotEquals(grid.find(CompactGrid.START), monster);
+            assertNotEquals(grid.find(CompactGrid.END), monster);
+        }
+        assertEquals(2, MazeGenerator.generate(1, 2, 2, 1, MazeAlgorithm.KRUSKAL).toCompactGrid()
+                .find(CompactGrid.MONSTER));
+    }
+
+    @Test
+    void generate_invalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> MazeGenerator.generate(1, 0, 5, 1, MazeAlgorithm.WILSON));
+        assertThrows(IllegalArgumentException.class, () -> MazeGenerator.generate(1, 1, 1, 1, MazeAlgorithm.WILSON));
+        assertThrows(IllegalArgumentException.class, () -> MazeGenerator.generate(1, 1, 2, 1, MazeAlgorithm.WILSON));
+        assertThrows(IllegalArgumentException.class, () -> MazeGenerator.generate(1, 2, 1, 1, MazeAlgorithm.WILSON));
+        assertThrows(IllegalArgumentException.class,
+                () -> MazeGenerator.generate(1, MazeGenerator.MAX_SIZE + 1, 5, 1, MazeAlgorithm.WILSON));
+        assertThrows(IllegalArgumentException.class, () -> MazeGenerator.generatePack(-1, 5, 5, 1, MazeAlgorithm.WILSON));
+    }
+
+    @Test
+    void generatePack() throws IOException {
+        var pack = MazeGenerator.generatePack(20, 16, 12, 99, MazeAlgorithm.BACKTRACKER);
+        assertEquals(20, pack.size());
+        assertEquals(MazeGenerator.generatePack(5, 16, 12, 99, MazeAlgorithm.BACKTRACKER), pack.subList(0, 5));
+        for (var i = 0; i < pack.size(); i++) {
+            assertEquals(i + 1, pack.get(i).id());
+            assertPerfect(pack.get(i).toCompactGrid());
+        }
+
+        var json = dir.resolve("pack.json");
+        var binary = dir.resolve("pack.mzp");
+        JsonMapPack.write(json, new Maps(pack));
+        BinaryMapPack.write(binary, new Maps(pack));
+        var jsonBytes = Files.readAllBytes(json);
+        var binaryBytes = Files.readAllBytes(binary);
+        var again = MazeGenerator.generatePack(20, 16, 12, 99, MazeAlgorithm.BACKTRACKER);
+        JsonMapPack.write(json, new Maps(again));
+        BinaryMapPack.write(binary, new Maps(again));
+        assertArrayEquals(jsonBytes, Files.readAllBytes(json));
+        assertArrayEquals(binaryBytes, Files.readAllBytes(binary));
+
+        List<MapData> parsed = new ObjectMapper().readValue(jsonBytes, new TypeReference<List<MapData>>() {});
+        assertEquals(pack, parsed);
+        assertEquals(pack, new Maps(json).getMaps());
+        assertEquals(pack, new Maps(binary).getMaps());
+    }
+
+    /**
+     * Checks that the walls of neighbouring cells agree, the border is closed,
+     * and the open passages form a spanning tree of the cells.
+     */
+    private static void assertPerfect(CompactGrid grid) {
+        var passages = 0;
+        for (var cell = 0; cell < grid.size(); cell++) {
+            var bits = grid.bits(cell);
+            var row = grid.row(cell);
+            var col = grid.col(cell);
+            assertTrue(row > 0 || (bits & CompactGrid.WALL_TOP) != 0);
+            assertTrue(row < grid.rows() - 1 || (bits & CompactGrid.WALL_BOTTOM) != 0);
+            assertTrue(col > 0 || (bits & CompactGrid.WALL_LEFT) != 0);
+            assertTrue(col < grid.cols() - 1 || (bits & CompactGrid.WALL_RIGHT) != 0);
+            if (col < grid.cols() - 1) {
+                assertEquals((bits & CompactGrid.WALL_RIGHT) != 0, (grid.bits(cell + 1) & CompactGrid.WALL_LEFT) != 0);
+            }
+            if (row < grid.rows() - 1) {
+                assertEquals((bits & CompactGrid.WALL_BOTTOM) != 0, (grid.bits(cell + grid.cols()) & CompactGrid.WALL_TOP) != 0);
+            }
+            passages += Integer.bitCount(grid.openDirections(cell));
+        }
+        assertEquals(2 * (grid.size() - 1), passages);
+
+        var visited = new boolean[grid.size()];
+        var queue = new int[grid.size()];
+        var head = 0;
+        var tail = 0;
+        queue[tail++] = 0;
+        visited[0] = true;
+        while (head < tail) {
+            var cell = queue[head++];
+            for (var direction = 1; direction <= CompactGrid.OPEN_LEFT; direction <<= 1) {
+                if ((grid.openDirections(cell) & direction) != 0) {
+                    var next = grid.neighbour(cell, direction);
+                    if (!visited[next]) {
+                        visited[next] = true;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        assertEquals(grid.size(), tail);
+    }
+
+}
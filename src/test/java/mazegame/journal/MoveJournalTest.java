@@ -0,0 +1,106 @@
+package mazegame.journal;
+
+import mazegame.model.Direction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveJournalTest {
+
+    @TempDir
+    Path dir;
+
+    static JournalEntry entry(int mapId, int moves, JournalEntry.Outcome outcome) {
+        var list = new MoveList();
+        for (var i = 0; i < moves; i++) {
+            list.add(Direction.values()[(i + mapId) % 4]);
+        }
+        var started = Instant.ofEpochMilli(1_700_000_000_000L + mapId);
+        return new JournalEntry(mapId, mapId * 31L, started, started.plusSeconds(moves), outcome, list);
+    }
+
+    static List<JournalEntry> readAll(Path file) throws IOException {
+        var entries = new ArrayList<JournalEntry>();
+        MoveJournal.read(file, entries::add);
+        return entries;
+    }
+
+    @Test
+    void appendAndRead() throws IOException {
+        var file = dir.resolve("moves.journal");
+        var expected = List.of(entry(1, 4, JournalEntry.Outcome.SOLVED),
+                entry(2, 0, JournalEntry.Outcome.ABANDONED),
+                entry(3, 10_001, JournalEntry.Outcome.CAUGHT));
+        var offsets = new ArrayList<Long>();
+        try (var journal = MoveJournal.open(file)) {
+            offsets.add(journal.append(expected.get(0)));
+            offsets.add(journal.append(expected.get(1)));
+        }
+        try (var journal = MoveJournal.open(file, true)) {
+            offsets.add(journal.append(expected.get(2)));
+        }
+        assertEquals(expected, readAll(file));
+        assertEquals(8 + 3 * 45 + 1 + 0 + 2501, Files.size(file));
+        assertEquals(List.of(8L, 8L + 46, 8L + 46 + 45), offsets);
+        var read = new ArrayList<Long>();
+        MoveJournal.readWithOffsets(file, (entry, offset) -> read.add(offset));
+        assertEquals(offsets, read);
+    }
+
+    @Test
+    void open_cutsTornGame() throws IOException {
+        var file = dir.resolve("moves.journal");
+        try (var journal = MoveJournal.open(file)) {
+            journal.append(entry(1, 5, JournalEntry.Outcome.SOLVED));
+            journal.append(entry(2, 6, JournalEntry.Outcome.CAUGHT));
+        }
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        assertEquals(List.of(entry(1, 5, JournalEntry.Outcome.SOLVED)), readAll(file));
+
+        try (var journal = MoveJournal.open(file)) {
+            journal.append(entry(3, 7, JournalEntry.Outcome.SOLVED));
+        }
+        assertEquals(List.of(entry(1, 5, JournalEntry.Outcome.SOLVED), entry(3, 7, JournalEntry.Outcome.SOLVED)),
+                readAll(file));
+    }
+
+    @Test
+    void append_concurrentGames() throws Exception {
+        var file = dir.resolve("moves.journal");
+        try (var journal = MoveJournal.open(file); var executor = Executors.newFixedThreadPool(4)) {
+            for (var i = 0; i < 200; i++) {
+                var mapId = i;
+                executor.submit(() -> {
+                    journal.append(entry(mapId, mapId % 50, JournalEntry.Outcome.SOLVED));
+                    return null;
+                });
+            }
+        }
+        var entries = readAll(file);
+        assertEquals(200, entries.size());
+        for (var entry : entries) {
+            assertEquals(entry(entry.mapId(), entry.mapId() % 50, JournalEntry.Outcome.SOLVED), entry);
+        }
+    }
+
+    @Test
+    void open_notAJournal() throws IOException {
+        var file = dir.resolve("results.json");
+        Files.writeString(file, "[]");
+        assertThrows(IOException.class, () -> MoveJournal.open(file));
+    }
+
+}
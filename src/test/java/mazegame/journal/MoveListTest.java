@@ -0,0 +1,52 @@
+package mazegame.journal;
+
+import mazegame.model.Direction;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveListTest {
+
+    @Test
+    void addAndGet() {
+        var moves = new MoveList();
+        var directions = Direction.values();
+        for (var i = 0; i < 1000; i++) {
+            moves.add(directions[i * 7 % 4]);
+        }
+        assertEquals(1000, moves.size());
+        for (var i = 0; i < 1000; i++) {
+            assertEquals(directions[i * 7 % 4], moves.get(i));
+        }
+        assertEquals(250, moves.toByteArray().length);
+        assertThrows(IndexOutOfBoundsException.class, () -> moves.get(1000));
+    }
+
+    @Test
+    void packing() {
+        var moves = new MoveList();
+        moves.add(Direction.RIGHT);
+        moves.add(Direction.DOWN);
+        moves.add(Direction.LEFT);
+        moves.add(Direction.UP);
+        moves.add(Direction.LEFT);
+        assertArrayEquals(new byte[] {(byte) 0b00111001, 0b11}, moves.toByteArray());
+    }
+
+    @Test
+    void wrap() {
+        var moves = MoveList.wrap(new byte[] {(byte) 0b11111001}, 2);
+        assertEquals(2, moves.size());
+        assertEquals(Direction.RIGHT, moves.get(0));
+        assertEquals(Direction.DOWN, moves.get(1));
+        assertArrayEquals(new byte[] {0b1001}, moves.toByteArray());
+
+        var other = new MoveList();
+        other.add(Direction.RIGHT);
+        other.add(Direction.DOWN);
+        assertEquals(other, moves);
+        assertEquals(other.hashCode(), moves.hashCode());
+        assertThrows(IllegalArgumentException.class, () -> MoveList.wrap(new byte[1], 5));
+    }
+
+}
@@ -0,0 +1,146 @@
+package mazegame.journal;
+
+import mazegame.generator.MazeAlgorithm;
+import mazegame.generator.MazeGenerator;
+import mazegame.map.Maps;
+import mazegame.model.Direction;
+import mazegame.model.GameEngine;
+import mazegame.results.MapResult;
+import mazegame.solver.Algorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static mazegame.results.TestResults.result;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayVerifierTest {
+
+    @TempDir
+    Path dir;
+
+    ReplayVerifier verifier;
+
+    @BeforeEach
+    void init() {
+        verifier = new ReplayVerifier(new Maps("/mazegame/map/maps.json"));
+    }
+
+    static MoveList moves(Direction... directions) {
+        var moves = new MoveList();
+        for (var direction : directions) {
+            moves.add(direction);
+        }
+        return moves;
+    }
+
+    static JournalEntry entry(int mapId, MoveList moves, JournalEntry.Outcome outcome) {
+        return new JournalEntry(mapId, 0, Instant.EPOCH, Instant.EPOCH, outcome, moves);
+    }
+
+    @Test
+    void verify_solved() {
+        var solution = moves(Direction.RIGHT, Direction.RIGHT, Direction.RIGHT, Direction.RIGHT);
+        assertEquals(ReplayVerifier.Verdict.CONFIRMED, verifier.verify(entry(1, solution, JournalEntry.Outcome.SOLVED)));
+        assertEquals(ReplayVerifier.Verdict.WRONG_OUTCOME,
+                verifier.verify(entry(1, solution, JournalEntry.Outcome.CAUGHT)));
+        assertEquals(ReplayVerifier.Verdict.WRONG_MOVE_COUNT,
+                verifier.verify(1, solution, JournalEntry.Outcome.SOLVED, 3));
+        assertEquals(ReplayVerifier.Verdict.UNKNOWN_MAP,
+                verifier.verify(entry(12345, solution, JournalEntry.Outcome.SOLVED)));
+    }
+
+    @Test
+    void verify_abandonedAndIllegal() {
+        assertEquals(ReplayVerifier.Verdict.CONFIRMED,
+                verifier.verify(entry(1, moves(Direction.RIGHT), JournalEntry.Outcome.ABANDONED)));
+        assertEquals(ReplayVerifier.Verdict.CONFIRMED,
+                verifier.verify(entry(1, new MoveList(), JournalEntry.Outcome.ABANDONED)));
+        assertEquals(ReplayVerifier.Verdict.WRONG_OUTCOME,
+                verifier.verify(entry(1, moves(Direction.RIGHT), JournalEntry.Outcome.SOLVED)));
+        assertEquals(ReplayVerifier.Verdict.ILLEGAL_MOVE,
+                verifier.verify(entry(1, moves(Direction.UP), JournalEntry.Outcome.SOLVED)));
+    }
+
+    @Test
+    void verify_caught() {
+        var engine = new GameEngine(new Maps("/mazegame/map/maps.json").getMap(1).toCompactGrid());
+        var moves = moves(Direction.RIGHT, Direction.RIGHT, Direction.RIGHT);
+        for (var i = 0; i < 3; i++) {
+            engine.makeMove(Direction.RIGHT);
+        }
+        while (!engine.isCaught()) {
+            assertTrue(engine.makeMove(Direction.DOWN));
+            moves.add(Direction.DOWN);
+        }
+        assertEquals(ReplayVerifier.Verdict.CONFIRMED, verifier.verify(entry(1, moves, JournalEntry.Outcome.CAUGHT)));
+        moves.add(Direction.UP);
+        assertEquals(ReplayVerifier.Verdict.MOVE_AFTER_END,
+                verifier.verify(entry(1, moves, JournalEntry.Outcome.CAUGHT)));
+    }
+
+    @Test
+    void verifyJournal() throws IOException {
+        var maps = new Maps(MazeGenerator.generatePack(4, 20, 20, 5, MazeAlgorithm.BACKTRACKER));
+        var verifier = new ReplayVerifier(maps);
+        var file = dir.resolve("moves.journal");
+        var entries = new ArrayList<JournalEntry>();
+        try (var journal = MoveJournal.open(file)) {
+            for (var map : maps.getMaps()) {
+                var result = Algorithm.BFS.solve(map.toCompactGrid());
+                if (!result.solved()) {
+                    continue;
+                }
+                var solution = new MoveList();
+                result.moves().forEach(solution::add);
+                for (var outcome : JournalEntry.Outcome.values()) {
+                    var entry = entry(map.id(), solution, outcome);
+                    journal.append(entry);
+                    entries.add(entry);
+                }
+            }
+        }
+        assertFalse(entries.isEmpty());
+        var games = entries.size() / 3;
+        assertEquals(Map.of(ReplayVerifier.Verdict.CONFIRMED, (long) games,
+                ReplayVerifier.Verdict.WRONG_OUTCOME, 2L * games), verifier.verifyJournal(file));
+        var verdicts = verifier.verifyAll(entries);
+        for (var i = 0; i < entries.size(); i++) {
+            assertEquals(entries.get(i).outcome() == JournalEntry.Outcome.SOLVED
+                    ? ReplayVerifier.Verdict.CONFIRMED : ReplayVerifier.Verdict.WRONG_OUTCOME, verdicts[i]);
+        }
+    }
+
+    @Test
+    void verifyResults() throws IOException {
+        var file = dir.resolve("moves.journal");
+        var solution = moves(Direction.RIGHT, Direction.RIGHT, Direction.RIGHT, Direction.RIGHT);
+        long solved;
+        long abandoned;
+        try (var journal = MoveJournal.open(file)) {
+            solved = journal.append(entry(1, solution, JournalEntry.Outcome.SOLVED));
+            abandoned = journal.append(entry(1, moves(Direction.RIGHT), JournalEntry.Outcome.ABANDONED));
+        }
+        assertEquals(Map.of(ReplayVerifier.Verdict.CONFIRMED, 1L,
+                        ReplayVerifier.Verdict.DUPLICATE_GAME, 1L,
+                        ReplayVerifier.Verdict.NOT_IN_JOURNAL, 1L,
+                        ReplayVerifier.Verdict.NOT_RECORDED, 1L),
+                verifier.verifyResults(file, List.of(result(1, solved, true, 4), result(1, solved, true, 4),
+                        result(1, abandoned + 1000, true, 4), result(1, MapResult.UNRECORDED, true, 4))));
+        // A game that was given up, saved as solved, with the moves of another game, or on another map
+        assertEquals(Map.of(ReplayVerifier.Verdict.WRONG_OUTCOME, 1L),
+                verifier.verifyResults(file, List.of(result(1, abandoned, true, 1))));
+        assertEquals(Map.of(ReplayVerifier.Verdict.WRONG_MOVE_COUNT, 1L),
+                verifier.verifyResults(file, List.of(result(1, abandoned, true, 4))));
+        assertEquals(Map.of(ReplayVerifier.Verdict.WRONG_MAP, 1L),
+                verifier.verifyResults(file, List.of(result(2, solved, true, 4))));
+    }
+
+}
@@ -0,0 +1,104 @@
+package mazegame.map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryMapPackTest {
+
+    @TempDir
+    Path dir;
+
+    Maps maps;
+
+    @BeforeEach
+    void loadMaps() {
+        maps = new Maps("/mazegame/map/maps.json");
+    }
+
+    @Test
+    void writeAndOpen() throws IOException {
+        var file = dir.resolve("maps.mzp");
+        BinaryMapPack.write(file, maps);
+        assertTrue(BinaryMapPack.isBinary(file));
+
+        var pack = BinaryMapPack.open(file);
+        assertEquals(maps.getHeaders(), pack.headers());
+        for (var i = 0; i < maps.getHeaders().size(); i++) {
+            assertEquals(maps.getMaps().get(i), pack.read(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> pack.read(maps.getHeaders().size()));
+
+        var bytes = Files.readAllBytes(file);
+        assertEquals(pack.headers(), BinaryMapPack.of(ByteBuffer.wrap(bytes)).headers());
+        try (var in = getClass().getResourceAsStream("/mazegame/map/maps.json")) {
+            assertTrue(bytes.length * 10 < in.readAllBytes().length);
+        }
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void maps_detectsFormat() throws IOException {
+        var binary = dir.resolve("maps.mzp");
+        BinaryMapPack.write(binary, maps);
+        var json = dir.resolve("maps.json");
+        try (var in = getClass().getResourceAsStream("/mazegame/map/maps.json")) {
+            Files.copy(in, json);
+        }
+        assertFalse(BinaryMapPack.isBinary(json));
+        assertEquals(maps.getMaps(), new Maps(binary).getMaps());
+        assertEquals(maps.getMaps(), new Maps(json).getMaps());
+    }
+
+    @Test
+    void manyMaps() throws IOException {
+        var grid = maps.getMap(1).toCompactGrid();
+        var many = new ArrayList<MapData>();
+        for (var id = 1; id <= 10_000; id++) {
+            many.add(MapData.of(id, id % 2 == 0 ? null : "Map " + id, grid));
+        }
+        var file = dir.resolve("many.mzp");
+        BinaryMapPack.write(file, new Maps(many));
+
+        var loaded = new Maps(file);
+        assertEquals(10_000, loaded.getHeaders().size());
+        assertNull(loaded.getMap(5000).name());
+        assertEquals("Map 9999", loaded.getMap(9999).name());
+        assertArrayEquals(grid.toByteArray(), loaded.getMap(9999).toCompactGrid().toByteArray());
+    }
+
+    @Test
+    void invalid() throws IOException {
+        var file = dir.resolve("maps.mzp");
+        BinaryMapPack.write(file, maps);
+        var bytes = Files.readAllBytes(file);
+
+        assertThrows(IOException.class, () -> BinaryMapPack.of(ByteBuffer.wrap(new byte[4])));
+        var version = bytes.clone();
+        version[5] = 2;
+        assertThrows(IOException.class, () -> BinaryMapPack.of(ByteBuffer.wrap(version)));
+        var truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        assertThrows(IOException.class, () -> BinaryMapPack.of(ByteBuffer.wrap(truncated)));
+        var rows = bytes.clone();
+        rows[16 + 7] = 0;
+        assertThrows(IOException.class, () -> BinaryMapPack.of(ByteBuffer.wrap(rows)));
+        var cell = bytes.clone();
+        cell[cell.length - 1] = (byte) 0x80;
+        var corrupt = BinaryMapPack.of(ByteBuffer.wrap(cell));
+        assertThrows(IOException.class, () -> corrupt.read(corrupt.headers().size() - 1));
+        assertEquals(List.of(), new Maps(List.of()).getHeaders());
+    }
+
+}
@@ -0,0 +1,117 @@
+package mazegame.map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactGridTest {
+
+    MapData map;
+
+    CompactGrid grid;
+
+    @BeforeEach
+    void init() {
+        map = new MapData(1, "Map 1", 2, 3, List.of(
+                List.of(Block.of(true, false, false, true, true, false, false),
+                        Block.of(true, false, true, false, false, false, false),
+                        Block.of(true, true, false, false, false, true, false)),
+                List.of(Block.of(false, false, true, true, false, false, false),
+                        Block.of(true, false, true, false, false, false, true),
+                        Block.of(false, true, true, false, false, false, false))));
+        grid = CompactGrid.of(map);
+    }
+
+    @Test
+    void of() {
+        assertEquals(2, grid.rows());
+        assertEquals(3, grid.cols());
+        assertEquals(6, grid.size());
+        for (var row = 0; row < map.rows(); row++) {
+            for (var col = 0; col < map.cols(); col++) {
+                assertEquals(map.blocks().get(row).get(col), grid.block(row, col));
+            }
+        }
+    }
+
+    @Test
+    void of_compactMap() {
+        var compact = map.compact();
+        assertSame(compact.toCompactGrid(), compact.toCompactGrid());
+        assertEquals(map.blocks(), compact.blocks());
+    }
+
+    @Test
+    void wrap() {
+        var wrapped = CompactGrid.wrap(2, 3, grid.toByteArray());
+        assertEquals(map.blocks(), wrapped.asBlocks());
+        assertThrows(IllegalArgumentException.class, () -> CompactGrid.wrap(0, 3, new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> CompactGrid.wrap(2, 3, new byte[5]));
+        assertThrows(IllegalArgumentException.class, () -> CompactGrid.wrap(1, 1, new byte[]{(byte) 0x80}));
+    }
+
+    @Test
+    void bits() {
+        assertEquals(CompactGrid.WALL_TOP | CompactGrid.WALL_LEFT | CompactGrid.START, grid.bits(0));
+        assertEquals(CompactGrid.WALL_TOP | CompactGrid.WALL_BOTTOM | CompactGrid.MONSTER, grid.bits(grid.index(1, 1)));
+        assertSame(CompactGrid.blockOf(grid.bits(1)), grid.block(0, 1));
+    }
+
+    @Test
+    void index() {
+        assertEquals(5, grid.index(1, 2));
+        assertEquals(1, grid.row(5));
+        assertEquals(2, grid.col(5));
+    }
+
+    @Test
+    void find() {
+        assertEquals(0, grid.find(CompactGrid.START));
+        assertEquals(2, grid.find(CompactGrid.END));
+        assertEquals(4, grid.find(CompactGrid.MONSTER));
+        assertEquals(-1, CompactGrid.wrap(1, 1, new byte[1]).find(CompactGrid.START));
+    }
+
+    @Test
+    void openDirections() {
+        assertEquals(CompactGrid.OPEN_RIGHT | CompactGrid.OPEN_DOWN, grid.openDirections(grid.index(0, 0)));
+        assertEquals(CompactGrid.OPEN_RIGHT | CompactGrid.OPEN_LEFT, grid.openDirections(grid.index(0, 1)));
+        assertEquals(CompactGrid.OPEN_DOWN | CompactGrid.OPEN_LEFT, grid.openDirections(grid.index(0, 2)));
+        assertEquals(CompactGrid.OPEN_UP | CompactGrid.OPEN_RIGHT, grid.openDirections(grid.index(1, 0)));
+        assertEquals(CompactGrid.OPEN_RIGHT | CompactGrid.OPEN_LEFT, grid.openDirections(grid.index(1, 1)));
+        assertEquals(CompactGrid.OPEN_UP | CompactGrid.OPEN_LEFT, grid.openDirections(grid.index(1, 2)));
+    }
+
+    @Test
+    void openDirections_resolvesWallsOfNeighbours() {
+        var open = CompactGrid.wrap(1, 2, new byte[]{0, 0});
+        assertEquals(CompactGrid.OPEN_RIGHT, open.openDirections(0));
+        assertEquals(CompactGrid.OPEN_LEFT, open.openDirections(1));
+        var walled = CompactGrid.wrap(1, 2, new byte[]{0, CompactGrid.WALL_LEFT});
+        assertEquals(0, walled.openDirections(0));
+        assertEquals(0, walled.openDirections(1));
+    }
+
+    @Test
+    void neighbour() {
+        assertEquals(1, grid.neighbour(4, CompactGrid.OPEN_UP));
+        assertEquals(5, grid.neighbour(4, CompactGrid.OPEN_RIGHT));
+        assertEquals(3, grid.neighbour(0, CompactGrid.OPEN_DOWN));
+        assertEquals(3, grid.neighbour(4, CompactGrid.OPEN_LEFT));
+        assertThrows(IllegalArgumentException.class, () -> grid.neighbour(0, 3));
+    }
+
+    @Test
+    void asBlocks() {
+        var blocks = grid.asBlocks();
+        assertEquals(2, blocks.size());
+        assertEquals(3, blocks.get(0).size());
+        assertThrows(IndexOutOfBoundsException.class, () -> blocks.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> blocks.get(0).get(3));
+        assertThrows(UnsupportedOperationException.class, () -> blocks.get(0).set(0, Block.of()));
+    }
+
+}
@@ -0,0 +1,114 @@
+package mazegame.map;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonMapPackTest {
+
+    @TempDir
+    Path dir;
+
+    byte[] bytes;
+
+    List<MapData> expected;
+
+    @BeforeEach
+    void loadMaps() throws IOException {
+        try (var in = getClass().getResourceAsStream("/mazegame/map/maps.json")) {
+            bytes = in.readAllBytes();
+        }
+        expected = new ObjectMapper().readValue(bytes, new TypeReference<List<MapData>>() {});
+    }
+
+    @Test
+    void headers() throws IOException {
+        var pack = JsonMapPack.of(bytes);
+        assertEquals(expected.stream().map(MapHeader::of).toList(), pack.headers());
+        assertThrows(UnsupportedOperationException.class, () -> pack.headers().clear());
+    }
+
+    @Test
+    void read() throws IOException {
+        var file = Files.write(dir.resolve("maps.json"), bytes);
+        for (var pack : List.of(JsonMapPack.of(bytes), JsonMapPack.open(file))) {
+            for (var i = 0; i < expected.size(); i++) {
+                var map = pack.read(i);
+                assertEquals(expected.get(i), map);
+                assertArrayEquals(expected.get(i).toCompactGrid().toByteArray(), map.toCompactGrid().toByteArray());
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> pack.read(expected.size()));
+        }
+    }
+
+    @Test
+    void read_changedFile() throws IOException {
+        var file = Files.write(dir.resolve("maps.json"), bytes);
+        var pack = JsonMapPack.open(file);
+        Files.writeString(file, "[" + map(7, 1, 2) + "]");
+        assertThrows(IOException.class, () -> pack.read(expected.size() - 1));
+    }
+
+    @Test
+    void read_replacedFile() throws IOException {
+        var file = Files.writeString(dir.resolve("maps.json"), "[" + map(7, 1, 2) + "]");
+        var pack = JsonMapPack.open(file);
+        var replacement = Files.writeString(dir.resolve("replacement.json"),
+                "[" + map(7, 1, 2).replace("start", "end") + "]");
+        Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        assertEquals(CompactGrid.START, pack.read(0).toCompactGrid().bits(0));
+        assertEquals(CompactGrid.END, JsonMapPack.open(file).read(0).toCompactGrid().bits(0));
+    }
+
+    @Test
+    void read_interrupted() throws IOException {
+        var file = Files.write(dir.resolve("maps.json"), bytes);
+        var pack = JsonMapPack.open(file);
+        Thread.currentThread().interrupt();
+        try {
+            assertEquals(expected.getFirst(), pack.read(0));
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(expected.getFirst(), pack.read(0));
+    }
+
+    @Test
+    void invalid() throws IOException {
+        assertEquals(List.of(), JsonMapPack.of(bytes("[]")).headers());
+        assertThrows(IOException.class, () -> JsonMapPack.of(bytes("{}")));
+        assertThrows(IOException.class, () -> JsonMapPack.of(bytes("[1]")));
+        assertThrows(IOException.class, () -> JsonMapPack.of(bytes("[" + map(1, 1, 2))));
+        assertThrows(IOException.class, () -> JsonMapPack.of(bytes("[{\"id\": 1, \"rows\": 0, \"cols\": 1, \"blocks\": []}]")));
+        assertThrows(IOException.class, () -> JsonMapPack.of(bytes("[{\"id\": 1, \"rows\": 1, \"cols\": 1}]")));
+
+        var pack = JsonMapPack.of(bytes("[{\"id\": 1, \"rows\": 2, \"cols\": 2, \"blocks\": [[{}, {}]]}]"));
+        assertEquals(new MapHeader(1, null, 2, 2), pack.headers().getFirst());
+        assertThrows(IOException.class, () -> pack.read(0));
+        var wide = JsonMapPack.of(bytes("[{\"id\": 1, \"rows\": 1, \"cols\": 1, \"blocks\": [[{}, {}]]}]"));
+        assertThrows(IOException.class, () -> wide.read(0));
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String map(int id, int rows, int cols) {
+        var row = String.join(", ", java.util.Collections.nCopies(cols, "{\"start\": true}"));
+        var blocks = String.join(", ", java.util.Collections.nCopies(rows, "[" + row + "]"));
+        return "{\"id\": " + id + ", \"name\": \"Map " + id + "\", \"rows\": " + rows + ", \"cols\": " + cols
+                + ", \"blocks\": [" + blocks + "]}";
+    }
+
+}
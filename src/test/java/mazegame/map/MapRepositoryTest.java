@@ -0,0 +1,67 @@
+package mazegame.map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void ofResource() {
+        var repository = MapRepository.ofResource(MapRepository.DEFAULT_RESOURCE);
+        assertSame(repository, MapRepository.ofResource(MapRepository.DEFAULT_RESOURCE));
+        assertSame(repository.snapshot(), repository.snapshot());
+        assertNotNull(repository.snapshot().getMap(1));
+        assertThrows(NullPointerException.class, () -> MapRepository.ofResource("/mazegame/map/missing.json"));
+    }
+
+    @Test
+    void ofFile() throws IOException {
+        var file = copyMaps(dir.resolve("maps.json"));
+        try (var repository = MapRepository.ofFile(file)) {
+            assertSame(repository, MapRepository.ofFile(dir.resolve(".").resolve("maps.json")));
+            assertEquals(new Maps(MapRepository.DEFAULT_RESOURCE).getMaps(), repository.snapshot().getMaps());
+        }
+        assertThrows(IOException.class, () -> MapRepository.ofFile(dir.resolve("missing.json")));
+    }
+
+    @Test
+    void reload() throws IOException, InterruptedException {
+        var file = copyMaps(dir.resolve("maps.json"));
+        try (var repository = MapRepository.ofFile(file)) {
+            var before = repository.snapshot();
+            var map = before.getMap(1);
+
+            Files.writeString(file, "[{\"id\": 1, \"name\": \"Reloaded\", \"rows\": 1, \"cols\": 2, \"blocks\": [["
+                    + "{\"wallTop\": true, \"wallRight\": false, \"wallBottom\": true, \"wallLeft\": true, \"start\": true, \"end\": false, \"monster\": true},"
+                    + "{\"wallTop\": true, \"wallRight\": true, \"wallBottom\": true, \"wallLeft\": false, \"start\": false, \"end\": true, \"monster\": false}"
+                    + "]]}]");
+
+            var deadline = System.nanoTime() + 20_000_000_000L;
+            while (repository.snapshot() == before && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertNotSame(before, repository.snapshot());
+            assertEquals("Reloaded", repository.snapshot().getMap(1).name());
+            assertSame(map, before.getMap(1));
+        }
+    }
+
+    private static Path copyMaps(Path file) throws IOException {
+        try (InputStream in = MapRepositoryTest.class.getResourceAsStream(MapRepository.DEFAULT_RESOURCE)) {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+}
@@ -2,6 +2,11 @@ package mazegame.map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -23,10 +28,35 @@ class MapsTest {
         assertThrows(IllegalArgumentException.class, () -> maps.getMap(0));
     }
 
+    @Test
+    void getHeader() {
+        var map = maps.getMap(1);
+        assertEquals(new MapHeader(map.id(), map.name(), map.rows(), map.cols()), maps.getHeader(1));
+        assertThrows(IllegalArgumentException.class, () -> maps.getHeader(0));
+    }
+
     @Test
     void getMaps() {
         assertNotNull(maps.getMaps());
         assertTrue(!maps.getMaps().isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> maps.getMaps().clear());
+        assertEquals(maps.getMaps().size(), maps.getHeaders().size());
+    }
+
+    @Test
+    void lazyFile(@TempDir Path dir) throws IOException {
+        var file = dir.resolve("maps.json");
+        try (var in = getClass().getResourceAsStream("/mazegame/map/maps.json")) {
+            Files.copy(in, file);
+        }
+        var lazy = new Maps(file, 0);
+        assertEquals(maps.getMaps(), lazy.getMaps());
+        assertEquals(maps.getMap(2), lazy.getMap(2));
+        assertSame(lazy.getMap(2), lazy.getMap(2));
+        lazy.getMap(1);
+        assertNotSame(maps.getMap(2), lazy.getMap(2));
+        assertThrows(IllegalArgumentException.class, () -> lazy.getMap(0));
+        assertThrows(IllegalArgumentException.class, () -> new Maps(file, -1));
     }
 
 }
\ No newline at end of file
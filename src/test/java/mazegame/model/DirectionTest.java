@@ -1,5 +1,6 @@
 package mazegame.model;
 
+import mazegame.map.CompactGrid;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -19,4 +20,12 @@ class DirectionTest {
         assertThrows(IllegalArgumentException.class, () -> Direction.of(0, 0));
     }
 
-}
\ No newline at end of file
+    @Test
+    void getMask() {
+        assertEquals(CompactGrid.OPEN_UP, Direction.UP.getMask());
+        assertEquals(CompactGrid.OPEN_RIGHT, Direction.RIGHT.getMask());
+        assertEquals(CompactGrid.OPEN_DOWN, Direction.DOWN.getMask());
+        assertEquals(CompactGrid.OPEN_LEFT, Direction.LEFT.getMask());
+    }
+
+}
@@ -0,0 +1,93 @@
+package mazegame.model;
+
+import mazegame.map.Maps;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameEngineTest {
+
+    GameEngine engine;
+
+    @BeforeEach
+    void init() {
+        var maps = new Maps("/mazegame/map/maps.json");
+        engine = new GameEngine(maps.getMap(1).toCompactGrid());
+    }
+
+    @Test
+    void initialState() {
+        assertEquals(new Position(0, 0), engine.toPosition(engine.getPlayer()));
+        assertEquals(new Position(3, 2), engine.toPosition(engine.getMonster()));
+        assertEquals(new Position(0, 4), engine.toPosition(engine.getEnd()));
+        assertFalse(engine.isSolved());
+        assertFalse(engine.isCaught());
+    }
+
+    @Test
+    void isLegalMove() {
+        assertTrue(engine.isLegalMove(Direction.RIGHT));
+        assertFalse(engine.isLegalMove(Direction.UP));
+        assertFalse(engine.isLegalMove(Direction.DOWN));
+        assertFalse(engine.isLegalMove(Direction.LEFT));
+        assertEquals(Direction.RIGHT.getMask(), engine.getLegalMoves());
+    }
+
+    @Test
+    void makeMove() {
+        assertFalse(engine.makeMove(Direction.UP));
+        assertEquals(new Position(0, 0), engine.toPosition(engine.getPlayer()));
+        assertTrue(engine.makeMove(Direction.RIGHT));
+        assertEquals(new Position(0, 1), engine.toPosition(engine.getPlayer()));
+        assertEquals(new Position(2, 1), engine.toPosition(engine.getMonster()));
+    }
+
+    @Test
+    void makeMove_solved() {
+        for (var i = 0; i < 4; i++) {
+            assertTrue(engine.makeMove(Direction.RIGHT));
+        }
+        assertTrue(engine.isSolved());
+        assertEquals(0, engine.getLegalMoves());
+        assertFalse(engine.makeMove(Direction.LEFT));
+    }
+
+    @Test
+    void makeMove_caught() {
+        for (var i = 0; i < 3; i++) {
+            engine.makeMove(Direction.RIGHT);
+        }
+        for (var i = 0; i < 4; i++) {
+            engine.makeMove(Direction.DOWN);
+        }
+        assertTrue(engine.isCaught());
+        assertEquals(new Position(4, 3), engine.toPosition(engine.getMonster()));
+    }
+
+    @Test
+    void nextMonsterCell() {
+        var grid = engine.getGrid();
+        assertEquals(grid.index(2, 1), engine.nextMonsterCell(grid.index(0, 1), grid.index(3, 2)));
+        assertEquals(grid.index(3, 2), engine.nextMonsterCell(grid.index(3, 2), grid.index(3, 2)));
+    }
+
+    @Test
+    void copy() {
+        var copy = engine.copy();
+        copy.makeMove(Direction.RIGHT);
+        assertNotEquals(copy.getPlayer(), engine.getPlayer());
+        assertSame(engine.getGrid(), copy.getGrid());
+    }
+
+    @Test
+    void setState() {
+        var grid = engine.getGrid();
+        engine.setState(grid.index(0, 3), grid.index(5, 5));
+        assertEquals(grid.index(0, 3), engine.getPlayer());
+        assertEquals(grid.index(5, 5), engine.getMonster());
+        assertThrows(IllegalArgumentException.class, () -> engine.setState(-1, 0));
+        assertThrows(IllegalArgumentException.class, () -> engine.setState(0, grid.size()));
+    }
+
+}
@@ -146,6 +146,14 @@ class GameStateTest {
         assertEquals(EnumSet.of(Direction.RIGHT), gameState5.getLegalMoves());
     }
 
+    @Test
+    void getLegalMovesMask() {
+        assertEquals(0, gameState1.getLegalMovesMask());
+        assertEquals(Direction.RIGHT.getMask() | Direction.DOWN.getMask() | Direction.LEFT.getMask(),
+                gameState2.getLegalMovesMask());
+        assertEquals(Direction.RIGHT.getMask(), gameState5.getLegalMovesMask());
+    }
+
     @Test
     void testEquals() {
         assertTrue(gameState1.equals(gameState1));
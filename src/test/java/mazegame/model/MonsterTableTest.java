@@ -0,0 +1,120 @@
+package mazegame.model;
+
+import mazegame.generator.MazeAlgorithm;
+import mazegame.generator.MazeGenerator;
+import mazegame.map.MapData;
+import mazegame.map.Maps;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonsterTableTest {
+
+    @Test
+    void build_matchesMonsterMoves() {
+        var maps = new ArrayList<>(new Maps("/mazegame/map/maps.json").getMaps());
+        for (var algorithm : MazeAlgorithm.values()) {
+            maps.add(MazeGenerator.generate(1, 7, 9, 1, algorithm));
+            maps.add(MazeGenerator.generate(1, 1, 30, 2, algorithm));
+            maps.add(MazeGenerator.generate(1, 32, 40, 3, algorithm));
+        }
+        for (var map : maps) {
+            var grid = map.toCompactGrid();
+            var table = MonsterTable.build(grid);
+            assertEquals(grid.size(), table.size());
+            for (var player = 0; player < grid.size(); player++) {
+                var playerPosition = new Position(grid.row(player), grid.col(player));
+                for (var monster = 0; monster < grid.size(); monster++) {
+                    var expected = moveMonster(map, playerPosition, new Position(grid.row(monster), grid.col(monster)));
+                    assertEquals(grid.index(expected.row(), expected.col()), table.next(player, monster),
+                            () -> "Map " + map.name());
+                }
+            }
+        }
+    }
+
+    @Test
+    void forGrid() {
+        var grid = new Maps("/mazegame/map/maps.json").getMap(1).toCompactGrid();
+        var table = MonsterTable.forGrid(grid).orElseThrow();
+        assertSame(table, MonsterTable.forGrid(grid).orElseThrow());
+
+        var large = MazeGenerator.generate(1, 64, 64, 1, MazeAlgorithm.KRUSKAL).toCompactGrid();
+        assertTrue(MonsterTable.forGrid(large).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> MonsterTable.build(large));
+        assertThrows(IllegalArgumentException.class, () -> new GameEngine(large, table));
+    }
+
+    @Test
+    void gameEngine_sameGames() {
+        var random = new SplittableRandom(5);
+        var directions = Direction.values();
+        for (var algorithm : MazeAlgorithm.values()) {
+            var grid = MazeGenerator.generate(1, 24, 24, 9, algorithm).toCompactGrid();
+            var table = MonsterTable.build(grid);
+            for (var game = 0; game < 50; game++) {
+                var computed = new GameEngine(grid);
+                var precomputed = new GameEngine(grid, table);
+                for (var move = 0; move < 200 && !computed.isSolved() && !computed.isCaught(); move++) {
+                    var direction = directions[random.nextInt(directions.length)];
+                    assertEquals(computed.makeMove(direction), precomputed.makeMove(direction));
+                    assertEquals(computed.getMonster(), precomputed.getMonster());
+                    assertEquals(computed.getPlayer(), precomputed.getPlayer());
+                }
+                assertEquals(precomputed.getMonster(), precomputed.copy().getMonster());
+            }
+        }
+    }
+
+    /**
+     * Moves the monster with the position based rules the game was written
+     * with: horizontally, then vertically, then horizontally again, taking at
+     * most two steps and never moving through a wall.
+     */
+    private static Position moveMonster(MapData map, Position player, Position monster) {
+        var distanceX = player.col() - monster.col();
+        var distanceY = player.row() - monster.row();
+        var path = new ArrayList<>(List.of(monster));
+        moveInDirection(map, path, distanceX, Direction.RIGHT, Direction.LEFT);
+        if (path.size() < 3) {
+            moveInDirection(map, path, distanceY, Direction.DOWN, Direction.UP);
+        }
+        if (path.size() < 3 && distanceX != 0) {
+            moveInDirection(map, path, distanceX, Direction.RIGHT, Direction.LEFT);
+        }
+        return path.getLast();
+    }
+
+    private static void moveInDirection(MapData map, List<Position> path, int distance,
+                                        Direction positive, Direction negative) {
+        if (distance == 0) {
+            return;
+        }
+        var direction = distance > 0 ? positive : negative;
+        for (var i = 0; i < Math.abs(distance) && path.size() < 3; i++) {
+            if (canMove(map, path.getLast(), direction)) {
+                path.add(path.getLast().move(direction));
+            }
+        }
+    }
+
+    private static boolean canMove(MapData map, Position from, Direction direction) {
+        var to = from.move(direction);
+        if (to.row() < 0 || to.row() >= map.rows() || to.col() < 0 || to.col() >= map.cols()) {
+            return false;
+        }
+        var block = map.blocks().get(from.row()).get(from.col());
+        var next = map.blocks().get(to.row()).get(to.col());
+        return switch (direction) {
+            case UP -> !block.wallTop() && !next.wallBottom();
+            case RIGHT -> !block.wallRight() && !next.wallLeft();
+            case DOWN -> !block.wallBottom() && !next.wallTop();
+            case LEFT -> !block.wallLeft() && !next.wallRight();
+        };
+    }
+
+}
@@ -0,0 +1,133 @@
+package mazegame.results;
+
+import mazegame.results.LeaderboardIndex.Criterion;
+import mazegame.results.LeaderboardIndex.Ranking;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardIndexTest {
+
+    @TempDir
+    Path dir;
+
+    static MapResult result(int mapId, String playerName, boolean solved, int numberOfMoves, long seconds) {
+        return TestResults.result(mapId, playerName, solved, numberOfMoves, Duration.ofSeconds(seconds), null);
+    }
+
+    static List<String> names(List<MapResult> results) {
+        return results.stream().map(result -> result.result().getPlayerName()).toList();
+    }
+
+    @Test
+    void top_ordersByCriterion() throws IOException {
+        var index = LeaderboardIndex.open(dir);
+        index.add(result(1, "A", true, 30, 10));
+        index.add(result(1, "B", true, 20, 40));
+        index.add(result(2, "C", true, 25, 5));
+        index.add(result(1, "D", false, 10, 1));
+        index.add(result(1, "E", true, 20, 30));
+
+        assertEquals(List.of("E", "B", "A"), names(index.top(new Ranking(1, Criterion.MOVES, true), 10)));
+        assertEquals(List.of("D", "E", "B", "A"), names(index.top(new Ranking(1, Criterion.MOVES, false), 10)));
+        assertEquals(List.of("A", "E", "B"), names(index.top(new Ranking(1, Criterion.DURATION, true), 10)));
+        assertEquals(List.of("C"), names(index.top(new Ranking(2, Criterion.MOVES, true), 10)));
+        assertEquals(List.of("E", "B", "C"),
+                names(index.top(new Ranking(LeaderboardIndex.ALL_MAPS, Criterion.MOVES, true), 3)));
+        assertEquals(List.of(), index.top(new Ranking(3, Criterion.MOVES, true), 10));
+    }
+
+    @Test
+    void add_keepsCapacityAndSurvivesReopen() throws IOException {
+        var random = new Random(42);
+        var results = IntStream.range(0, 200)
+                .mapToObj(i -> result(1 + random.nextInt(3), "P" + i, random.nextBoolean(),
+                        random.nextInt(50), random.nextInt(100)))
+                .toList();
+        var index = LeaderboardIndex.open(dir, 10);
+        for (var result : results) {
+            index.add(result);
+        }
+        var ranking = new Ranking(2, Criterion.DURATION, true);
+        var expected = results.stream()
+                .filter(result -> result.mapId() == 2 && result.result().isSolved())
+                .sorted(Comparator.comparing((MapResult result) -> result.result().getDuration())
+                        .thenComparingInt(result -> result.result().getNumberOfMoves()))
+                .limit(10)
+                .toList();
+        assertEquals(expected, index.top(ranking, 100));
+        assertEquals(expected, LeaderboardIndex.open(dir, 10).top(ranking, 100));
+
+        // Results added together give the same rankings
+        var batched = LeaderboardIndex.open(dir.resolve("batched"), 10);
+        for (var i = 0; i < results.size(); i += 7) {
+            batched.add(results.subList(i, Math.min(i + 7, results.size())));
+        }
+        assertEquals(200, batched.getResultCount());
+        assertEquals(expected, LeaderboardIndex.open(dir.resolve("batched"), 10).top(ranking, 100));
+    }
+
+    @Test
+    void rebuild() throws IOException {
+        var index = LeaderboardIndex.open(dir.resolve("leaderboard"), 5);
+        index.add(result(1, "Stale", true, 1, 1));
+        try (var store = ResultStore.open(dir.resolve("store"))) {
+            for (var i = 0; i < 20; i++) {
+                store.append(result(1, "P" + i, true, 40 - i, i));
+            }
+            index.rebuild(store);
+        }
+        var ranking = new Ranking(1, Criterion.MOVES, true);
+        var expected = List.of("P19", "P18", "P17", "P16", "P15");
+        assertEquals(expected, names(index.top(ranking, 10)));
+        assertEquals(expected, names(LeaderboardIndex.open(dir.resolve("leaderboard"), 5).top(ranking, 10)));
+    }
+
+    @Test
+    void recover_addsMissingResultsOnce() throws IOException {
+        var ranking = new Ranking(1, Criterion.MOVES, false);
+        try (var store = ResultStore.open(dir.resolve("store"))) {
+            var index = LeaderboardIndex.open(dir.resolve("leaderboard"), 5);
+            for (var i = 0; i < 10; i++) {
+                var result = result(1, "P" + i, i % 2 == 0, 40 - i, i);
+                store.append(result);
+                if (i < 6) {
+                    index.add(result);
+                }
+            }
+            assertEquals(6, index.getResultCount());
+
+            var reopened = LeaderboardIndex.open(dir.resolve("leaderboard"), 5);
+            assertEquals(6, reopened.getResultCount());
+            reopened.recover(store);
+            assertEquals(10, reopened.getResultCount());
+            assertEquals(List.of("P9", "P8", "P7", "P6", "P5"), names(reopened.top(ranking, 10)));
+
+            // Without the number of results, every result is added again, but none twice
+            Files.delete(dir.resolve("leaderboard").resolve("results.count"));
+            var uncounted = LeaderboardIndex.open(dir.resolve("leaderboard"), 5);
+            assertEquals(0, uncounted.getResultCount());
+            uncounted.recover(store);
+            assertEquals(10, uncounted.getResultCount());
+            assertEquals(List.of("P9", "P8", "P7", "P6", "P5"), names(uncounted.top(ranking, 10)));
+            assertEquals(List.of("P8", "P6", "P4", "P2", "P0"),
+                    names(uncounted.top(new Ranking(1, Criterion.MOVES, true), 10)));
+        }
+    }
+
+    @Test
+    void open_rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> LeaderboardIndex.open(dir, 0));
+    }
+
+}
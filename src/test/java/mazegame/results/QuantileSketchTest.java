@@ -0,0 +1,80 @@
+package mazegame.results;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    static void assertWithinAccuracy(double expected, double actual, double accuracy) {
+        assertTrue(Math.abs(actual - expected) <= accuracy * expected + 1e-9,
+                () -> "expected " + expected + " but was " + actual);
+    }
+
+    @Test
+    void quantile_withinRelativeAccuracy() {
+        var random = new Random(11);
+        var values = new double[10_000];
+        var sketch = new QuantileSketch(0.02);
+        for (var i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian() * 2 + 4);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+        for (var quantile : new double[] {0, 0.1, 0.5, 0.9, 0.99, 1}) {
+            assertWithinAccuracy(values[(int) (quantile * (values.length - 1))], sketch.quantile(quantile), 0.02);
+        }
+        assertEquals(values.length, sketch.count());
+    }
+
+    @Test
+    void merge_equalsSketchOfAllValues() {
+        var all = new QuantileSketch();
+        var low = new QuantileSketch();
+        var high = new QuantileSketch();
+        for (var value = 0; value < 1000; value++) {
+            all.add(value);
+            (value < 300 ? low : high).add(value);
+        }
+        low.merge(high);
+        for (var quantile = 0.0; quantile <= 1; quantile += 0.05) {
+            assertEquals(all.quantile(quantile), low.quantile(quantile));
+        }
+        assertEquals(0, low.quantile(0));
+        assertThrows(IllegalArgumentException.class, () -> low.merge(new QuantileSketch(0.05)));
+    }
+
+    @Test
+    void writeAndRead() throws IOException {
+        var sketch = new QuantileSketch();
+        for (var value : new double[] {0, 3, 3, 17.5, 250, 1e6}) {
+            sketch.add(value);
+        }
+        var bytes = new ByteArrayOutputStream();
+        sketch.write(new DataOutputStream(bytes));
+        var read = QuantileSketch.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(sketch.count(), read.count());
+        for (var quantile = 0.0; quantile <= 1; quantile += 0.1) {
+            assertEquals(sketch.quantile(quantile), read.quantile(quantile));
+        }
+    }
+
+    @Test
+    void emptyAndInvalid() {
+        var sketch = new QuantileSketch();
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(-1));
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> sketch.quantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(0));
+    }
+
+}
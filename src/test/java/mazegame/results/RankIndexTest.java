@@ -0,0 +1,159 @@
+package mazegame.results;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.Random;
+
+import static mazegame.results.TestResults.result;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void queries_matchSortedMoves() {
+        var random = new Random(7);
+        var index = new RankIndex();
+        var moves = new ArrayList<Integer>();
+        for (var i = 0; i < 2000; i++) {
+            var result = result(1 + random.nextInt(2), random.nextInt(4) != 0, random.nextInt(i < 1000 ? 50 : 3000));
+            index.add(result);
+            if (result.mapId() == 1 && result.result().isSolved()) {
+                moves.add(result.result().getNumberOfMoves());
+            }
+        }
+        moves.sort(null);
+        assertEquals(moves.size(), index.count(1));
+        for (var value : List.of(0, 1, 25, 49, 50, 1000, 2999, 5000)) {
+            var below = moves.stream().filter(move -> move < value).count();
+            assertEquals(below + 1, index.rank(1, value));
+        }
+        for (var rank = 1; rank <= moves.size(); rank += 37) {
+            assertEquals(OptionalInt.of(moves.get(rank - 1)), index.movesAt(1, rank));
+        }
+        assertEquals(OptionalInt.of(moves.getLast()), index.movesAt(1, moves.size()));
+        assertEquals(OptionalInt.empty(), index.movesAt(1, moves.size() + 1));
+        assertEquals(moves.stream().filter(move -> move >= 20 && move <= 700).count(), index.countBetween(1, 20, 700));
+        assertEquals(moves.size(), index.countBetween(1, 0, Integer.MAX_VALUE));
+        assertEquals(index.count(1) + index.count(2), index.count(RankIndex.ALL_MAPS));
+    }
+
+    @Test
+    void standing_countsTheNewGame() {
+        var index = new RankIndex();
+        assertEquals(new RankIndex.Standing(1, 1), index.standing(3, 40));
+        for (var moves = 1; moves <= 99; moves++) {
+            index.add(result(3, true, moves));
+        }
+        index.add(result(3, false, 1));
+        index.add(result(4, true, 1));
+        var standing = index.standing(3, 10);
+        assertEquals(new RankIndex.Standing(10, 100), standing);
+        assertEquals(10, standing.topPercent());
+        assertEquals(1, index.standing(3, 0).topPercent());
+        assertEquals(100, index.standing(3, 1000).topPercent());
+    }
+
+    @Test
+    void build_readsStore() throws IOException {
+        try (var store = ResultStore.open(dir)) {
+            store.append(result(1, true, 12));
+            store.append(result(1, true, 8));
+            store.append(result(2, true, 5));
+            store.append(result(1, false, 3));
+            var index = RankIndex.build(store);
+            assertEquals(2, index.count(1));
+            assertEquals(2, index.rank(1, 12));
+            assertEquals(3, index.count(RankIndex.ALL_MAPS));
+        }
+    }
+
+    @Test
+    void recover_readsOnlyResultsAfterCheckpoint() throws IOException {
+        var checkpoint = dir.resolve("ranks.checkpoint");
+        try (var store = ResultStore.open(dir.resolve("store"))) {
+            var index = new RankIndex();
+            for (var i = 0; i < 30; i++) {
+                var result = result(1 + i % 2, i % 3 != 0, 100 - i);
+                store.append(result);
+                index.add(result);
+                if (i == 19) {
+                    index.save(checkpoint);
+                }
+            }
+            var loaded = RankIndex.load(checkpoint);
+            assertEquals(20, loaded.getResultCount());
+
+            var recovered = RankIndex.recover(checkpoint, store);
+            assertEquals(30, recovered.getResultCount());
+            for (var mapId : List.of(1, 2, RankIndex.ALL_MAPS)) {
+                assertEquals(index.count(mapId), recovered.count(mapId));
+                for (var moves = 60; moves <= 110; moves += 7) {
+                    assertEquals(index.rank(mapId, moves), recovered.rank(mapId, moves));
+                }
+            }
+            assertEquals(index.movesAt(RankIndex.ALL_MAPS, 5), recovered.movesAt(RankIndex.ALL_MAPS, 5));
+            // The trees keep growing after a checkpoint
+            recovered.add(result(1, true, 5000));
+            assertEquals(OptionalInt.of(5000), recovered.movesAt(1, recovered.count(1)));
+
+            Files.write(checkpoint, new byte[] {1, 2, 3, 4, 5});
+            assertThrows(IOException.class, () -> RankIndex.load(checkpoint));
+            assertEquals(30, RankIndex.recover(checkpoint, store).getResultCount());
+        }
+    }
+
+    @Test
+    void add_bucketsLargeMoves() throws IOException {
+        var index = new RankIndex();
+        for (var moves : List.of(16_383, 16_384, 100_000_000, 100_000_001, Integer.MAX_VALUE, -5)) {
+            index.add(result(1, true, moves));
+        }
+        assertEquals(5, index.count(1));
+        assertEquals(OptionalInt.of(16_383), index.movesAt(1, 1));
+        assertEquals(OptionalInt.of(16_384), index.movesAt(1, 2));
+        // Games within a bucket of 1/1024 of their power of two share a rank
+        assertEquals(3, index.rank(1, 100_000_000));
+        assertEquals(3, index.rank(1, 100_000_001));
+        assertEquals(5, index.rank(1, Integer.MAX_VALUE));
+        assertEquals(OptionalInt.of(99_942_400), index.movesAt(1, 3));
+        assertEquals(2, index.countBetween(1, 99_000_000, 101_000_000));
+        assertEquals(5, index.countBetween(1, 0, Integer.MAX_VALUE));
+
+        var checkpoint = dir.resolve("ranks.checkpoint");
+        index.save(checkpoint);
+        assertTrue(Files.size(checkpoint) < 1_100_000);
+        assertEquals(5, RankIndex.load(checkpoint).rank(1, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void key_keepsOrder() {
+        var previous = -1;
+        for (var moves = 0L; moves <= Integer.MAX_VALUE; moves += 1 + moves / 4096) {
+            var key = RankIndex.key((int) moves);
+            assertTrue(key >= previous);
+            assertTrue(RankIndex.moves(key) <= moves);
+            assertEquals(key, RankIndex.key(RankIndex.moves(key)));
+            previous = key;
+        }
+        assertEquals(33_791, RankIndex.key(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void fenwickTree_rejectsNegativeValues() {
+        var tree = new FenwickTree();
+        assertThrows(IllegalArgumentException.class, () -> tree.add(-1));
+        assertThrows(IllegalArgumentException.class, () -> tree.add(1 << 30));
+        assertThrows(IllegalArgumentException.class, () -> tree.select(1));
+    }
+
+}
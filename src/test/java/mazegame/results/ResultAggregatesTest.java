@@ -0,0 +1,115 @@
+package mazegame.results;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultAggregatesTest {
+
+    static final ZonedDateTime START = ZonedDateTime.of(2024, 6, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @TempDir
+    Path dir;
+
+    static MapResult result(int mapId, String player, boolean solved, int moves, int hour) {
+        return TestResults.result(mapId, player, solved, moves, Duration.ofSeconds(moves),
+                START.plusHours(hour).plusMinutes(30));
+    }
+
+    static void assertSameStats(ResultStats expected, ResultStats actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getSolved(), actual.getSolved());
+        assertEquals(expected.getMeanMoves(), actual.getMeanMoves());
+        assertEquals(expected.getMovesQuantile(0.5), actual.getMovesQuantile(0.5));
+        assertEquals(expected.getDurationQuantile(0.9), actual.getDurationQuantile(0.9));
+    }
+
+    @Test
+    void allTimeAndWindow() {
+        var aggregates = new ResultAggregates(Duration.ofHours(1), 3);
+        aggregates.add(result(1, "A", true, 10, 0));
+        aggregates.add(result(1, "B", false, 4, 1));
+        aggregates.add(result(1, "A", true, 20, 2));
+        aggregates.add(result(1, "B", true, 30, 3));
+        aggregates.add(result(2, "A", true, 40, 3));
+
+        var allTime = aggregates.getAllTime(1);
+        assertEquals(4, allTime.getCount());
+        assertEquals(3, allTime.getSolved());
+        assertEquals(0.75, allTime.getSolveRate());
+        assertEquals(20, allTime.getMeanMoves());
+        assertEquals(20, allTime.getMovesQuantile(0.5), 20 * 0.01);
+        assertEquals(Duration.ofSeconds(20), allTime.getMeanDuration());
+
+        var window = aggregates.getWindow(1, START.plusHours(3).toInstant());
+        assertEquals(3, window.getCount());
+        assertEquals(2, window.getSolved());
+        assertEquals(25, window.getMeanMoves());
+        assertEquals(1, aggregates.getWindow(1, START.plusHours(5).toInstant()).getCount());
+        assertEquals(0, aggregates.getWindow(1, START.plusHours(6).toInstant()).getCount());
+
+        assertEquals(5, aggregates.getAllTime(ResultAggregates.ALL_MAPS).getCount());
+        assertEquals(0, aggregates.getAllTime(3).getCount());
+        assertEquals(Set.of(1, 2), aggregates.getMapIds());
+    }
+
+    @Test
+    void streaks() {
+        var aggregates = new ResultAggregates();
+        var outcomes = new boolean[] {true, true, true, false, true, true};
+        for (var i = 0; i < outcomes.length; i++) {
+            aggregates.add(result(1, "A", outcomes[i], 10, i));
+        }
+        aggregates.add(result(1, "B", true, 10, 0));
+        assertEquals(Optional.of(new ResultAggregates.Streak("A", 2, 3)), aggregates.getStreak(1, "A"));
+        assertEquals(Optional.empty(), aggregates.getStreak(1, "C"));
+        assertEquals(List.of(new ResultAggregates.Streak("A", 2, 3), new ResultAggregates.Streak("B", 1, 1)),
+                aggregates.getLongestStreaks(1, 10));
+    }
+
+    @Test
+    void checkpoint_roundTripAndRecover() throws IOException {
+        var checkpoint = dir.resolve("aggregates.checkpoint");
+        try (var store = ResultStore.open(dir.resolve("store"))) {
+            var aggregates = new ResultAggregates();
+            for (var i = 0; i < 50; i++) {
+                var result = result(1 + i % 3, "P" + i % 7, i % 4 != 0, 5 + i, i);
+                store.append(result);
+                aggregates.add(result);
+                if (i == 29) {
+                    aggregates.save(checkpoint);
+                }
+            }
+            var loaded = ResultAggregates.load(checkpoint);
+            assertEquals(30, loaded.getResultCount());
+
+            var recovered = ResultAggregates.recover(checkpoint, store);
+            assertEquals(50, recovered.getResultCount());
+            for (var mapId : List.of(1, 2, 3, ResultAggregates.ALL_MAPS)) {
+                assertSameStats(aggregates.getAllTime(mapId), recovered.getAllTime(mapId));
+                var now = START.plusHours(49).toInstant();
+                assertSameStats(aggregates.getWindow(mapId, now), recovered.getWindow(mapId, now));
+                assertEquals(aggregates.getLongestStreaks(mapId, 10), recovered.getLongestStreaks(mapId, 10));
+            }
+
+            // A damaged checkpoint is ignored, and every result is read again
+            var bytes = Files.readAllBytes(checkpoint);
+            bytes[bytes.length / 2] ^= 1;
+            Files.write(checkpoint, bytes);
+            assertThrows(IOException.class, () -> ResultAggregates.load(checkpoint));
+            assertEquals(50, ResultAggregates.recover(checkpoint, store).getResultCount());
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+package mazegame.results;
+
+import gameresult.OnePlayerGameResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultStoreTest {
+
+    @TempDir
+    Path dir;
+
+    static MapResult result(int i) {
+        return TestResults.result(i % 4, "Player " + i, i % 3 != 0, 4 + i, Duration.ofMillis(1500L * i + 7),
+                ZonedDateTime.of(2024, 5, 30, 15, 32, 54, 339_169_700, ZoneId.of("Europe/Budapest")).plusHours(i));
+    }
+
+    static List<MapResult> results(int from, int to) {
+        return IntStream.range(from, to).mapToObj(ResultStoreTest::result).toList();
+    }
+
+    static List<String> files(Path dir) throws IOException {
+        try (var list = Files.list(dir)) {
+            return list.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @Test
+    void appendAndReopen() throws IOException {
+        try (var store = ResultStore.open(dir)) {
+            for (var result : results(0, 5)) {
+                store.append(result);
+            }
+            assertEquals(results(0, 5), store.getAll());
+        }
+        try (var store = ResultStore.open(dir, true, 100)) {
+            store.append(result(5));
+            assertEquals(results(0, 6), store.getAll());
+        }
+        assertEquals(List.of("results-1.log"), files(dir));
+    }
+
+    @Test
+    void compaction() throws Exception {
+        try (var store = ResultStore.open(dir, false, 3)) {
+            for (var result : results(0, 10)) {
+                store.append(result);
+                assertEquals(results(0, result.result().getNumberOfMoves() - 3), store.getAll());
+            }
+            store.compact().get();
+            assertEquals(List.of("results-4.snapshot", "results-5.log"), files(dir));
+            assertEquals(results(0, 10), store.getAll());
+            store.append(result(10));
+        }
+        try (var store = ResultStore.open(dir, false, 3)) {
+            assertEquals(results(0, 11), store.getAll());
+        }
+    }
+
+    @Test
+    void open_recoversInterruptedCompaction() throws IOException {
+        try (var store = ResultStore.open(dir, false, 100)) {
+            for (var result : results(0, 4)) {
+                store.append(result);
+            }
+        }
+        // A compaction of segment 1 has written the snapshot but not removed the segment
+        Files.copy(dir.resolve("results-1.log"), dir.resolve("results-1.snapshot"));
+        Files.writeString(dir.resolve("results-2.snapshot.tmp"), "{\"playerName\":");
+        Files.writeString(dir.resolve("results-2.log"), "{\"playerName\":\"Torn\",\"sol");
+        try (var store = ResultStore.open(dir, false, 100)) {
+            assertEquals(results(0, 4), store.getAll());
+            store.append(result(4));
+            assertEquals(results(0, 5), store.getAll());
+        }
+        assertEquals(List.of("results-1.snapshot", "results-2.log"), files(dir));
+    }
+
+    @Test
+    void getAll_duringAppendsAndCompactions() throws Exception {
+        try (var store = ResultStore.open(dir, false, 7)) {
+            var writer = new Thread(() -> {
+                try {
+                    for (var result : results(0, 500)) {
+                        store.append(result);
+                    }
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            writer.start();
+            while (writer.isAlive()) {
+                var all = store.getAll();
+                assertEquals(results(0, all.size()), all);
+            }
+            writer.join();
+            store.compact().get();
+            assertEquals(results(0, 500), store.getAll());
+        }
+    }
+
+    @Test
+    void forEach_skipsResults() throws Exception {
+        try (var store = ResultStore.open(dir, false, 4)) {
+            for (var result : results(0, 10)) {
+                store.append(result);
+            }
+            store.compact().get();
+            store.append(result(10));
+            for (var skip : new int[] {0, 3, 8, 9, 10, 11, 20}) {
+                var read = new ArrayList<MapResult>();
+                assertEquals(Math.max(0, 11 - skip), store.forEach(skip, read::add));
+                assertEquals(results(Math.min(skip, 11), 11), read);
+            }
+        }
+    }
+
+    @Test
+    void codec_roundTrip() throws IOException {
+        var results = new ArrayList<>(results(0, 3));
+        results.add(new MapResult(MapResult.UNKNOWN_MAP, OnePlayerGameResult.builder().playerName("\"Quoted\"\n").build()));
+        results.add(new MapResult(2, 8L << 32, results.getFirst().result()));
+        var lines = new ByteArrayOutputStream();
+        for (var result : results) {
+            lines.write(ResultCodec.encode(result));
+        }
+        assertEquals(results.size(), lines.toString().lines().count());
+        var decoded = new ArrayList<MapResult>();
+        ResultCodec.decode(new ByteArrayInputStream(lines.toByteArray()), decoded::add);
+        assertEquals(results, decoded);
+    }
+
+}
@@ -0,0 +1,136 @@
+package mazegame.results;
+
+import mazegame.results.ResultWriter.Durability;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static mazegame.results.ResultStoreTest.result;
+import static mazegame.results.ResultStoreTest.results;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void perResult_commitsEveryResultInOrder() throws Exception {
+        var committed = new CopyOnWriteArrayList<MapResult>();
+        try (var store = ResultStore.open(dir, false, 7)) {
+            try (var writer = ResultWriter.start(store, Durability.perResult(), 4, committed::addAll)) {
+                var futures = new ArrayList<CompletableFuture<Void>>();
+                for (var result : results(0, 100)) {
+                    futures.add(writer.submit(result));
+                }
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+                assertEquals(results(0, 100), committed);
+                assertEquals(results(0, 100), store.getAll());
+            }
+        }
+    }
+
+    @Test
+    void sizeBatched_waitsForFullBatchOrFlush() throws Exception {
+        var committed = new CopyOnWriteArrayList<MapResult>();
+        var batches = new CopyOnWriteArrayList<Integer>();
+        try (var store = ResultStore.open(dir);
+             var writer = ResultWriter.start(store, Durability.sizeBatched(3), results -> {
+                 committed.addAll(results);
+                 batches.add(results.size());
+             })) {
+            var first = writer.submit(result(0));
+            writer.submit(result(1));
+            assertThrows(TimeoutException.class, () -> first.get(100, TimeUnit.MILLISECONDS));
+            assertEquals(List.of(), committed);
+            writer.submit(result(2)).get(10, TimeUnit.SECONDS);
+            assertTrue(first.isDone());
+            assertEquals(results(0, 3), committed);
+
+            var fourth = writer.submit(result(3));
+            writer.flush().get(10, TimeUnit.SECONDS);
+            assertTrue(fourth.isDone());
+            assertEquals(results(0, 4), committed);
+            // The results forced together are passed on together
+            assertEquals(List.of(3, 1), batches);
+        }
+    }
+
+    @Test
+    void timeBatched_commitsAfterDelay() throws Exception {
+        var committed = new CopyOnWriteArrayList<MapResult>();
+        try (var store = ResultStore.open(dir);
+             var writer = ResultWriter.start(store, Durability.timeBatched(Duration.ofMillis(50)), committed::addAll)) {
+            var started = System.nanoTime();
+            writer.submit(result(0));
+            writer.submit(result(1)).get(10, TimeUnit.SECONDS);
+            assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(50));
+            assertEquals(results(0, 2), committed);
+        }
+    }
+
+    @Test
+    void close_flushesQueuedResults() throws Exception {
+        var committed = new CopyOnWriteArrayList<MapResult>();
+        try (var store = ResultStore.open(dir)) {
+            var writer = ResultWriter.start(store, Durability.sizeBatched(1000), committed::addAll);
+            var futures = new ArrayList<CompletableFuture<Void>>();
+            for (var result : results(0, 10)) {
+                futures.add(writer.submit(result));
+            }
+            writer.close();
+            assertTrue(futures.stream().allMatch(CompletableFuture::isDone));
+            assertEquals(results(0, 10), committed);
+            assertThrows(IllegalStateException.class, () -> writer.submit(result(10)));
+            writer.close();
+        }
+        try (var store = ResultStore.open(dir)) {
+            assertEquals(results(0, 10), store.getAll());
+        }
+    }
+
+    @Test
+    void interrupt_closesWriterAndFailsQueuedResults() throws Exception {
+        try (var store = ResultStore.open(dir);
+             var writer = ResultWriter.start(store, Durability.perResult(),
+                     results -> Thread.currentThread().interrupt())) {
+            writer.submit(result(0)).get(10, TimeUnit.SECONDS);
+            // The results submitted until the writer notices the interrupt are either written or failed
+            while (true) {
+                CompletableFuture<Void> future;
+                try {
+                    future = writer.submit(result(1));
+                } catch (IllegalStateException e) {
+                    break;
+                }
+                try {
+                    future.get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertInstanceOf(IllegalStateException.class, e.getCause());
+                }
+            }
+            assertThrows(IllegalStateException.class, writer::flush);
+        }
+    }
+
+    @Test
+    void durability_parse() {
+        assertEquals(Durability.perResult(), Durability.parse("result"));
+        assertEquals(Durability.timeBatched(Duration.ofMillis(250)), Durability.parse("time:250"));
+        assertEquals(Durability.sizeBatched(16), Durability.parse("size:16"));
+        assertThrows(IllegalArgumentException.class, () -> Durability.parse("size"));
+        assertThrows(IllegalArgumentException.class, () -> Durability.parse("size:0"));
+        assertThrows(IllegalArgumentException.class, () -> Durability.parse("time:soon"));
+        assertThrows(IllegalArgumentException.class, () -> Durability.parse("never"));
+    }
+
+}
@@ -0,0 +1,50 @@
+package mazegame.results;
+
+import gameresult.OnePlayerGameResult;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+/**
+ * Builds the results of the tests of the results and of their verification.
+ */
+public final class TestResults {
+
+    private TestResults() {
+    }
+
+    /**
+     * {@return a result of a player named {@code Player}, without a duration and a creation time}
+     */
+    public static MapResult result(int mapId, boolean solved, int numberOfMoves) {
+        return result(mapId, MapResult.UNRECORDED, solved, numberOfMoves);
+    }
+
+    /**
+     * {@return a result of a game of the move journal, of a player named
+     * {@code Player}, without a duration and a creation time}
+     */
+    public static MapResult result(int mapId, long journalOffset, boolean solved, int numberOfMoves) {
+        return new MapResult(mapId, journalOffset, game("Player", solved, numberOfMoves, null, null));
+    }
+
+    /**
+     * {@return a result}
+     */
+    public static MapResult result(int mapId, String playerName, boolean solved, int numberOfMoves, Duration duration,
+                                   ZonedDateTime created) {
+        return new MapResult(mapId, game(playerName, solved, numberOfMoves, duration, created));
+    }
+
+    private static OnePlayerGameResult game(String playerName, boolean solved, int numberOfMoves, Duration duration,
+                                            ZonedDateTime created) {
+        return OnePlayerGameResult.builder()
+                .playerName(playerName)
+                .solved(solved)
+                .numberOfMoves(numberOfMoves)
+                .duration(duration)
+                .created(created)
+                .build();
+    }
+
+}
@@ -0,0 +1,91 @@
+package mazegame.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameServerTest {
+
+    static final ObjectMapper MAPPER = new ObjectMapper();
+
+    SessionManager sessions;
+
+    GameServer server;
+
+    HttpClient client;
+
+    @BeforeEach
+    void start() throws IOException {
+        sessions = new SessionManager(SessionManagerTest.REPOSITORY, 1, Duration.ofMinutes(1), entry -> { });
+        server = GameServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), sessions);
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void stop() {
+        client.close();
+        server.close();
+        sessions.close();
+    }
+
+    record Response(int status, JsonNode body) {
+    }
+
+    Response send(String method, String path) throws IOException, InterruptedException {
+        var uri = URI.create("http://localhost:" + server.getAddress().getPort() + path);
+        var request = HttpRequest.newBuilder(uri).method(method, HttpRequest.BodyPublishers.noBody()).build();
+        var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        return new Response(response.statusCode(), MAPPER.readTree(response.body()));
+    }
+
+    @Test
+    void playGame() throws Exception {
+        var created = send("POST", "/sessions?map=1");
+        assertEquals(201, created.status());
+        assertEquals("PLAYING", created.body().get("status").asText());
+        var id = created.body().get("id").asText();
+
+        assertEquals(503, send("POST", "/sessions?map=1").status());
+        assertEquals(409, send("POST", "/sessions/" + id + "/move?direction=UP").status());
+        for (var i = 0; i < 4; i++) {
+            assertEquals(200, send("POST", "/sessions/" + id + "/move?direction=right").status());
+        }
+        var state = send("GET", "/sessions/" + id);
+        assertEquals(200, state.status());
+        assertEquals("SOLVED", state.body().get("status").asText());
+        assertEquals(4, state.body().get("moves").asInt());
+        assertEquals(state.body().get("end"), state.body().get("player"));
+
+        assertEquals(200, send("DELETE", "/sessions/" + id).status());
+        assertEquals(404, send("GET", "/sessions/" + id).status());
+    }
+
+    @Test
+    void badRequests() throws Exception {
+        assertEquals(400, send("POST", "/sessions").status());
+        assertEquals(400, send("POST", "/sessions?map=x").status());
+        assertEquals(400, send("POST", "/sessions?map=999999").status());
+        assertEquals(405, send("GET", "/sessions").status());
+        assertEquals(404, send("GET", "/sessions/unknown").status());
+        assertEquals(404, send("GET", "/sessionsx").status());
+        var id = send("POST", "/sessions?map=1").body().get("id").asText();
+        var invalid = send("POST", "/sessions/" + id + "/move?direction=NORTH");
+        assertEquals(400, invalid.status());
+        assertEquals("Invalid direction: NORTH", invalid.body().get("error").asText());
+        assertEquals(405, send("PUT", "/sessions/" + id).status());
+    }
+
+}
@@ -0,0 +1,49 @@
+package mazegame.server;
+
+import mazegame.journal.JournalEntry;
+import mazegame.journal.MoveJournal;
+import mazegame.journal.MoveList;
+import mazegame.model.Direction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalWriterTest {
+
+    @TempDir
+    Path dir;
+
+    static JournalEntry entry(int mapId) {
+        var moves = new MoveList();
+        moves.add(Direction.RIGHT);
+        return new JournalEntry(mapId, 0, Instant.EPOCH, Instant.EPOCH, JournalEntry.Outcome.ABANDONED, moves);
+    }
+
+    @Test
+    void close_appendsQueuedGames() throws IOException {
+        var file = dir.resolve("moves.journal");
+        try (var journal = MoveJournal.open(file)) {
+            try (var writer = JournalWriter.start(journal, 4);
+                 var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (var i = 0; i < 100; i++) {
+                    var mapId = i;
+                    executor.submit(() -> writer.accept(entry(mapId)));
+                }
+            }
+        }
+        var mapIds = new ArrayList<Integer>();
+        MoveJournal.read(file, entry -> mapIds.add(entry.mapId()));
+        mapIds.sort(null);
+        assertEquals(100, mapIds.size());
+        assertEquals(0, mapIds.getFirst());
+        assertEquals(99, mapIds.getLast());
+    }
+
+}
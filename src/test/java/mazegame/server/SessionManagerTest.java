@@ -0,0 +1,123 @@
+package mazegame.server;
+
+import mazegame.journal.JournalEntry;
+import mazegame.map.MapRepository;
+import mazegame.model.Direction;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionManagerTest {
+
+    static final MapRepository REPOSITORY = MapRepository.ofResource(MapRepository.DEFAULT_RESOURCE);
+
+    @Test
+    void playAndEnd() {
+        var finished = new CopyOnWriteArrayList<JournalEntry>();
+        try (var sessions = new SessionManager(REPOSITORY, 10, Duration.ofMinutes(1), finished::add)) {
+            var session = sessions.create(1).orElseThrow();
+            assertSame(session, sessions.get(session.getId()));
+            var state = session.getState();
+            assertEquals(Session.Status.PLAYING, state.status());
+            assertTrue(state.legalMoves().contains(Direction.RIGHT));
+            for (var i = 0; i < 4; i++) {
+                state = session.move(Direction.RIGHT);
+            }
+            assertEquals(Session.Status.SOLVED, state.status());
+            assertEquals(4, state.moves());
+            assertEquals(state.end(), state.player());
+            assertEquals(List.of(), state.legalMoves());
+            assertThrows(IllegalStateException.class, () -> session.move(Direction.LEFT));
+
+            assertEquals(state, sessions.end(session.getId()));
+            assertThrows(NoSuchElementException.class, () -> sessions.get(session.getId()));
+            assertThrows(NoSuchElementException.class, () -> sessions.end(session.getId()));
+            assertEquals(1, finished.size());
+            assertEquals(JournalEntry.Outcome.SOLVED, finished.getFirst().outcome());
+            assertEquals(4, finished.getFirst().moves().size());
+        }
+    }
+
+    @Test
+    void create_limitsSessionsAndRejectsUnknownMaps() {
+        try (var sessions = new SessionManager(REPOSITORY, 2, Duration.ofMinutes(1), entry -> { })) {
+            var first = sessions.create(1).orElseThrow();
+            var second = sessions.create(1).orElseThrow();
+            assertNotEquals(first.getId(), second.getId());
+            assertTrue(sessions.create(1).isEmpty());
+            sessions.end(first.getId());
+            assertThrows(IllegalArgumentException.class, () -> sessions.create(Integer.MAX_VALUE));
+            assertEquals(1, sessions.size());
+        }
+    }
+
+    @Test
+    void create_concurrentlyNeverExceedsLimit() throws Exception {
+        try (var sessions = new SessionManager(REPOSITORY, 10, Duration.ofMinutes(1), entry -> { });
+             var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<Boolean>>();
+            for (var i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> sessions.create(1).isPresent()));
+            }
+            var created = 0;
+            for (var future : futures) {
+                created += future.get() ? 1 : 0;
+            }
+            assertEquals(10, created);
+            assertEquals(10, sessions.size());
+        }
+    }
+
+    @Test
+    void expireIdleSessions() {
+        var finished = new CopyOnWriteArrayList<JournalEntry>();
+        try (var sessions = new SessionManager(REPOSITORY, 10, Duration.ofMinutes(1), finished::add)) {
+            var idle = sessions.create(1).orElseThrow();
+            idle.move(Direction.RIGHT);
+            var untouched = sessions.create(1).orElseThrow();
+            sessions.expireIdleSessions(System.nanoTime());
+            assertEquals(2, sessions.size());
+            sessions.expireIdleSessions(System.nanoTime() + Duration.ofMinutes(2).toNanos());
+            assertEquals(0, sessions.size());
+            // Sessions without moves are not recorded
+            assertEquals(1, finished.size());
+            assertEquals(JournalEntry.Outcome.ABANDONED, finished.getFirst().outcome());
+            assertThrows(NoSuchElementException.class, () -> sessions.get(untouched.getId()));
+        }
+    }
+
+    @Test
+    void concurrentMovesOfOneSession_areSerialized() throws Exception {
+        try (var sessions = new SessionManager(REPOSITORY, 10, Duration.ofMinutes(1), entry -> { });
+             var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var session = sessions.create(1).orElseThrow();
+            var futures = new ArrayList<Future<Boolean>>();
+            for (var i = 0; i < 100; i++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        session.move(Direction.RIGHT);
+                        return true;
+                    } catch (IllegalStateException e) {
+                        return false;
+                    }
+                }));
+            }
+            var moved = 0;
+            for (var future : futures) {
+                moved += future.get() ? 1 : 0;
+            }
+            // Exactly the four moves to the end succeed, the rest find the game over
+            assertEquals(4, moved);
+            assertEquals(4, session.getState().moves());
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package mazegame.solver;
+
+import mazegame.map.CompactGrid;
+import mazegame.map.Maps;
+import mazegame.model.GameEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AStarSolverTest {
+
+    Maps maps;
+
+    @BeforeEach
+    void init() {
+        maps = new Maps("/mazegame/map/maps.json");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2})
+    void solve_sameLengthAsBreadthFirst(int mapId) {
+        var grid = maps.getMap(mapId).toCompactGrid();
+        var expected = new BreadthFirstSolver(grid).solve();
+        var result = new AStarSolver(grid).solve();
+        assertTrue(result.solved());
+        assertEquals(expected.moves().size(), result.moves().size());
+        assertTrue(result.peakFrontierSize() > 0);
+
+        var engine = new GameEngine(grid);
+        for (var move : result.moves()) {
+            assertTrue(engine.makeMove(move));
+            assertFalse(engine.isCaught());
+        }
+        assertTrue(engine.isSolved());
+    }
+
+    @Test
+    void solve_unsolvable() {
+        var grid = CompactGrid.wrap(1, 3, new byte[]{
+                CompactGrid.START | CompactGrid.WALL_RIGHT,
+                CompactGrid.MONSTER,
+                CompactGrid.END});
+        assertFalse(new AStarSolver(grid).solve().solved());
+    }
+
+    @Test
+    void exitDistances() {
+        var grid = maps.getMap(1).toCompactGrid();
+        var distances = new ExitDistances(grid);
+        assertEquals(0, distances.distance(grid.find(CompactGrid.END)));
+        assertEquals(4, distances.distance(grid.find(CompactGrid.START)));
+
+        var walled = CompactGrid.wrap(1, 2, new byte[]{CompactGrid.START | CompactGrid.WALL_RIGHT, CompactGrid.END});
+        assertEquals(ExitDistances.UNREACHABLE, new ExitDistances(walled).distance(0));
+    }
+
+    @Test
+    void intMinHeap() {
+        var heap = new IntMinHeap(1);
+        var keys = new int[]{5, 3, 9, 1, 7, 3, 0, 8, 2, 6, 4, 11, 10, 12, 15, 14, 13, 16, 19, 18};
+        for (var key : keys) {
+            heap.push(key * 10, key);
+        }
+        assertEquals(keys.length, heap.size());
+        var previous = Integer.MIN_VALUE;
+        while (!heap.isEmpty()) {
+            var value = heap.pop();
+            assertTrue(value >= previous);
+            previous = value;
+        }
+        assertThrows(IllegalStateException.class, heap::pop);
+    }
+
+}
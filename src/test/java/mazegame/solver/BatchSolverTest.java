@@ -0,0 +1,67 @@
+package mazegame.solver;
+
+import mazegame.map.BinaryMapPack;
+import mazegame.map.Maps;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSolverTest {
+
+    @TempDir
+    Path directory;
+
+    Path copyBundledPack(String name) throws IOException {
+        var pack = directory.resolve(name);
+        try (InputStream in = getClass().getResourceAsStream("/mazegame/map/maps.json")) {
+            Files.copy(in, pack);
+        }
+        return pack;
+    }
+
+    @Test
+    void solve() throws IOException {
+        var pack = copyBundledPack("pack.json");
+        var consumed = new ArrayList<BatchReport>();
+        var reports = new BatchSolver(2, Duration.ofSeconds(30), Algorithm.BFS).solve(List.of(pack), consumed::add);
+        assertEquals(reports, consumed);
+        assertEquals(2, reports.size());
+        assertEquals(1, reports.get(0).mapId());
+        assertEquals(BatchReport.Status.SOLVED, reports.get(0).status());
+        assertEquals(4, reports.get(0).moves());
+        assertEquals(2, reports.get(1).mapId());
+        assertEquals(11, reports.get(1).moves());
+        assertTrue(reports.get(1).statesExplored() > 0);
+    }
+
+    @Test
+    void solve_directoryAndInvalidPack() throws IOException {
+        copyBundledPack("a.json");
+        BinaryMapPack.write(directory.resolve("b.mzp"), new Maps("/mazegame/map/maps.json"));
+        Files.writeString(directory.resolve("c.json"), "not a map pack");
+        Files.writeString(directory.resolve("notes.txt"), "ignored");
+        var packs = BatchSolver.findPacks(List.of(directory));
+        assertEquals(3, packs.size());
+
+        var reports = new BatchSolver(4, Duration.ofSeconds(30), Algorithm.ASTAR).solve(packs, report -> { });
+        assertEquals(5, reports.size());
+        assertEquals(1, reports.stream().filter(report -> report.status() == BatchReport.Status.FAILED).count());
+        assertEquals(4, reports.stream().filter(report -> report.status() == BatchReport.Status.SOLVED).count());
+    }
+
+    @Test
+    void constructor_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchSolver(0, Duration.ofSeconds(1), Algorithm.BFS));
+        assertThrows(IllegalArgumentException.class, () -> new BatchSolver(1, Duration.ZERO, Algorithm.BFS));
+    }
+
+}
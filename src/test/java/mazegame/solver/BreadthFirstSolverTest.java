@@ -0,0 +1,72 @@
+package mazegame.solver;
+
+import mazegame.map.CompactGrid;
+import mazegame.map.Maps;
+import mazegame.model.Direction;
+import mazegame.model.GameEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BreadthFirstSolverTest {
+
+    Maps maps;
+
+    @BeforeEach
+    void init() {
+        maps = new Maps("/mazegame/map/maps.json");
+    }
+
+    @Test
+    void solve_map1() {
+        var result = new BreadthFirstSolver(maps.getMap(1).toCompactGrid()).solve();
+        assertTrue(result.solved());
+        assertEquals(List.of(Direction.RIGHT, Direction.RIGHT, Direction.RIGHT, Direction.RIGHT), result.moves());
+        assertTrue(result.nodesExpanded() > 0);
+    }
+
+    @Test
+    void solve_map2() {
+        var grid = maps.getMap(2).toCompactGrid();
+        var result = new BreadthFirstSolver(grid).solve();
+        assertTrue(result.solved());
+        assertEquals(11, result.moves().size());
+
+        var engine = new GameEngine(grid);
+        for (var move : result.moves()) {
+            assertTrue(engine.makeMove(move));
+            assertFalse(engine.isCaught());
+        }
+        assertTrue(engine.isSolved());
+    }
+
+    @Test
+    void solve_fromEnd() {
+        var grid = maps.getMap(1).toCompactGrid();
+        var result = new BreadthFirstSolver(grid).solve(grid.find(CompactGrid.END), grid.find(CompactGrid.MONSTER));
+        assertTrue(result.solved());
+        assertTrue(result.moves().isEmpty());
+    }
+
+    @Test
+    void solve_unsolvable() {
+        var grid = CompactGrid.wrap(1, 3, new byte[]{
+                CompactGrid.START | CompactGrid.WALL_RIGHT,
+                CompactGrid.MONSTER,
+                CompactGrid.END});
+        var result = new BreadthFirstSolver(grid).solve();
+        assertFalse(result.solved());
+        assertTrue(result.moves().isEmpty());
+    }
+
+    @Test
+    void constructor_tooLarge() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BreadthFirstSolver(CompactGrid.wrap(1, BreadthFirstSolver.MAX_CELLS + 1,
+                        new byte[BreadthFirstSolver.MAX_CELLS + 1])));
+    }
+
+}
@@ -0,0 +1,79 @@
+package mazegame.solver;
+
+import mazegame.map.CompactGrid;
+import mazegame.map.Maps;
+import mazegame.model.GameEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelBreadthFirstSolverTest {
+
+    Maps maps;
+
+    ForkJoinPool pool;
+
+    @BeforeEach
+    void init() {
+        maps = new Maps("/mazegame/map/maps.json");
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2})
+    void solve_sameLengthAsSequential(int mapId) {
+        var grid = maps.getMap(mapId).toCompactGrid();
+        var expected = new BreadthFirstSolver(grid).solve();
+        var result = new ParallelBreadthFirstSolver(grid, pool).solve();
+        assertTrue(result.solved());
+        assertEquals(expected.moves().size(), result.moves().size());
+
+        var engine = new GameEngine(grid);
+        for (var move : result.moves()) {
+            assertTrue(engine.makeMove(move));
+            assertFalse(engine.isCaught());
+        }
+        assertTrue(engine.isSolved());
+    }
+
+    @Test
+    void solve_largeOpenMap() {
+        var rows = 40;
+        var cols = 40;
+        var cells = new byte[rows * cols];
+        cells[0] = CompactGrid.START;
+        cells[cells.length - 1] = CompactGrid.END;
+        cells[cols - 1] = CompactGrid.MONSTER;
+        for (var row = 1; row < rows - 1; row += 2) {
+            for (var col = 0; col < cols - 1; col++) {
+                cells[row * cols + (row % 4 == 1 ? col + 1 : col)] |= CompactGrid.WALL_BOTTOM;
+            }
+        }
+        var grid = CompactGrid.wrap(rows, cols, cells);
+        var expected = new BreadthFirstSolver(grid).solve();
+        var result = new ParallelBreadthFirstSolver(grid, pool).solve();
+        assertEquals(expected.solved(), result.solved());
+        assertEquals(expected.moves().size(), result.moves().size());
+    }
+
+    @Test
+    void solve_unsolvable() {
+        var grid = CompactGrid.wrap(1, 3, new byte[]{
+                CompactGrid.START | CompactGrid.WALL_RIGHT,
+                CompactGrid.MONSTER,
+                CompactGrid.END});
+        assertFalse(new ParallelBreadthFirstSolver(grid, pool).solve().solved());
+    }
+
+}
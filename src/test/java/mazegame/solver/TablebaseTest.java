@@ -0,0 +1,87 @@
+package mazegame.solver;
+
+import mazegame.map.CompactGrid;
+import mazegame.map.Maps;
+import mazegame.model.GameEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablebaseTest {
+
+    Maps maps;
+
+    @BeforeEach
+    void init() {
+        maps = new Maps("/mazegame/map/maps.json");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2})
+    void build_matchesBreadthFirst(int mapId) {
+        var grid = maps.getMap(mapId).toCompactGrid();
+        var tablebase = Tablebase.build(mapId, grid);
+        var solver = new BreadthFirstSolver(grid);
+        var end = grid.find(CompactGrid.END);
+        for (var player = 0; player < grid.size(); player++) {
+            for (var monster = 0; monster < grid.size(); monster++) {
+                if (player == monster && player != end) {
+                    assertFalse(tablebase.isWin(player, monster));
+                    continue;
+                }
+                var result = solver.solve(player, monster);
+                assertEquals(result.solved(), tablebase.isWin(player, monster));
+                assertEquals(result.solved() ? result.moves().size() : -1, tablebase.distance(player, monster));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2})
+    void bestMove_leadsToEscape(int mapId) {
+        var grid = maps.getMap(mapId).toCompactGrid();
+        var tablebase = Tablebase.build(mapId, grid);
+        var engine = new GameEngine(grid);
+        var distance = tablebase.distance(engine.getPlayer(), engine.getMonster());
+        assertTrue(distance > 0);
+        while (!engine.isSolved()) {
+            var move = tablebase.bestMove(engine.getPlayer(), engine.getMonster()).orElseThrow();
+            assertTrue(engine.makeMove(move));
+            assertFalse(engine.isCaught());
+            assertEquals(--distance, tablebase.distance(engine.getPlayer(), engine.getMonster()));
+        }
+        assertTrue(tablebase.bestMove(engine.getPlayer(), engine.getMonster()).isEmpty());
+    }
+
+    @Test
+    void writeAndRead(@TempDir Path directory) throws IOException {
+        var grid = maps.getMap(2).toCompactGrid();
+        var tablebase = Tablebase.build(2, grid);
+        var path = directory.resolve("map-2.tb");
+        tablebase.write(path);
+        var read = Tablebase.read(path);
+        assertEquals(2, read.getMapId());
+        for (var player = 0; player < grid.size(); player++) {
+            for (var monster = 0; monster < grid.size(); monster++) {
+                assertEquals(tablebase.distance(player, monster), read.distance(player, monster));
+                assertEquals(tablebase.bestMove(player, monster), read.bestMove(player, monster));
+            }
+        }
+    }
+
+    @Test
+    void read_invalidFile(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("invalid.tb");
+        Files.write(path, new byte[]{1, 2, 3, 4, 5, 6});
+        assertThrows(IOException.class, () -> Tablebase.read(path));
+    }
+
+}